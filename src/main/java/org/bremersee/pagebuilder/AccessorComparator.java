@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.Objects;
+import org.bremersee.comparator.ValueComparator;
+import org.bremersee.comparator.model.SortOrder;
+import org.springframework.util.StringUtils;
+
+/**
+ * The accessor comparator compares objects like the {@link ValueComparator}, but the field
+ * path of the sort order is resolved only once per class into compiled accessors (fields, bean
+ * getters and record components), so that a comparison does not pay for reflective lookups.
+ * The values themselves are compared by a {@link ValueComparator} without field, so that
+ * ordering, case and null handling are the same.
+ *
+ * <p>If both values are of the same primitive type ({@code int}, {@code long}, {@code double},
+ * {@code boolean} etc.), they are compared without boxing. Wrapper types are compared by the
+ * {@link ValueComparator}, so that the null handling of the sort order applies.
+ *
+ * <p>If the field path cannot be resolved, the comparison is delegated to a
+ * {@link ValueComparator} of the sort order.
+ *
+ * <p>It is the default comparator of the {@link PageBuilder}, it can be used as sort function
+ * like {@code AccessorComparator::new}.
+ *
+ * @author Christian Bremer
+ */
+public class AccessorComparator implements Comparator<Object> {
+
+  private final ValuePath path;
+
+  private final boolean asc;
+
+  private final Comparator<Object> valueComparator;
+
+  private final Comparator<Object> fallback;
+
+  private final Collator collator;
+
+  /**
+   * Instantiates a new accessor comparator.
+   *
+   * @param sortOrder the sort order
+   */
+  public AccessorComparator(SortOrder sortOrder) {
+    this(sortOrder, null);
+  }
+
+  /**
+   * Instantiates a new accessor comparator, that compares strings with the given collator. The
+   * comparator is not thread safe, if a collator is given.
+   *
+   * @param sortOrder the sort order
+   * @param collator the collator of strings (can be {@code null})
+   */
+  AccessorComparator(SortOrder sortOrder, Collator collator) {
+    Objects.requireNonNull(sortOrder, "Sort order must be present.");
+    if (Objects.isNull(collator)) {
+      this.collator = null;
+    } else {
+      this.collator = (Collator) collator.clone();
+      if (sortOrder.isIgnoreCase() && this.collator.getStrength() > Collator.SECONDARY) {
+        this.collator.setStrength(Collator.SECONDARY);
+      }
+    }
+    this.fallback = new ValueComparator(sortOrder);
+    this.asc = sortOrder.isAsc();
+    if (StringUtils.hasText(sortOrder.getField())) {
+      this.path = new ValuePath(sortOrder.getField());
+      this.valueComparator = new ValueComparator(new SortOrder(
+          null,
+          sortOrder.isAsc(),
+          sortOrder.isIgnoreCase(),
+          sortOrder.isNullIsFirst()));
+    } else {
+      this.path = null;
+      this.valueComparator = fallback;
+    }
+  }
+
+  @Override
+  public int compare(Object o1, Object o2) {
+    if (Objects.isNull(path)) {
+      return valueComparator.compare(o1, o2);
+    }
+    Object owner1 = path.ownerOf(o1);
+    Object owner2 = path.ownerOf(o2);
+    if (owner1 == ValuePath.NOT_FOUND || owner2 == ValuePath.NOT_FOUND) {
+      return fallback.compare(o1, o2);
+    }
+    ValueAccessor accessor1 = Objects.isNull(owner1) ? null : path.accessorOf(owner1);
+    ValueAccessor accessor2 = Objects.isNull(owner2) ? null : path.accessorOf(owner2);
+    if (!Objects.isNull(accessor1) && !accessor1.isPresent()
+        || !Objects.isNull(accessor2) && !accessor2.isPresent()) {
+      return fallback.compare(o1, o2);
+    }
+    if (!Objects.isNull(accessor1) && !Objects.isNull(accessor2)
+        && accessor1.getValueType() == accessor2.getValueType()) {
+      if (accessor1.isLong()) {
+        int result = Long.compare(accessor1.getLong(owner1), accessor2.getLong(owner2));
+        return asc ? result : -result;
+      }
+      if (accessor1.isDouble()) {
+        int result = Double.compare(accessor1.getDouble(owner1), accessor2.getDouble(owner2));
+        return asc ? result : -result;
+      }
+    }
+    Object value1 = Objects.isNull(accessor1) ? null : accessor1.get(owner1);
+    Object value2 = Objects.isNull(accessor2) ? null : accessor2.get(owner2);
+    if (!Objects.isNull(collator) && value1 instanceof String && value2 instanceof String) {
+      int result = collator.compare(value1, value2);
+      return asc ? result : -result;
+    }
+    return valueComparator.compare(value1, value2);
+  }
+}
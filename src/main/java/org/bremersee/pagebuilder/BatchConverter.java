@@ -0,0 +1,164 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The batch converter converts the entries in batches of a maximum size with one call of a
+ * function, so that e.g. one bulk lookup per batch is made instead of one lookup per entry.
+ * The function must return exactly one target entry for every source entry in the same order.
+ * If an executor is given, the batches are converted concurrently.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+final class BatchConverter<S, T> {
+
+  private final Function<List<S>, List<T>> converter;
+
+  private final int batchSize;
+
+  private final ConcurrentConverter<List<S>, List<T>> concurrentConverter;
+
+  /**
+   * Instantiates a new batch converter.
+   *
+   * @param converter the converter of a batch
+   * @param batchSize the maximum size of a batch
+   * @param executor the executor of the batches (can be {@code null})
+   * @param concurrency the maximum number of batches, that are converted at the same time
+   */
+  BatchConverter(
+      Function<List<S>, List<T>> converter,
+      int batchSize,
+      Executor executor,
+      int concurrency) {
+    this.converter = converter;
+    this.batchSize = Math.max(1, batchSize);
+    this.concurrentConverter = Objects.isNull(executor) || concurrency < 2
+        ? null
+        : new ConcurrentConverter<>(this::convertBatch, executor, concurrency);
+  }
+
+  /**
+   * Converts a single entry as batch of one entry.
+   *
+   * @param entry the entry
+   * @return the converted entry
+   */
+  T convertOne(S entry) {
+    return convertBatch(List.of(entry)).get(0);
+  }
+
+  /**
+   * Converts the given entries in batches.
+   *
+   * @param entries the entries
+   * @return the converted entries in the same order
+   */
+  List<T> convert(List<S> entries) {
+    if (entries.size() <= batchSize) {
+      return entries.isEmpty() ? new ArrayList<>() : convertBatch(entries);
+    }
+    List<List<S>> batches = new ArrayList<>();
+    for (int from = 0; from < entries.size(); from += batchSize) {
+      batches.add(entries.subList(from, Math.min(entries.size(), from + batchSize)));
+    }
+    List<List<T>> convertedBatches = Objects.isNull(concurrentConverter)
+        ? batches.stream().map(this::convertBatch).toList()
+        : concurrentConverter.convert(batches);
+    List<T> targets = new ArrayList<>(entries.size());
+    convertedBatches.forEach(targets::addAll);
+    return targets;
+  }
+
+  /**
+   * Converts the given stream lazily: the entries are pulled and converted batch by batch.
+   *
+   * @param entries the entries
+   * @return the converted entries in the same order
+   */
+  Stream<T> convert(Stream<S> entries) {
+    return convertEntries(entries).map(Entry::getValue);
+  }
+
+  /**
+   * Converts the given stream lazily like {@link #convert(Stream)}, but returns every source
+   * entry together with its target entry.
+   *
+   * @param entries the entries
+   * @return the source entries (keys) with their target entries (values) in the same order
+   */
+  Stream<Entry<S, T>> convertEntries(Stream<S> entries) {
+    Iterator<S> sourceIterator = entries.iterator();
+    Iterator<Entry<S, T>> targetIterator = new Iterator<>() {
+
+      private Iterator<Entry<S, T>> batch = Collections.emptyIterator();
+
+      @Override
+      public boolean hasNext() {
+        while (!batch.hasNext() && sourceIterator.hasNext()) {
+          List<S> sourceEntries = new ArrayList<>(Math.min(batchSize, 1024));
+          while (sourceEntries.size() < batchSize && sourceIterator.hasNext()) {
+            sourceEntries.add(sourceIterator.next());
+          }
+          List<T> targetEntries = convertBatch(sourceEntries);
+          List<Entry<S, T>> convertedEntries = new ArrayList<>(sourceEntries.size());
+          for (int i = 0; i < sourceEntries.size(); i++) {
+            convertedEntries.add(
+                new SimpleImmutableEntry<>(sourceEntries.get(i), targetEntries.get(i)));
+          }
+          batch = convertedEntries.iterator();
+        }
+        return batch.hasNext();
+      }
+
+      @Override
+      public Entry<S, T> next() {
+        hasNext();
+        return batch.next();
+      }
+    };
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(targetIterator, Spliterator.ORDERED),
+        false);
+  }
+
+  private List<T> convertBatch(List<S> entries) {
+    List<T> targets = converter.apply(entries);
+    if (Objects.isNull(targets) || targets.size() != entries.size()) {
+      throw new IllegalStateException(String.format(
+          "The batch converter must return %d entries, but it returned %s.",
+          entries.size(), Objects.isNull(targets) ? "null" : targets.size()));
+    }
+    return targets;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The change set contains the inserts, deletes and updates of source entries, that are applied
+ * in the order they were added to a {@link SortedResult}. Entries are identified by
+ * {@code equals}; the entry before an update must still have its old values.
+ *
+ * @param <S> the source type
+ * @author Christian Bremer
+ * @see SortedResult#apply(ChangeSet)
+ */
+public final class ChangeSet<S> {
+
+  private final List<Change<S>> changes = new ArrayList<>();
+
+  /**
+   * Adds an inserted source entry. It is appended to the source entries.
+   *
+   * @param entry the inserted entry
+   * @return the change set
+   */
+  public ChangeSet<S> insert(S entry) {
+    changes.add(new Change<>(null, entry));
+    return this;
+  }
+
+  /**
+   * Adds a deleted source entry.
+   *
+   * @param entry the deleted entry
+   * @return the change set
+   */
+  public ChangeSet<S> delete(S entry) {
+    changes.add(new Change<>(entry, null));
+    return this;
+  }
+
+  /**
+   * Adds an updated source entry. It keeps its position in the source entries.
+   *
+   * @param before the entry with the old values
+   * @param after the entry with the new values
+   * @return the change set
+   */
+  public ChangeSet<S> update(S before, S after) {
+    changes.add(new Change<>(before, after));
+    return this;
+  }
+
+  /**
+   * Gets the changes.
+   *
+   * @return the unmodifiable changes
+   */
+  List<Change<S>> getChanges() {
+    return Collections.unmodifiableList(changes);
+  }
+
+  /**
+   * Gets the number of changes.
+   *
+   * @return the size
+   */
+  public int size() {
+    return changes.size();
+  }
+
+  /**
+   * A change: an insert has no entry before, a delete has no entry after.
+   *
+   * @param before the entry before the change (can be {@code null})
+   * @param after the entry after the change (can be {@code null})
+   * @param <S> the source type
+   */
+  record Change<S>(S before, S after) {
+
+  }
+}
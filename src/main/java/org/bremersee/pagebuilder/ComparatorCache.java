@@ -0,0 +1,210 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+
+/**
+ * The comparator cache holds the comparators, that are built from the sort orders, the sort
+ * target and the sort function, so that the same sort of many requests builds the comparator
+ * only once. The cache is bounded, the least recently used comparator is evicted, and it can
+ * be used by many threads.
+ *
+ * <p>The sort function is compared by identity, so it should be a constant (the default sort
+ * function is always the same). The hit and miss counts help to size the cache.
+ *
+ * @author Christian Bremer
+ * @see PageBuilder#comparatorCache(ComparatorCache)
+ */
+public final class ComparatorCache {
+
+  private final int maximumSize;
+
+  private final Map<Key, Node> cache = new ConcurrentHashMap<>();
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * Instantiates a new comparator cache.
+   *
+   * @param maximumSize the maximum number of comparators
+   */
+  public ComparatorCache(int maximumSize) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be greater than zero.");
+    }
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Gets the comparator of the given sort from the cache or builds it.
+   *
+   * @param sort the sort orders
+   * @param sortTarget the sort target
+   * @param sortFn the sort function ({@code null} is the default one)
+   * @param factory the factory, that builds the comparator
+   * @return the comparator
+   */
+  Comparator<Object> get(
+      List<SortOrder> sort,
+      SortTarget sortTarget,
+      Function<SortOrder, Comparator<?>> sortFn,
+      Supplier<Comparator<Object>> factory) {
+
+    Key key = new Key(sort, sortTarget, sortFn);
+    Node node = cache.get(key);
+    if (node != null) {
+      hitCount.increment();
+      node.lastAccess = clock.incrementAndGet();
+      return node.comparator;
+    }
+    missCount.increment();
+    Node created = new Node(factory.get(), clock.incrementAndGet());
+    node = cache.putIfAbsent(new Key(new ArrayList<>(sort), sortTarget, sortFn), created);
+    if (node != null) {
+      return node.comparator;
+    }
+    evict();
+    return created.comparator;
+  }
+
+  private void evict() {
+    while (cache.size() > maximumSize) {
+      Map.Entry<Key, Node> eldest = null;
+      for (Map.Entry<Key, Node> entry : cache.entrySet()) {
+        if (eldest == null || entry.getValue().lastAccess < eldest.getValue().lastAccess) {
+          eldest = entry;
+        }
+      }
+      if (eldest != null && cache.remove(eldest.getKey(), eldest.getValue())) {
+        evictionCount.increment();
+      }
+    }
+  }
+
+  /**
+   * Gets the maximum number of comparators.
+   *
+   * @return the maximum size
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Gets the number of cached comparators.
+   *
+   * @return the size
+   */
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * Gets the number of requests, that were answered from the cache.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Gets the number of requests, that built a new comparator.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Gets the number of evicted comparators.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * Gets the ratio of hits to all requests.
+   *
+   * @return the hit rate, {@code 1.0} if there was no request
+   */
+  public double getHitRate() {
+    long hits = getHitCount();
+    long requests = hits + getMissCount();
+    return requests == 0L ? 1.0 : (double) hits / requests;
+  }
+
+  /**
+   * Removes all comparators and resets the statistics.
+   */
+  public void clear() {
+    cache.clear();
+    hitCount.reset();
+    missCount.reset();
+    evictionCount.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "ComparatorCache{"
+        + "maximumSize=" + maximumSize
+        + ", size=" + size()
+        + ", hitCount=" + getHitCount()
+        + ", missCount=" + getMissCount()
+        + ", evictionCount=" + getEvictionCount()
+        + '}';
+  }
+
+  private record Key(
+      List<SortOrder> sort,
+      SortTarget sortTarget,
+      Function<SortOrder, Comparator<?>> sortFn) {
+
+  }
+
+  private static final class Node {
+
+    private final Comparator<Object> comparator;
+
+    private volatile long lastAccess;
+
+    private Node(Comparator<Object> comparator, long lastAccess) {
+      this.comparator = comparator;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
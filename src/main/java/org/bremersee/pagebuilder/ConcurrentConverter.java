@@ -0,0 +1,114 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The concurrent converter applies a converter, that may block (e.g. because of a lookup in a
+ * repository), to a list of entries with a limited number of tasks of an executor. The order of
+ * the entries is preserved. The calling thread works as one of the tasks, so that no more than
+ * {@code concurrency - 1} tasks are submitted to the executor.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+final class ConcurrentConverter<S, T> {
+
+  private final Function<S, T> converter;
+
+  private final Executor executor;
+
+  private final int concurrency;
+
+  /**
+   * Instantiates a new concurrent converter.
+   *
+   * @param converter the converter
+   * @param executor the executor
+   * @param concurrency the maximum number of entries, that are converted at the same time
+   */
+  ConcurrentConverter(Function<S, T> converter, Executor executor, int concurrency) {
+    this.converter = converter;
+    this.executor = executor;
+    this.concurrency = Math.max(1, concurrency);
+  }
+
+  /**
+   * Converts the given entries.
+   *
+   * @param entries the entries
+   * @return the converted entries in the same order
+   */
+  List<T> convert(List<? extends S> entries) {
+    int size = entries.size();
+    int workers = Math.min(concurrency, size);
+    if (workers <= 1) {
+      List<T> targets = new ArrayList<>(size);
+      for (S entry : entries) {
+        targets.add(converter.apply(entry));
+      }
+      return targets;
+    }
+    Object[] targets = new Object[size];
+    AtomicInteger next = new AtomicInteger();
+    AtomicBoolean failed = new AtomicBoolean();
+    Runnable worker = () -> {
+      int index;
+      while (!failed.get() && (index = next.getAndIncrement()) < size) {
+        try {
+          targets[index] = converter.apply(entries.get(index));
+        } catch (RuntimeException | Error e) {
+          failed.set(true);
+          throw e;
+        }
+      }
+    };
+    CompletableFuture<?>[] tasks = new CompletableFuture<?>[workers - 1];
+    for (int i = 0; i < tasks.length; i++) {
+      tasks[i] = CompletableFuture.runAsync(worker, executor);
+    }
+    RuntimeException failure = null;
+    try {
+      worker.run();
+    } catch (RuntimeException e) {
+      failure = e;
+    }
+    try {
+      CompletableFuture.allOf(tasks).join();
+    } catch (CompletionException e) {
+      if (Objects.isNull(failure)) {
+        failure = e.getCause() instanceof RuntimeException cause ? cause : e;
+      }
+    }
+    if (!Objects.isNull(failure)) {
+      throw failure;
+    }
+    //noinspection unchecked
+    return (List<T>) Arrays.asList(targets);
+  }
+}
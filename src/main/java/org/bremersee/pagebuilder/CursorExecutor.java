@@ -0,0 +1,83 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.bremersee.pagebuilder.QueryContext.Range;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * The cursor executor builds the cursor pages of a page query. Without a cursor the filtered
+ * and sorted entries are pinned as snapshot in the cursor sessions, otherwise the page is taken
+ * from the snapshot of the cursor.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+final class CursorExecutor<S, T> {
+
+  private final QueryContext<S, T> context;
+
+  /**
+   * Instantiates a new cursor executor.
+   *
+   * @param context the query context
+   */
+  CursorExecutor(QueryContext<S, T> context) {
+    this.context = context;
+  }
+
+  /**
+   * Executes the page query as cursor page.
+   *
+   * @param sourceEntries the source entries (not read, if there is a cursor)
+   * @return the cursor page
+   * @throws IllegalStateException if there are no cursor sessions
+   * @throws IllegalArgumentException if the cursor is unknown, expired or was created with other
+   *     sort orders
+   */
+  CursorPage<T> execute(Stream<? extends S> sourceEntries) {
+    if (Objects.isNull(context.cursorSessions())) {
+      throw new IllegalStateException("Cursor pagination needs cursor sessions.");
+    }
+    return context.inPool(() -> build(sourceEntries));
+  }
+
+  private CursorPage<T> build(Stream<? extends S> sourceEntries) {
+    final CursorSessions cursorSessions = context.cursorSessions();
+    final String cursor = context.cursor();
+    final Pageable pageable = context.pageable(context.pageNumber());
+    final Range range;
+    final String snapshotCursor;
+    if (Objects.isNull(cursor)) {
+      range = context.snapshot(context.sourceStream(sourceEntries));
+      snapshotCursor = cursorSessions.open(
+          context.sort(), context.sortTarget(), context.sortFn(), range, range.entries().size());
+    } else if (cursorSessions.get(cursor, context.sort(), context.sortTarget(), context.sortFn())
+        instanceof Range snapshot) {
+      range = snapshot;
+      snapshotCursor = cursor;
+    } else {
+      throw new IllegalArgumentException("The cursor is unknown or expired.");
+    }
+    final List<T> content = context.content(range, pageable.getOffset(), pageable.getPageSize());
+    return new CursorPage<>(content, pageable, range.total(), snapshotCursor);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.pagebuilder;
+
+import java.util.List;
+import java.util.Objects;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * The cursor page is a page of a pinned snapshot of the sorted entries. The cursor identifies
+ * the snapshot, so that the other pages are served from the same snapshot, even if the source
+ * entries change in the meantime.
+ *
+ * @param <T> the type of the content
+ * @author Christian Bremer
+ * @see PageBuilder#buildCursorPage()
+ */
+public class CursorPage<T> extends PageImpl<T> {
+
+  private final String cursor;
+
+  /**
+   * Instantiates a new cursor page.
+   *
+   * @param content the content
+   * @param pageable the pageable
+   * @param total the number of entries of the snapshot
+   * @param cursor the cursor of the snapshot (can be {@code null})
+   */
+  public CursorPage(
+      List<T> content,
+      Pageable pageable,
+      long total,
+      String cursor) {
+    super(content, pageable, total);
+    this.cursor = cursor;
+  }
+
+  /**
+   * Gets the cursor of the snapshot.
+   *
+   * @return the cursor, {@code null} if no snapshot was pinned
+   */
+  public String getCursor() {
+    return cursor;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CursorPage<?> that) || !super.equals(obj)) {
+      return false;
+    }
+    return Objects.equals(cursor, that.cursor);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * super.hashCode() + Objects.hashCode(cursor);
+  }
+}
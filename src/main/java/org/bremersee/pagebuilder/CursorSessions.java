@@ -0,0 +1,189 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+
+/**
+ * The cursor sessions hold the snapshots of the sorted entries, that are pinned by the first
+ * page of a cursor pagination. The following pages are served from the snapshot of the cursor,
+ * so the pagination is consistent, even if the source entries change, and nothing is filtered,
+ * converted or sorted again.
+ *
+ * <p>The weight of a snapshot is the number of its entries. The sessions are bounded by their
+ * number and by the sum of their weights, the least recently used session is evicted; a
+ * snapshot, that is heavier than the maximum weight, is not pinned. A session expires after the
+ * time to live, that starts with the first page. Expired sessions are removed, whenever a
+ * session is opened or looked up, so that the snapshot of an abandoned cursor is released
+ * without being requested again. The sessions can be used by many threads.
+ *
+ * @author Christian Bremer
+ * @see PageBuilder#cursorSessions(CursorSessions)
+ */
+public final class CursorSessions {
+
+  private static final int CURSOR_LENGTH = 18;
+
+  private final SecureRandom random = new SecureRandom();
+
+  private final ResultCache snapshots;
+
+  /**
+   * Instantiates new cursor sessions.
+   *
+   * @param maximumSessions the maximum number of sessions
+   * @param maximumWeight the maximum number of the entries of all snapshots
+   * @param timeToLive the time to live of a session
+   */
+  public CursorSessions(int maximumSessions, long maximumWeight, Duration timeToLive) {
+    this(maximumSessions, maximumWeight, timeToLive, System::nanoTime);
+  }
+
+  /**
+   * Instantiates new cursor sessions.
+   *
+   * @param maximumSessions the maximum number of sessions
+   * @param maximumWeight the maximum number of the entries of all snapshots
+   * @param timeToLive the time to live of a session
+   * @param ticker the ticker, that returns the current time in nanoseconds
+   */
+  CursorSessions(
+      int maximumSessions,
+      long maximumWeight,
+      Duration timeToLive,
+      LongSupplier ticker) {
+    if (Objects.isNull(timeToLive)) {
+      throw new IllegalArgumentException("Time to live must be present.");
+    }
+    this.snapshots = new ResultCache(maximumSessions, maximumWeight, timeToLive, ticker);
+  }
+
+  /**
+   * Opens a session with the given snapshot.
+   *
+   * @param sort the sort orders
+   * @param sortTarget the sort target (can be {@code null})
+   * @param sortFn the sort function ({@code null} is the default one)
+   * @param snapshot the snapshot
+   * @param weight the number of entries of the snapshot
+   * @return the cursor of the session, {@code null} if the snapshot is too heavy
+   */
+  String open(
+      List<SortOrder> sort,
+      SortTarget sortTarget,
+      Function<SortOrder, Comparator<?>> sortFn,
+      Object snapshot,
+      long weight) {
+    byte[] bytes = new byte[CURSOR_LENGTH];
+    random.nextBytes(bytes);
+    String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    return snapshots.put(ResultCache.key(cursor, null, sort, sortTarget, sortFn), snapshot, weight)
+        ? cursor
+        : null;
+  }
+
+  /**
+   * Gets the snapshot of the given cursor.
+   *
+   * @param cursor the cursor
+   * @param sort the sort orders, which must be the sort orders of the first page
+   * @param sortTarget the sort target (can be {@code null})
+   * @param sortFn the sort function ({@code null} is the default one)
+   * @return the snapshot or {@code null}, if the session is unknown, expired or was opened
+   *     with other sort orders
+   */
+  Object get(
+      String cursor,
+      List<SortOrder> sort,
+      SortTarget sortTarget,
+      Function<SortOrder, Comparator<?>> sortFn) {
+    return snapshots.get(ResultCache.key(cursor, null, sort, sortTarget, sortFn));
+  }
+
+  /**
+   * Closes the session of the given cursor, e.g. if the last page was requested.
+   *
+   * @param cursor the cursor
+   */
+  public void close(String cursor) {
+    snapshots.invalidate(cursor);
+  }
+
+  /**
+   * Removes the expired sessions. This is done, whenever a session is opened or looked up, so
+   * it is only necessary, if no cursor pagination is done for a long time.
+   */
+  public void cleanUp() {
+    snapshots.cleanUp();
+  }
+
+  /**
+   * Gets the number of open sessions, that are not expired.
+   *
+   * @return the size
+   */
+  public int size() {
+    snapshots.cleanUp();
+    return snapshots.size();
+  }
+
+  /**
+   * Gets the number of the entries of all snapshots, that are not expired.
+   *
+   * @return the weight
+   */
+  public long getWeight() {
+    snapshots.cleanUp();
+    return snapshots.getWeight();
+  }
+
+  /**
+   * Gets the number of evicted or expired sessions.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return snapshots.getEvictionCount();
+  }
+
+  /**
+   * Closes all sessions.
+   */
+  public void clear() {
+    snapshots.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "CursorSessions{"
+        + "maximumSessions=" + snapshots.getMaximumSize()
+        + ", maximumWeight=" + snapshots.getMaximumWeight()
+        + ", size=" + size()
+        + ", weight=" + getWeight()
+        + ", evictionCount=" + getEvictionCount()
+        + '}';
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The entry codec writes entries to and reads them from the temporary files of the external
+ * sort, see {@link PageBuilder#spillToDisk(int, EntryCodec)}. An entry that was written must be
+ * read as an entry that is equal under the sort orders.
+ *
+ * @param <E> the type of the entries
+ * @author Christian Bremer
+ */
+public interface EntryCodec<E> {
+
+  /**
+   * Writes the given entry.
+   *
+   * @param entry the entry
+   * @param output the output
+   * @throws IOException if writing fails
+   */
+  void write(E entry, DataOutput output) throws IOException;
+
+  /**
+   * Reads the next entry.
+   *
+   * @param input the input
+   * @return the entry
+   * @throws IOException if reading fails
+   */
+  E read(DataInput input) throws IOException;
+
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.bremersee.pagebuilder.QueryContext.Converted;
+import org.bremersee.pagebuilder.QueryContext.Range;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The export executor builds many pages of a page query at once: all pages from the page
+ * number of the query to the last page or the pages of the given page numbers. The entries are
+ * filtered and sorted only once. The keyset is not used.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+final class ExportExecutor<S, T> {
+
+  private final QueryContext<S, T> context;
+
+  /**
+   * Instantiates a new export executor.
+   *
+   * @param context the query context
+   */
+  ExportExecutor(QueryContext<S, T> context) {
+    this.context = context;
+  }
+
+  /**
+   * Executes the page query against the given source entries and returns all pages from the
+   * page number of the query to the last page.
+   *
+   * @param sourceEntries the source entries
+   * @return the pages
+   */
+  Stream<Page<T>> executeAll(Stream<? extends S> sourceEntries) {
+    return context.inPool(() -> buildAll(sourceEntries));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Stream<Page<T>> buildAll(Stream<? extends S> sourceEntries) {
+    final boolean sorted = context.isSorted();
+    final boolean sortSource = context.isSortSource();
+    final Sort pageSort = context.pageSort();
+    final Stream<S> sourceStream = context.sourceStream(sourceEntries);
+    if (context.isSpilled()) {
+      final ExternalSorter<Object>.Merge merge = context.externalSorter().sorted(
+          context.sortStream(sourceStream, context.targetFilter(), sortSource).iterator(),
+          Long.MAX_VALUE);
+      return pages(
+          merge,
+          merge.getTotal(),
+          sortSource
+              ? entries -> context.convert((List<S>) entries)
+              : entries -> (List<T>) entries,
+          pageSort,
+          merge::close);
+    }
+    if (context.isConversionLazy()) {
+      final List<S> source = sourceStream.collect(Collectors.toList());
+      final List<S> entries = sortSource
+          ? QueryContext.entriesOf(source, context.sortedWindow(source, 0, source.size()))
+          : source;
+      return pages(entries.iterator(), entries.size(), context::convert, pageSort, null);
+    }
+    final Converted<S, T> converted = context.convertAll(
+        sourceStream, context.targetFilter(), sortSource);
+    final List<T> target = converted.target();
+    final List<?> sortEntries = sortSource ? converted.source() : target;
+    final List<T> entries = sorted
+        ? QueryContext.entriesOf(target, context.sortedWindow(sortEntries, 0, sortEntries.size()))
+        : target;
+    return pages(entries.iterator(), entries.size(), ArrayList::new, pageSort, null);
+  }
+
+  /**
+   * Creates the lazy stream of the pages of the given sorted entries.
+   *
+   * @param entries the sorted entries
+   * @param total the number of the entries
+   * @param pageConverter the converter of the entries of a page
+   * @param pageSort the sort of the pages
+   * @param closeHandler the close handler of the sorted entries, that is called after
+   *     the last page or when the stream is closed (can be {@code null})
+   * @param <E> the type of the sorted entries
+   * @return the pages
+   */
+  private <E> Stream<Page<T>> pages(
+      Iterator<E> entries,
+      long total,
+      Function<List<E>, List<T>> pageConverter,
+      Sort pageSort,
+      Runnable closeHandler) {
+
+    final Function<List<E>, List<T>> converter = pageEntries -> context.inPool(
+        () -> pageConverter.apply(pageEntries));
+
+    final int size = requireNonNullElse(context.pageSize(), Integer.MAX_VALUE);
+    final int firstNumber = requireNonNullElse(context.pageNumber(), 0);
+    final Iterator<Page<T>> pages = new Iterator<>() {
+
+      private int number = firstNumber;
+
+      @Override
+      public boolean hasNext() {
+        return number == firstNumber || (long) number * size < total;
+      }
+
+      @Override
+      public Page<T> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        if (number == firstNumber) {
+          for (long i = 0; i < (long) firstNumber * size && entries.hasNext(); i++) {
+            entries.next();
+          }
+        }
+        List<E> pageEntries = new ArrayList<>(Math.min(size, 1024));
+        while (pageEntries.size() < size && entries.hasNext()) {
+          pageEntries.add(entries.next());
+        }
+        Pageable pageable = PageRequest.of(number++, size, pageSort);
+        Page<T> page = new PageImpl<>(converter.apply(pageEntries), pageable, total);
+        if (!hasNext() && !Objects.isNull(closeHandler)) {
+          closeHandler.run();
+        }
+        return page;
+      }
+    };
+    final Stream<Page<T>> stream = StreamSupport
+        .stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED), false);
+    return Objects.isNull(closeHandler) ? stream : stream.onClose(closeHandler);
+  }
+
+  /**
+   * Executes the page query against the given source entries and returns the pages of the
+   * given page numbers in the given order.
+   *
+   * @param sourceEntries the source entries
+   * @param pageNumbers the page numbers
+   * @return the pages
+   * @throws IllegalArgumentException if a page number is negative
+   */
+  List<Page<T>> executePages(Stream<? extends S> sourceEntries, int... pageNumbers) {
+    if (Objects.isNull(pageNumbers) || pageNumbers.length == 0) {
+      return new ArrayList<>();
+    }
+    if (Arrays.stream(pageNumbers).anyMatch(number -> number < 0)) {
+      throw new IllegalArgumentException("Page numbers must not be less than zero.");
+    }
+    return context.inPool(() -> buildPages(sourceEntries, pageNumbers));
+  }
+
+  private List<Page<T>> buildPages(Stream<? extends S> sourceEntries, int[] pageNumbers) {
+    final Sort pageSort = context.pageSort();
+    final int size = requireNonNullElse(context.pageSize(), Integer.MAX_VALUE);
+    final long from = (long) Arrays.stream(pageNumbers).min().orElse(0) * size;
+    final long to = ((long) Arrays.stream(pageNumbers).max().orElse(0) + 1L) * size;
+    final Stream<S> sourceStream = context.sourceStream(sourceEntries);
+    final boolean cached = !Objects.isNull(context.resultCache());
+    final Range range = cached
+        ? context.cachedRange(sourceStream)
+        : context.range(sourceStream, from, to);
+    final long start = cached ? 0L : from;
+    final List<Page<T>> pages = new ArrayList<>(pageNumbers.length);
+    for (int number : pageNumbers) {
+      final List<T> content = context.content(range, (long) number * size - start, size);
+      pages.add(new PageImpl<>(content, PageRequest.of(number, size, pageSort), range.total()));
+    }
+    return pages;
+  }
+}
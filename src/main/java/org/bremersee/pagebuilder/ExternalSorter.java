@@ -0,0 +1,430 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+/**
+ * The external sorter selects a window of sorted entries from more entries than fit into
+ * memory. The entries are collected into runs of at most the in-memory budget, every run is
+ * sorted in memory and written to a temporary file with the entry codec, and the runs are
+ * merged (k-way) until the end of the window is reached. The total is the number of all
+ * entries.
+ *
+ * <p>At most {@code maxFanIn} files are read at the same time: whenever as many runs of the
+ * same level are written, they are merged into one run of the next level, and before the final
+ * merge the last runs are merged, until no more than {@code maxFanIn} runs are left. So the
+ * number of open files is bounded, however many entries are sorted. The temporary files are
+ * written to the given directory or to the default temporary-file directory.
+ *
+ * <p>As the window ends at position {@code to}, only the first {@code to} entries of a sorted
+ * run can be part of it; the others are neither written nor merged. If these entries fit into
+ * half of the budget, they are kept in memory instead of being written to a file, so that
+ * shallow pages never touch the disk.
+ *
+ * <p>The result is the same as a stable sort of all entries followed by taking the window.
+ *
+ * @param <E> the type of the entries
+ * @author Christian Bremer
+ */
+final class ExternalSorter<E> {
+
+  /**
+   * The default maximum number of runs, that are merged at the same time.
+   */
+  static final int DEFAULT_MAX_FAN_IN = 64;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final EntryCodec<E> codec;
+
+  private final int maxEntriesInMemory;
+
+  private final Comparator<? super E> comparator;
+
+  private final RunSorter runSorter;
+
+  private final Path directory;
+
+  private final int maxFanIn;
+
+  /**
+   * Instantiates a new external sorter, that writes to the default temporary-file directory
+   * and merges at most {@link #DEFAULT_MAX_FAN_IN} runs at the same time.
+   *
+   * @param codec the codec of the entries
+   * @param maxEntriesInMemory the maximum number of entries of a run
+   * @param comparator the comparator, that is used to merge the runs
+   * @param runSorter the sorter of a run, it must order like the comparator
+   */
+  ExternalSorter(
+      EntryCodec<E> codec,
+      int maxEntriesInMemory,
+      Comparator<? super E> comparator,
+      RunSorter runSorter) {
+    this(codec, maxEntriesInMemory, comparator, runSorter, null, DEFAULT_MAX_FAN_IN);
+  }
+
+  /**
+   * Instantiates a new external sorter.
+   *
+   * @param codec the codec of the entries
+   * @param maxEntriesInMemory the maximum number of entries of a run
+   * @param comparator the comparator, that is used to merge the runs
+   * @param runSorter the sorter of a run, it must order like the comparator
+   * @param directory the directory of the temporary files ({@code null} is the default
+   *     temporary-file directory)
+   * @param maxFanIn the maximum number of runs, that are merged at the same time (at least
+   *     {@code 2})
+   */
+  ExternalSorter(
+      EntryCodec<E> codec,
+      int maxEntriesInMemory,
+      Comparator<? super E> comparator,
+      RunSorter runSorter,
+      Path directory,
+      int maxFanIn) {
+    this.codec = codec;
+    this.maxEntriesInMemory = Math.max(1, maxEntriesInMemory);
+    this.comparator = comparator;
+    this.runSorter = runSorter;
+    this.directory = directory;
+    this.maxFanIn = Math.max(2, maxFanIn);
+  }
+
+  /**
+   * Returns the entries, that a stable sort would place at the positions {@code [from, to)},
+   * and the number of all entries.
+   *
+   * @param entries the entries
+   * @param from the first position (inclusive)
+   * @param to the last position (exclusive)
+   * @return the window
+   * @throws UncheckedIOException if a temporary file cannot be written or read
+   */
+  Window<E> sortedWindow(Iterator<? extends E> entries, long from, long to) {
+    try (Merge merge = sorted(entries, to)) {
+      List<E> window = new ArrayList<>();
+      for (long position = 0; position < to && merge.hasNext(); position++) {
+        E entry = merge.next();
+        if (position >= from) {
+          window.add(entry);
+        }
+      }
+      return new Window<>(window, merge.getTotal());
+    }
+  }
+
+  /**
+   * Sorts the given entries into runs and returns the merge of the runs, that returns the
+   * first {@code to} entries in sorted order. The merge must be closed to delete the temporary
+   * files.
+   *
+   * @param entries the entries
+   * @param to the number of the sorted entries, that are needed
+   * @return the merge of the runs
+   * @throws UncheckedIOException if a temporary file cannot be written
+   */
+  Merge sorted(Iterator<? extends E> entries, long to) {
+    List<Run> spilled = new ArrayList<>();
+    try {
+      List<E> buffer = new ArrayList<>();
+      long total = 0;
+      while (entries.hasNext()) {
+        buffer.add(entries.next());
+        total++;
+        if (buffer.size() >= maxEntriesInMemory && entries.hasNext()) {
+          List<E> run = sortedRun(buffer, to);
+          buffer = new ArrayList<>();
+          if (run.size() <= maxEntriesInMemory / 2) {
+            buffer.addAll(run);
+          } else {
+            Path file = createTempFile();
+            spilled.add(new Run(file, write(file, run.iterator(), run.size()), 0));
+            compact(spilled, to, false);
+          }
+        }
+      }
+      compact(spilled, to, true);
+      return merge(spilled, sortedRun(buffer, to).iterator(), total);
+
+    } catch (IOException e) {
+      delete(spilled);
+      throw new UncheckedIOException("Spilling entries to disk failed.", e);
+    } catch (RuntimeException | Error e) {
+      delete(spilled);
+      throw e;
+    }
+  }
+
+  /**
+   * Merges the last runs into one run, if there are {@code maxFanIn} runs of the same level,
+   * or, if the runs are finished, until at most {@code maxFanIn} runs are left. The runs are
+   * contiguous, so that equal entries keep their order.
+   */
+  private void compact(List<Run> spilled, long to, boolean finished) throws IOException {
+    while (true) {
+      int size = spilled.size();
+      int count;
+      if (finished) {
+        if (size <= maxFanIn) {
+          return;
+        }
+        count = Math.min(maxFanIn, size - maxFanIn + 1);
+      } else {
+        if (size < maxFanIn
+            || spilled.get(size - maxFanIn).level() != spilled.get(size - 1).level()) {
+          return;
+        }
+        count = maxFanIn;
+      }
+      List<Run> group = spilled.subList(size - count, size);
+      int level = group.get(0).level() + 1;
+      Path file = createTempFile();
+      long merged;
+      try (Merge merge = merge(new ArrayList<>(group), Collections.emptyIterator(), 0L)) {
+        merged = write(file, merge, to);
+      } catch (IOException | RuntimeException | Error e) {
+        Files.deleteIfExists(file);
+        throw e;
+      }
+      group.clear();
+      spilled.add(new Run(file, merged, level));
+    }
+  }
+
+  /**
+   * Opens the given runs and returns their merge with the in-memory run, that is merged last.
+   */
+  private Merge merge(List<Run> spilled, Iterator<E> memoryRun, long total) throws IOException {
+    List<Iterator<E>> runs = new ArrayList<>();
+    List<Closeable> readers = new ArrayList<>();
+    List<Path> files = spilled.stream().map(Run::file).collect(Collectors.toList());
+    try {
+      for (Run run : spilled) {
+        DataInputStream reader = reader(run.file());
+        readers.add(reader);
+        runs.add(read(reader, run.size()));
+      }
+      runs.add(memoryRun);
+      return new Merge(runs, total, readers, files);
+
+    } catch (IOException | RuntimeException | Error e) {
+      close(readers, List.of());
+      throw e;
+    }
+  }
+
+  private Path createTempFile() throws IOException {
+    return Objects.isNull(directory)
+        ? Files.createTempFile("pagebuilder-run-", ".tmp")
+        : Files.createTempFile(directory, "pagebuilder-run-", ".tmp");
+  }
+
+  private List<E> sortedRun(List<E> entries, long to) {
+    int[] window = runSorter.sortedWindow(entries, 0, Math.min(to, entries.size()));
+    List<E> run = new ArrayList<>(window.length);
+    for (int index : window) {
+      run.add(entries.get(index));
+    }
+    return run;
+  }
+
+  private long write(Path file, Iterator<E> run, long limit) throws IOException {
+    long size = 0;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE))) {
+      for (; size < limit && run.hasNext(); size++) {
+        codec.write(run.next(), output);
+      }
+    }
+    return size;
+  }
+
+  private static DataInputStream reader(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    return new DataInputStream(
+        new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+  }
+
+  private Iterator<E> read(DataInputStream input, long size) {
+    return new Iterator<>() {
+
+      private long remaining = size;
+
+      @Override
+      public boolean hasNext() {
+        return remaining > 0;
+      }
+
+      @Override
+      public E next() {
+        remaining--;
+        try {
+          return codec.read(input);
+        } catch (IOException e) {
+          throw new UncheckedIOException("Reading spilled entries failed.", e);
+        }
+      }
+    };
+  }
+
+  private static void delete(List<Run> runs) {
+    close(List.of(), runs.stream().map(Run::file).collect(Collectors.toList()));
+  }
+
+  private static void close(List<Closeable> readers, List<Path> files) {
+    for (Closeable reader : readers) {
+      try {
+        reader.close();
+      } catch (IOException ignored) {
+        // the file is deleted anyway
+      }
+    }
+    for (Path file : files) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException ignored) {
+        // nothing to do
+      }
+    }
+  }
+
+  /**
+   * The k-way merge of the sorted runs. It returns the entries in sorted order; entries, that
+   * are equal, are returned in the order of the runs.
+   */
+  final class Merge implements Iterator<E>, AutoCloseable {
+
+    private final List<Iterator<E>> runs;
+
+    private final long total;
+
+    private final List<Closeable> readers;
+
+    private final List<Path> files;
+
+    private final PriorityQueue<Head<E>> heads;
+
+    private Merge(
+        List<Iterator<E>> runs,
+        long total,
+        List<Closeable> readers,
+        List<Path> files) {
+      this.runs = runs;
+      this.total = total;
+      this.readers = readers;
+      this.files = files;
+      this.heads = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+        int result = comparator.compare(a.entry, b.entry);
+        return result != 0 ? result : Integer.compare(a.run, b.run);
+      });
+      for (int i = 0; i < runs.size(); i++) {
+        Iterator<E> run = runs.get(i);
+        if (run.hasNext()) {
+          heads.add(new Head<>(run.next(), i));
+        }
+      }
+    }
+
+    /**
+     * Gets the number of all entries.
+     *
+     * @return the number of all entries
+     */
+    long getTotal() {
+      return total;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !heads.isEmpty();
+    }
+
+    @Override
+    public E next() {
+      Head<E> head = heads.remove();
+      Iterator<E> run = runs.get(head.run);
+      if (run.hasNext()) {
+        heads.add(new Head<>(run.next(), head.run));
+      }
+      return head.entry;
+    }
+
+    @Override
+    public void close() {
+      heads.clear();
+      ExternalSorter.close(readers, files);
+    }
+  }
+
+  /**
+   * The window of sorted entries and the number of all entries.
+   *
+   * @param entries the entries of the window
+   * @param total the number of all entries
+   * @param <E> the type of the entries
+   */
+  record Window<E>(List<E> entries, long total) {
+
+  }
+
+  private record Head<E>(E entry, int run) {
+
+  }
+
+  private record Run(Path file, long size, int level) {
+
+  }
+
+  /**
+   * The sorter of a run.
+   */
+  interface RunSorter {
+
+    /**
+     * Returns the indexes of the entries, that a stable sort would place at the positions
+     * {@code [from, to)}, in sorted order.
+     *
+     * @param entries the entries
+     * @param from the first position (inclusive)
+     * @param to the last position (exclusive)
+     * @return the indexes
+     */
+    int[] sortedWindow(List<?> entries, long from, long to);
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.bremersee.pagebuilder.PageExecutor.Mode;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+/**
+ * The indexed executor builds the pages and slices of a page query from a {@link PagedIndex}
+ * or a {@link PermutationIndex}, that has the order of the page, without sorting the entries
+ * again.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+final class IndexedExecutor<S, T> {
+
+  private final QueryContext<S, T> context;
+
+  /**
+   * Instantiates a new indexed executor.
+   *
+   * @param context the query context
+   */
+  IndexedExecutor(QueryContext<S, T> context) {
+    this.context = context;
+  }
+
+  /**
+   * Executes the page query against the given index without sorting, if the index has the
+   * order of the page: a {@link PagedIndex} must have the sort orders of the page or the page
+   * is not sorted, a {@link PermutationIndex} must have a permutation of the sort orders of the
+   * page. The source entries must be sorted with the default sort function and no collator.
+   *
+   * @param sourceEntries the source entries
+   * @param mode the mode
+   * @return the page or slice, {@code null} if the source entries are no index with the order
+   *     of the page
+   */
+  @SuppressWarnings("unchecked")
+  Slice<T> execute(Iterable<? extends S> sourceEntries, Mode mode) {
+    if (!Objects.isNull(context.keyset()) || !Objects.isNull(context.resultCache())) {
+      return null;
+    }
+    final boolean sortSource = SortTarget.SOURCE_ENTRIES.equals(context.sortTarget())
+        && Objects.isNull(context.sortFn())
+        && Objects.isNull(context.collator());
+    if (sourceEntries instanceof PagedIndex<?> index
+        && (!context.isSorted() || sortSource && context.sort().equals(index.getSort()))) {
+      return buildIndexed((PagedIndex<S>) index, mode);
+    }
+    if (sourceEntries instanceof PermutationIndex<?> index && sortSource) {
+      final PermutationIndex.Order order = index.order(context.sort());
+      if (!Objects.isNull(order)) {
+        return buildPermuted((PermutationIndex<S>) index, order, mode);
+      }
+    }
+    return null;
+  }
+
+  private Slice<T> buildIndexed(PagedIndex<S> index, Mode mode) {
+    final Pageable pageable = pageable();
+    if (!context.isSourceFiltered() && context.isConversionLazy()) {
+      final int size = pageable.getPageSize();
+      if (Mode.SLICE.equals(mode)) {
+        final long from = pageable.getOffset();
+        final List<S> entries = index.getRange(from, from + size + 1L);
+        final List<T> content = context.convert(
+            entries.subList(0, Math.min(entries.size(), size)));
+        return new SliceImpl<>(content, pageable, entries.size() > size);
+      }
+      final Page<S> page = index.getPage(pageable.getPageNumber(), size);
+      return new PageImpl<>(context.convert(page.getContent()), pageable, page.getTotalElements());
+    }
+    return buildOrdered(StreamSupport.stream(index.spliterator(), false), pageable, mode);
+  }
+
+  private Slice<T> buildPermuted(
+      PermutationIndex<S> index,
+      PermutationIndex.Order order,
+      Mode mode) {
+
+    final Pageable pageable = pageable();
+    final List<S> entries = index.getEntries();
+    if (!context.isSourceFiltered() && context.isConversionLazy()) {
+      final int size = pageable.getPageSize();
+      final long limit = size + (Mode.SLICE.equals(mode) ? 1L : 0L);
+      final PrimitiveIterator.OfInt indexes = order.indexes(pageable.getOffset());
+      final List<S> window = new ArrayList<>();
+      while (indexes.hasNext() && window.size() < limit) {
+        window.add(entries.get(indexes.nextInt()));
+      }
+      final List<T> content = context.convert(window.subList(0, Math.min(window.size(), size)));
+      return Mode.SLICE.equals(mode)
+          ? new SliceImpl<>(content, pageable, window.size() > size)
+          : new PageImpl<>(content, pageable, entries.size());
+    }
+    final Stream<S> sourceStream = StreamSupport
+        .intStream(Spliterators.spliterator(order.indexes(0L), entries.size(), 0), false)
+        .mapToObj(entries::get);
+    return buildOrdered(sourceStream, pageable, mode);
+  }
+
+  private Pageable pageable() {
+    return PageRequest.of(
+        requireNonNullElse(context.pageNumber(), 0),
+        requireNonNullElse(context.pageSize(), Integer.MAX_VALUE));
+  }
+
+  /**
+   * Builds the page or slice from source entries, that are already in the order of the page.
+   * The source entries are filtered while they are walked; a slice stops, when it is filled.
+   *
+   * @param sourceStream the ordered source entries
+   * @param pageable the pageable
+   * @param mode the mode
+   * @return the page or slice
+   */
+  private Slice<T> buildOrdered(Stream<S> sourceStream, Pageable pageable, Mode mode) {
+    final Stream<S> filtered = sourceStream.filter(context.sourceFilter());
+    final PageExecutor<S, T> executor = new PageExecutor<>(context);
+    return Mode.SLICE.equals(mode)
+        ? executor.buildUnsortedSlice(filtered, pageable)
+        : executor.buildUnsorted(filtered, pageable);
+  }
+}
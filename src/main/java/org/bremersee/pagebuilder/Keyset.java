@@ -0,0 +1,422 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.text.Collator;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+import org.bremersee.comparator.ValueComparator;
+import org.bremersee.comparator.model.SortOrder;
+import org.springframework.util.StringUtils;
+
+/**
+ * The keyset holds the values of the sort orders of the last entry, that a client has seen.
+ * An entry follows the keyset, if it is strictly greater under the sort orders, so that the
+ * next page is found with one pass over the entries (keyset or seek pagination) instead of
+ * ordering all entries before the offset.
+ *
+ * <p>The values can be written into an opaque continuation token. Supported are strings,
+ * numbers, booleans, characters, {@link UUID}, {@link Date}, {@link Instant},
+ * {@link LocalDate}, {@link LocalDateTime} and {@link OffsetDateTime}.
+ *
+ * @author Christian Bremer
+ */
+final class Keyset {
+
+  private static final int VERSION = 1;
+
+  private static final int NULL = 0;
+
+  private static final int STRING = 1;
+
+  private static final int INTEGER = 2;
+
+  private static final int LONG = 3;
+
+  private static final int SHORT = 4;
+
+  private static final int BYTE = 5;
+
+  private static final int DOUBLE = 6;
+
+  private static final int FLOAT = 7;
+
+  private static final int BOOLEAN = 8;
+
+  private static final int CHARACTER = 9;
+
+  private static final int BIG_DECIMAL = 10;
+
+  private static final int BIG_INTEGER = 11;
+
+  private static final int INSTANT = 12;
+
+  private static final int LOCAL_DATE = 13;
+
+  private static final int LOCAL_DATE_TIME = 14;
+
+  private static final int OFFSET_DATE_TIME = 15;
+
+  private static final int DATE = 16;
+
+  private static final int UUID_VALUE = 17;
+
+  private final List<Object> values;
+
+  private final ValuePath[] paths;
+
+  private final Comparator<Object>[] comparators;
+
+  private final boolean[] asc;
+
+  private final ThreadLocal<Collator>[] collators;
+
+  /**
+   * Instantiates a new keyset.
+   *
+   * @param sort the sort orders
+   * @param values the values of the sort orders of the last entry
+   * @param collator the collator of strings (can be {@code null})
+   */
+  @SuppressWarnings("unchecked")
+  Keyset(List<SortOrder> sort, List<?> values, Collator collator) {
+    if (sort.size() != values.size()) {
+      throw new IllegalArgumentException(String.format(
+          "The keyset must have %d values, but it has %d.", sort.size(), values.size()));
+    }
+    this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    this.paths = new ValuePath[sort.size()];
+    this.comparators = new Comparator[sort.size()];
+    this.asc = new boolean[sort.size()];
+    this.collators = new ThreadLocal[sort.size()];
+    for (int i = 0; i < paths.length; i++) {
+      SortOrder sortOrder = sort.get(i);
+      paths[i] = pathOf(sortOrder);
+      comparators[i] = new ValueComparator(new SortOrder(
+          null,
+          sortOrder.isAsc(),
+          sortOrder.isIgnoreCase(),
+          sortOrder.isNullIsFirst()));
+      asc[i] = sortOrder.isAsc();
+      if (!Objects.isNull(collator)) {
+        collators[i] = ThreadLocal.withInitial(() -> {
+          Collator clone = (Collator) collator.clone();
+          if (sortOrder.isIgnoreCase() && clone.getStrength() > Collator.SECONDARY) {
+            clone.setStrength(Collator.SECONDARY);
+          }
+          return clone;
+        });
+      }
+    }
+  }
+
+  /**
+   * Gets the values of the sort orders of the last entry.
+   *
+   * @return the values
+   */
+  List<Object> getValues() {
+    return values;
+  }
+
+  /**
+   * Determines whether the given entry follows this keyset, i.e. it is strictly greater under
+   * the sort orders.
+   *
+   * @param entry the entry
+   * @return {@code true} if the entry follows this keyset, otherwise {@code false}
+   */
+  boolean isFollowedBy(Object entry) {
+    for (int i = 0; i < paths.length; i++) {
+      int result = compare(i, values.get(i), valueOf(paths[i], entry));
+      if (result != 0) {
+        return result < 0;
+      }
+    }
+    return false;
+  }
+
+  private int compare(int index, Object keyValue, Object value) {
+    if (!Objects.isNull(collators[index])
+        && keyValue instanceof String && value instanceof String) {
+      int result = collators[index].get().compare(keyValue, value);
+      return asc[index] ? result : -result;
+    }
+    if (keyValue instanceof Number && value instanceof Number
+        && keyValue.getClass() != value.getClass()) {
+      int result = compareNumbers((Number) keyValue, (Number) value);
+      return asc[index] ? result : -result;
+    }
+    return comparators[index].compare(keyValue, value);
+  }
+
+  private static int compareNumbers(Number a, Number b) {
+    if (a instanceof Double || a instanceof Float || b instanceof Double || b instanceof Float) {
+      return Double.compare(a.doubleValue(), b.doubleValue());
+    }
+    return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+  }
+
+  /**
+   * Reads the values of the sort orders of the given entry.
+   *
+   * @param sort the sort orders
+   * @param entry the entry
+   * @return the values
+   */
+  static List<Object> valuesOf(List<SortOrder> sort, Object entry) {
+    List<Object> values = new ArrayList<>(sort.size());
+    for (SortOrder sortOrder : sort) {
+      values.add(valueOf(pathOf(sortOrder), entry));
+    }
+    return values;
+  }
+
+  private static ValuePath pathOf(SortOrder sortOrder) {
+    return StringUtils.hasText(sortOrder.getField()) ? new ValuePath(sortOrder.getField()) : null;
+  }
+
+  private static Object valueOf(ValuePath path, Object entry) {
+    if (Objects.isNull(path)) {
+      return entry;
+    }
+    Object value = path.valueOf(entry);
+    return value == ValuePath.NOT_FOUND ? null : value;
+  }
+
+  /**
+   * Writes the values into a continuation token. The token can only be read with the same
+   * sort orders.
+   *
+   * @param sort the sort orders
+   * @param values the values of the sort orders of the last entry
+   * @return the continuation token
+   * @throws IllegalArgumentException if a value is not supported
+   */
+  static String encode(List<SortOrder> sort, List<?> values) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeInt(sort.hashCode());
+      out.writeInt(values.size());
+      for (Object value : values) {
+        write(out, value);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Writing continuation token failed.", e);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+  }
+
+  /**
+   * Reads the values of a continuation token.
+   *
+   * @param sort the sort orders
+   * @param token the continuation token
+   * @return the values of the sort orders of the last entry
+   * @throws IllegalArgumentException if the token is invalid or was written with other sort
+   *     orders
+   */
+  static List<Object> decode(List<SortOrder> sort, String token) {
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(token);
+    } catch (IllegalArgumentException e) {
+      throw invalidToken(e);
+    }
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+      if (in.readUnsignedByte() != VERSION) {
+        throw invalidToken(null);
+      }
+      if (in.readInt() != sort.hashCode()) {
+        throw new IllegalArgumentException(
+            "The continuation token does not match the sort orders.");
+      }
+      int size = in.readInt();
+      if (size != sort.size()) {
+        throw invalidToken(null);
+      }
+      List<Object> values = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        values.add(read(in));
+      }
+      if (in.read() != -1) {
+        throw invalidToken(null);
+      }
+      return values;
+    } catch (IOException | DateTimeException e) {
+      throw invalidToken(e);
+    }
+  }
+
+  private static IllegalArgumentException invalidToken(Throwable cause) {
+    return new IllegalArgumentException("The continuation token is invalid.", cause);
+  }
+
+  private static void write(DataOutputStream out, Object value) throws IOException {
+    if (Objects.isNull(value)) {
+      out.writeByte(NULL);
+    } else if (value instanceof String) {
+      out.writeByte(STRING);
+      writeString(out, (String) value);
+    } else if (value instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) value);
+    } else if (value instanceof Short) {
+      out.writeByte(SHORT);
+      out.writeShort((Short) value);
+    } else if (value instanceof Byte) {
+      out.writeByte(BYTE);
+      out.writeByte((Byte) value);
+    } else if (value instanceof Double) {
+      out.writeByte(DOUBLE);
+      out.writeDouble((Double) value);
+    } else if (value instanceof Float) {
+      out.writeByte(FLOAT);
+      out.writeFloat((Float) value);
+    } else if (value instanceof Boolean) {
+      out.writeByte(BOOLEAN);
+      out.writeBoolean((Boolean) value);
+    } else if (value instanceof Character) {
+      out.writeByte(CHARACTER);
+      out.writeChar((Character) value);
+    } else if (value instanceof BigDecimal) {
+      out.writeByte(BIG_DECIMAL);
+      writeString(out, value.toString());
+    } else if (value instanceof BigInteger) {
+      out.writeByte(BIG_INTEGER);
+      writeString(out, value.toString());
+    } else if (value instanceof Instant) {
+      out.writeByte(INSTANT);
+      writeString(out, value.toString());
+    } else if (value instanceof LocalDate) {
+      out.writeByte(LOCAL_DATE);
+      writeString(out, value.toString());
+    } else if (value instanceof LocalDateTime) {
+      out.writeByte(LOCAL_DATE_TIME);
+      writeString(out, value.toString());
+    } else if (value instanceof OffsetDateTime) {
+      out.writeByte(OFFSET_DATE_TIME);
+      writeString(out, value.toString());
+    } else if (value instanceof Date) {
+      out.writeByte(DATE);
+      out.writeLong(((Date) value).getTime());
+    } else if (value instanceof UUID) {
+      out.writeByte(UUID_VALUE);
+      writeString(out, value.toString());
+    } else {
+      throw new IllegalArgumentException(String.format(
+          "A value of type %s cannot be written into a continuation token.",
+          value.getClass().getName()));
+    }
+  }
+
+  private static Object read(DataInputStream in) throws IOException {
+    int type = in.readUnsignedByte();
+    switch (type) {
+      case NULL:
+        return null;
+      case STRING:
+        return readString(in);
+      case INTEGER:
+        return in.readInt();
+      case LONG:
+        return in.readLong();
+      case SHORT:
+        return in.readShort();
+      case BYTE:
+        return in.readByte();
+      case DOUBLE:
+        return in.readDouble();
+      case FLOAT:
+        return in.readFloat();
+      case BOOLEAN:
+        return in.readBoolean();
+      case CHARACTER:
+        return in.readChar();
+      case BIG_DECIMAL:
+        return parse(readString(in), BigDecimal::new);
+      case BIG_INTEGER:
+        return parse(readString(in), BigInteger::new);
+      case INSTANT:
+        return Instant.parse(readString(in));
+      case LOCAL_DATE:
+        return LocalDate.parse(readString(in));
+      case LOCAL_DATE_TIME:
+        return LocalDateTime.parse(readString(in));
+      case OFFSET_DATE_TIME:
+        return OffsetDateTime.parse(readString(in));
+      case DATE:
+        return new Date(in.readLong());
+      case UUID_VALUE:
+        return parse(readString(in), UUID::fromString);
+      default:
+        throw invalidToken(null);
+    }
+  }
+
+  /**
+   * Parses a value, whose parser throws an illegal argument exception (e.g. a number format
+   * exception), if the value was tampered with.
+   */
+  private static Object parse(String value, Function<String, Object> parser) {
+    try {
+      return parser.apply(value);
+    } catch (IllegalArgumentException e) {
+      throw invalidToken(e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > in.available()) {
+      throw invalidToken(null);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.bremersee.pagebuilder.PageExecutor.Selection;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * The keyset executor builds the keyset pages of a page query: the first entries, that follow
+ * the keyset (or the first entries at all, if there is no keyset). The result cache is not
+ * used.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+final class KeysetExecutor<S, T> {
+
+  private final QueryContext<S, T> context;
+
+  /**
+   * Instantiates a new keyset executor.
+   *
+   * @param context the query context
+   */
+  KeysetExecutor(QueryContext<S, T> context) {
+    this.context = context;
+  }
+
+  /**
+   * Executes the page query as keyset page against the given source entries.
+   *
+   * @param sourceEntries the source entries
+   * @return the keyset page
+   * @throws IllegalStateException if the query is not sorted by the default sort function
+   */
+  KeysetPage<T> execute(Stream<? extends S> sourceEntries) {
+    if (!context.isSorted() || !Objects.isNull(context.sortFn())) {
+      throw new IllegalStateException(
+          "Keyset pagination needs sort orders and the default sort function.");
+    }
+    return context.inPool(() -> build(sourceEntries));
+  }
+
+  private KeysetPage<T> build(Stream<? extends S> sourceEntries) {
+    final Pageable pageable = context.pageable(null);
+    Stream<S> sourceStream = context.sourceStream(sourceEntries);
+    if (context.isSortSource() && !Objects.isNull(context.keyset())) {
+      sourceStream = sourceStream.filter(context.keyset()::isFollowedBy);
+    }
+    final Selection<T> selection = new PageExecutor<>(context).select(
+        sourceStream,
+        targetFilter(),
+        pageable,
+        pageable.getOffset() + pageable.getPageSize());
+    return keysetPage(
+        selection.content(),
+        pageable,
+        selection.total(),
+        selection.sortEntries(),
+        selection.window());
+  }
+
+  /**
+   * Gets the source filter, that also rejects the source entries before the keyset, if the
+   * source entries are sorted.
+   *
+   * @return the source filter
+   */
+  Predicate<S> sourceFilter() {
+    final Keyset keyset = context.keyset();
+    return context.isSortSource() && !Objects.isNull(keyset)
+        ? context.sourceFilter().and(keyset::isFollowedBy)
+        : context.sourceFilter();
+  }
+
+  /**
+   * Gets the target filter, that also rejects the target entries before the keyset, if the
+   * target entries are sorted.
+   *
+   * @return the target filter (can be {@code null})
+   */
+  Predicate<T> targetFilter() {
+    final Keyset keyset = context.keyset();
+    final Predicate<T> targetFilter = context.targetFilter();
+    if (context.isSortSource() || Objects.isNull(keyset)) {
+      return targetFilter;
+    }
+    return Objects.isNull(targetFilter)
+        ? keyset::isFollowedBy
+        : targetFilter.and(keyset::isFollowedBy);
+  }
+
+  /**
+   * Creates the keyset page with the continuation token of the last entry of the window.
+   *
+   * @param content the entries of the page
+   * @param pageable the pageable
+   * @param total the number of all entries after the keyset
+   * @param sortEntries the sorted entries
+   * @param window the indexes of the sorted entries of the page
+   * @return the keyset page
+   */
+  KeysetPage<T> keysetPage(
+      List<T> content,
+      Pageable pageable,
+      long total,
+      List<?> sortEntries,
+      int[] window) {
+
+    String continuationToken = null;
+    if (total > content.size() && window.length > 0) {
+      Object last = sortEntries.get(window[window.length - 1]);
+      continuationToken = Keyset.encode(context.sort(), Keyset.valuesOf(context.sort(), last));
+    }
+    return new KeysetPage<>(content, pageable, total, continuationToken);
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.List;
+import java.util.Objects;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * The keyset page contains the entries, that follow the keyset of the request, and the
+ * continuation token of the next page. The page number is always {@code 0} and the total
+ * elements are the number of entries, that follow the keyset of the request.
+ *
+ * @param <T> the type of the content
+ * @author Christian Bremer
+ * @see PageBuilder#buildKeysetPage()
+ */
+public class KeysetPage<T> extends PageImpl<T> {
+
+  private final String continuationToken;
+
+  /**
+   * Instantiates a new keyset page.
+   *
+   * @param content the content
+   * @param pageable the pageable
+   * @param total the number of entries, that follow the keyset of the request
+   * @param continuationToken the continuation token of the next page (can be {@code null})
+   */
+  public KeysetPage(
+      List<T> content,
+      Pageable pageable,
+      long total,
+      String continuationToken) {
+    super(content, pageable, total);
+    this.continuationToken = continuationToken;
+  }
+
+  /**
+   * Gets the continuation token of the next page.
+   *
+   * @return the continuation token, {@code null} if there is no next page
+   */
+  public String getContinuationToken() {
+    return continuationToken;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof KeysetPage<?> that) || !super.equals(obj)) {
+      return false;
+    }
+    return Objects.equals(continuationToken, that.continuationToken);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * super.hashCode() + Objects.hashCode(continuationToken);
+  }
+}
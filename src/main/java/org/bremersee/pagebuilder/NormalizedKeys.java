@@ -0,0 +1,408 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.text.RuleBasedCollator;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import org.bremersee.comparator.model.SortOrder;
+import org.springframework.util.StringUtils;
+
+/**
+ * The normalized keys encode the values of the sort orders of each entry into one byte array,
+ * so that the unsigned lexicographical order of the byte arrays is the order of the entries.
+ * The entries are then sorted with a stable MSD radix sort instead of comparisons. Beyond a
+ * maximum depth (e.g. long common prefixes or many equal keys) the remaining bytes are compared
+ * by a stable merge sort, so that the recursion depth is bounded.
+ *
+ * <p>Each sort order is encoded as a marker byte, that places {@code null} first or last,
+ * followed by the value. Integral numbers, characters and booleans are encoded with a flipped
+ * sign bit, floating point numbers like {@link Double#compare(double, double)}, enums by their
+ * ordinal and strings (or their {@link CollationKey}, if a {@link RuleBasedCollator} is given)
+ * as self-delimiting sequence. The bytes of a descending value are inverted. Other value types
+ * cannot be encoded.
+ *
+ * @author Christian Bremer
+ */
+final class NormalizedKeys {
+
+  private static final int INSERTION_SORT_THRESHOLD = 32;
+
+  private static final int RADIX = 256;
+
+  private static final int MAX_RADIX_DEPTH = 32;
+
+  private static final int NULL_FIRST = 0x00;
+
+  private static final int NOT_NULL = 0x01;
+
+  private static final int NULL_LAST = 0x02;
+
+  private static final int END_OF_SEQUENCE = 0x00;
+
+  private static final int SEQUENCE_ELEMENT = 0x01;
+
+  private final byte[][] keys;
+
+  private NormalizedKeys(byte[][] keys) {
+    this.keys = keys;
+  }
+
+  /**
+   * Encodes the normalized keys of the given entries.
+   *
+   * @param entries the entries
+   * @param sort the sort orders
+   * @param collator the collator of strings (can be {@code null})
+   * @param parallel specifies whether the keys are encoded in parallel
+   * @return the normalized keys or {@code null}, if a field path of the sort orders cannot be
+   *     resolved for an entry or if a value cannot be encoded
+   */
+  static NormalizedKeys encode(
+      List<?> entries,
+      List<SortOrder> sort,
+      Collator collator,
+      boolean parallel) {
+
+    if (!Objects.isNull(collator) && !(collator instanceof RuleBasedCollator)) {
+      return null;
+    }
+    Column[] columns = new Column[sort.size()];
+    for (int c = 0; c < columns.length; c++) {
+      columns[c] = column(entries, sort.get(c), collator, parallel);
+      if (Objects.isNull(columns[c])) {
+        return null;
+      }
+    }
+    byte[][] keys = new byte[entries.size()][];
+    rows(entries.size(), parallel).forEach(row -> {
+      KeyWriter writer = new KeyWriter();
+      for (Column column : columns) {
+        column.write(row, writer);
+      }
+      keys[row] = writer.toByteArray();
+    });
+    return new NormalizedKeys(keys);
+  }
+
+  /**
+   * Sorts the entries and returns the indexes of the requested window.
+   *
+   * @param from the start of the window (inclusive)
+   * @param to the end of the window (exclusive)
+   * @return the indexes of the entries of the window in sorted order
+   */
+  int[] sortedWindow(long from, long to) {
+    int size = keys.length;
+    int start = (int) Math.min(Math.max(from, 0L), size);
+    int end = (int) Math.min(Math.max(to, start), size);
+    if (start == end) {
+      return new int[0];
+    }
+    return Arrays.copyOfRange(sort(), start, end);
+  }
+
+  /**
+   * Sorts the entries.
+   *
+   * @return the indexes of all entries in sorted order
+   */
+  int[] sort() {
+    int[] indexes = PageSorter.identity(keys.length);
+    if (indexes.length > 1) {
+      int[][] counts = new int[MAX_RADIX_DEPTH][];
+      radixSort(indexes, new int[indexes.length], counts, 0, indexes.length, 0);
+    }
+    return indexes;
+  }
+
+  private void radixSort(int[] indexes, int[] aux, int[][] counts, int lo, int hi, int depth) {
+    if (hi - lo < INSERTION_SORT_THRESHOLD) {
+      insertionSort(indexes, lo, hi, depth);
+      return;
+    }
+    if (depth >= MAX_RADIX_DEPTH) {
+      mergeSort(indexes, aux, lo, hi, depth);
+      return;
+    }
+    // The count array of a depth is reused by all buckets of that depth.
+    if (Objects.isNull(counts[depth])) {
+      counts[depth] = new int[RADIX + 2];
+    }
+    int[] count = counts[depth];
+    Arrays.fill(count, 0);
+    // A key, that ends here, is counted as byte -1.
+    for (int i = lo; i < hi; i++) {
+      count[byteAt(keys[indexes[i]], depth) + 2]++;
+    }
+    for (int r = 0; r <= RADIX; r++) {
+      count[r + 1] += count[r];
+    }
+    for (int i = lo; i < hi; i++) {
+      aux[count[byteAt(keys[indexes[i]], depth) + 1]++] = indexes[i];
+    }
+    System.arraycopy(aux, 0, indexes, lo, hi - lo);
+    // Now the bucket of byte r ends at count[r + 1]. The keys, that end here, are equal.
+    for (int r = 0; r < RADIX; r++) {
+      int bucketLo = lo + count[r];
+      int bucketHi = lo + count[r + 1];
+      if (bucketHi - bucketLo > 1) {
+        radixSort(indexes, aux, counts, bucketLo, bucketHi, depth + 1);
+      }
+    }
+  }
+
+  private void mergeSort(int[] indexes, int[] aux, int lo, int hi, int depth) {
+    if (hi - lo < INSERTION_SORT_THRESHOLD) {
+      insertionSort(indexes, lo, hi, depth);
+      return;
+    }
+    int mid = (lo + hi) >>> 1;
+    mergeSort(indexes, aux, lo, mid, depth);
+    mergeSort(indexes, aux, mid, hi, depth);
+    if (compare(keys[indexes[mid - 1]], keys[indexes[mid]], depth) <= 0) {
+      return;
+    }
+    System.arraycopy(indexes, lo, aux, lo, hi - lo);
+    int i = lo;
+    int j = mid;
+    for (int k = lo; k < hi; k++) {
+      if (j >= hi || (i < mid && compare(keys[aux[i]], keys[aux[j]], depth) <= 0)) {
+        indexes[k] = aux[i++];
+      } else {
+        indexes[k] = aux[j++];
+      }
+    }
+  }
+
+  private void insertionSort(int[] indexes, int lo, int hi, int depth) {
+    for (int i = lo + 1; i < hi; i++) {
+      int index = indexes[i];
+      byte[] key = keys[index];
+      int j = i - 1;
+      while (j >= lo && compare(keys[indexes[j]], key, depth) > 0) {
+        indexes[j + 1] = indexes[j];
+        j--;
+      }
+      indexes[j + 1] = index;
+    }
+  }
+
+  private static int compare(byte[] a, byte[] b, int depth) {
+    return Arrays.compareUnsigned(a, Math.min(depth, a.length), a.length,
+        b, Math.min(depth, b.length), b.length);
+  }
+
+  private static int byteAt(byte[] key, int depth) {
+    return depth < key.length ? key[depth] & 0xff : -1;
+  }
+
+  private static IntStream rows(int size, boolean parallel) {
+    IntStream rows = IntStream.range(0, size);
+    return parallel ? rows.parallel() : rows;
+  }
+
+  private static Column column(
+      List<?> entries,
+      SortOrder sortOrder,
+      Collator collator,
+      boolean parallel) {
+
+    ValuePath path = StringUtils.hasText(sortOrder.getField())
+        ? new ValuePath(sortOrder.getField())
+        : null;
+    boolean asc = sortOrder.isAsc();
+    int nullMarker = sortOrder.isNullIsFirst() ? NULL_FIRST : NULL_LAST;
+    Object[] values = new Object[entries.size()];
+    boolean resolved = rows(entries.size(), parallel).allMatch(row -> {
+      Object entry = entries.get(row);
+      values[row] = Objects.isNull(path) ? entry : path.valueOf(entry);
+      return values[row] != ValuePath.NOT_FOUND;
+    });
+    if (!resolved) {
+      return null;
+    }
+    Class<?> kind = null;
+    for (Object value : values) {
+      if (!Objects.isNull(value)) {
+        Class<?> valueKind = kindOf(value);
+        if (Objects.isNull(valueKind) || (!Objects.isNull(kind) && kind != valueKind)) {
+          return null;
+        }
+        kind = valueKind;
+      }
+    }
+    ValueWriter valueWriter = valueWriter(kind, sortOrder.isIgnoreCase(), collator);
+    return (row, writer) -> {
+      Object value = values[row];
+      if (Objects.isNull(value)) {
+        writer.write(nullMarker);
+      } else {
+        writer.write(NOT_NULL);
+        int start = writer.size();
+        valueWriter.write(value, writer);
+        if (!asc) {
+          writer.invert(start);
+        }
+      }
+    };
+  }
+
+  private static Class<?> kindOf(Object value) {
+    if (value instanceof Enum) {
+      return ((Enum<?>) value).getDeclaringClass();
+    }
+    Class<?> type = value.getClass();
+    if (type == String.class || type == Boolean.class || type == Character.class
+        || type == Long.class || type == Integer.class || type == Short.class
+        || type == Byte.class || type == Double.class || type == Float.class) {
+      return type;
+    }
+    return null;
+  }
+
+  private static ValueWriter valueWriter(Class<?> kind, boolean ignoreCase, Collator collator) {
+    if (Objects.isNull(kind)) {
+      return (value, writer) -> {
+      };
+    }
+    if (kind.isEnum()) {
+      return (value, writer) -> writer.writeLong(((Enum<?>) value).ordinal());
+    }
+    if (kind == Boolean.class) {
+      return (value, writer) -> writer.write((Boolean) value ? 1 : 0);
+    }
+    if (kind == Character.class) {
+      return (value, writer) -> writer.writeLong((Character) value);
+    }
+    if (kind == Double.class || kind == Float.class) {
+      return (value, writer) -> writer.writeDouble(((Number) value).doubleValue());
+    }
+    if (kind != String.class) {
+      return (value, writer) -> writer.writeLong(((Number) value).longValue());
+    }
+    if (Objects.isNull(collator)) {
+      return ignoreCase
+          ? (value, writer) -> writer.writeFoldedChars((String) value)
+          : (value, writer) -> writer.writeChars((String) value);
+    }
+    ThreadLocal<Collator> collators = ThreadLocal.withInitial(() -> {
+      Collator clone = (Collator) collator.clone();
+      if (ignoreCase && clone.getStrength() > Collator.SECONDARY) {
+        clone.setStrength(Collator.SECONDARY);
+      }
+      return clone;
+    });
+    return (value, writer) -> writer
+        .writeBytes(collators.get().getCollationKey((String) value).toByteArray());
+  }
+
+  @FunctionalInterface
+  private interface Column {
+
+    void write(int row, KeyWriter writer);
+  }
+
+  @FunctionalInterface
+  private interface ValueWriter {
+
+    void write(Object value, KeyWriter writer);
+  }
+
+  /**
+   * A growing byte buffer of one key.
+   */
+  private static final class KeyWriter {
+
+    private byte[] buffer = new byte[32];
+
+    private int size;
+
+    int size() {
+      return size;
+    }
+
+    void write(int b) {
+      if (size == buffer.length) {
+        buffer = Arrays.copyOf(buffer, size << 1);
+      }
+      buffer[size++] = (byte) b;
+    }
+
+    void writeLong(long value) {
+      long bits = value ^ Long.MIN_VALUE;
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        write((int) (bits >>> shift));
+      }
+    }
+
+    void writeDouble(double value) {
+      long bits = Double.doubleToLongBits(value);
+      writeLong(bits < 0 ? ~bits ^ Long.MIN_VALUE : bits);
+    }
+
+    void writeChars(String value) {
+      for (int i = 0; i < value.length(); i++) {
+        writeChar(value.charAt(i));
+      }
+      write(END_OF_SEQUENCE);
+    }
+
+    void writeFoldedChars(String value) {
+      for (int i = 0; i < value.length(); ) {
+        int codePoint = value.codePointAt(i);
+        i += Character.charCount(codePoint);
+        int folded = Character.toLowerCase(Character.toUpperCase(codePoint));
+        if (Character.isBmpCodePoint(folded)) {
+          writeChar((char) folded);
+        } else {
+          writeChar(Character.highSurrogate(folded));
+          writeChar(Character.lowSurrogate(folded));
+        }
+      }
+      write(END_OF_SEQUENCE);
+    }
+
+    void writeBytes(byte[] value) {
+      for (byte b : value) {
+        write(SEQUENCE_ELEMENT);
+        write(b);
+      }
+      write(END_OF_SEQUENCE);
+    }
+
+    private void writeChar(char c) {
+      write(SEQUENCE_ELEMENT);
+      write(c >>> 8);
+      write(c);
+    }
+
+    void invert(int start) {
+      for (int i = start; i < size; i++) {
+        buffer[i] = (byte) ~buffer[i];
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, size);
+    }
+  }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * The order statistic tree is a treap, whose nodes know the size of their subtree. The entries
+ * are ordered by the comparator and then by their sequence, so that equal entries keep the
+ * order of their sequences. An entry is inserted or removed in {@code O(log n)} and the entries
+ * at the positions {@code [from, to)} are retrieved in {@code O(log n + (to - from))}.
+ *
+ * <p>A node is removed by splitting it off the tree with its entry and sequence. If the entry
+ * was changed in place in a way, that changes its order, the node is searched in
+ * {@code O(n)}. The tree is not thread safe.
+ *
+ * @param <E> the type of the entries
+ * @author Christian Bremer
+ */
+final class OrderStatisticTree<E> {
+
+  private final Comparator<? super E> comparator;
+
+  private final SplittableRandom random = new SplittableRandom();
+
+  private Node<E> root;
+
+  /**
+   * Instantiates a new order statistic tree.
+   *
+   * @param comparator the comparator of the entries ({@code null} orders the entries only by
+   *     their sequence)
+   */
+  OrderStatisticTree(Comparator<? super E> comparator) {
+    this.comparator = Objects.isNull(comparator) ? (a, b) -> 0 : comparator;
+  }
+
+  /**
+   * Inserts the given entry.
+   *
+   * @param entry the entry
+   * @param sequence the sequence, that orders equal entries
+   * @return the node of the entry
+   */
+  Node<E> insert(E entry, long sequence) {
+    Node<E> node = new Node<>(entry, sequence, random.nextInt());
+    Split<E> split = split(root, node);
+    root = merge(merge(split.left(), node), split.right());
+    return node;
+  }
+
+  /**
+   * Removes the given node.
+   *
+   * @param node the node
+   * @return {@code true} if the node was removed, {@code false} if it is not in the tree
+   */
+  boolean remove(Node<E> node) {
+    Split<E> left = split(root, node);
+    Split<E> right = splitAt(left.right(), 1);
+    if (right.left() == node) {
+      root = merge(left.left(), right.right());
+      return true;
+    }
+    root = merge(merge(left.left(), right.left()), right.right());
+    int position = position(root, node, 0);
+    if (position < 0) {
+      return false;
+    }
+    Split<E> before = splitAt(root, position);
+    Split<E> after = splitAt(before.right(), 1);
+    root = merge(before.left(), after.right());
+    return true;
+  }
+
+  /**
+   * Removes all entries.
+   */
+  void clear() {
+    root = null;
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the size
+   */
+  int size() {
+    return size(root);
+  }
+
+  /**
+   * Gets the entries at the positions {@code [from, to)}.
+   *
+   * @param from the first position (inclusive)
+   * @param to the last position (exclusive)
+   * @return the entries
+   */
+  List<E> range(long from, long to) {
+    int start = (int) Math.min(Math.max(from, 0L), size(root));
+    int end = (int) Math.min(Math.max(to, start), size(root));
+    List<E> entries = new ArrayList<>(end - start);
+    collect(root, start, end, entries);
+    return entries;
+  }
+
+  /**
+   * Collects the entries of the subtree at the positions {@code [from, to)} relative to the
+   * subtree in order.
+   */
+  private static <E> void collect(Node<E> node, int from, int to, List<E> entries) {
+    if (Objects.isNull(node) || from >= to) {
+      return;
+    }
+    int leftSize = size(node.left);
+    if (from < leftSize) {
+      collect(node.left, from, Math.min(to, leftSize), entries);
+    }
+    if (from <= leftSize && leftSize < to) {
+      entries.add(node.entry);
+    }
+    if (to > leftSize + 1) {
+      collect(node.right, Math.max(from - leftSize - 1, 0), to - leftSize - 1, entries);
+    }
+  }
+
+  /**
+   * Searches the position of the given node in the subtree.
+   *
+   * @param subtree the root of the subtree
+   * @param node the node
+   * @param offset the position of the first node of the subtree
+   * @return the position or {@code -1}, if the node is not in the subtree
+   */
+  private static int position(Node<?> subtree, Node<?> node, int offset) {
+    if (Objects.isNull(subtree)) {
+      return -1;
+    }
+    int position = position(subtree.left, node, offset);
+    if (position >= 0) {
+      return position;
+    }
+    int leftSize = size(subtree.left);
+    if (subtree == node) {
+      return offset + leftSize;
+    }
+    return position(subtree.right, node, offset + leftSize + 1);
+  }
+
+  private int compare(Node<E> a, Node<E> b) {
+    int result = comparator.compare(a.entry, b.entry);
+    return result != 0 ? result : Long.compare(a.sequence, b.sequence);
+  }
+
+  /**
+   * Splits the subtree into the nodes, that are less than the given node, and the others.
+   */
+  private Split<E> split(Node<E> node, Node<E> key) {
+    if (Objects.isNull(node)) {
+      return new Split<>(null, null);
+    }
+    if (compare(node, key) < 0) {
+      Split<E> split = split(node.right, key);
+      node.right = split.left();
+      return new Split<>(node.update(), split.right());
+    }
+    Split<E> split = split(node.left, key);
+    node.left = split.right();
+    return new Split<>(split.left(), node.update());
+  }
+
+  /**
+   * Splits the subtree into the first {@code count} nodes and the others.
+   */
+  private static <E> Split<E> splitAt(Node<E> node, int count) {
+    if (Objects.isNull(node)) {
+      return new Split<>(null, null);
+    }
+    int leftSize = size(node.left);
+    if (count <= leftSize) {
+      Split<E> split = splitAt(node.left, count);
+      node.left = split.right();
+      return new Split<>(split.left(), node.update());
+    }
+    Split<E> split = splitAt(node.right, count - leftSize - 1);
+    node.right = split.left();
+    return new Split<>(node.update(), split.right());
+  }
+
+  /**
+   * Merges two subtrees, all nodes of the left one are less than the nodes of the right one.
+   */
+  private static <E> Node<E> merge(Node<E> left, Node<E> right) {
+    if (Objects.isNull(left)) {
+      return right;
+    }
+    if (Objects.isNull(right)) {
+      return left;
+    }
+    if (left.priority > right.priority) {
+      left.right = merge(left.right, right);
+      return left.update();
+    }
+    right.left = merge(left, right.left);
+    return right.update();
+  }
+
+  private static int size(Node<?> node) {
+    return Objects.isNull(node) ? 0 : node.size;
+  }
+
+  private record Split<E>(Node<E> left, Node<E> right) {
+
+  }
+
+  /**
+   * A node of the tree.
+   *
+   * @param <E> the type of the entry
+   */
+  static final class Node<E> {
+
+    private final E entry;
+
+    private final long sequence;
+
+    private final int priority;
+
+    private int size = 1;
+
+    private Node<E> left;
+
+    private Node<E> right;
+
+    private Node(E entry, long sequence, int priority) {
+      this.entry = entry;
+      this.sequence = sequence;
+      this.priority = priority;
+    }
+
+    /**
+     * Gets the entry.
+     *
+     * @return the entry
+     */
+    E entry() {
+      return entry;
+    }
+
+    /**
+     * Gets the sequence.
+     *
+     * @return the sequence
+     */
+    long sequence() {
+      return sequence;
+    }
+
+    private Node<E> update() {
+      size = 1 + OrderStatisticTree.size(left) + OrderStatisticTree.size(right);
+      return this;
+    }
+  }
+}
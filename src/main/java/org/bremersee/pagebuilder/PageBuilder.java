@@ -18,6 +18,8 @@ package org.bremersee.pagebuilder;
 
 import static java.util.Objects.requireNonNullElse;
 
+import java.nio.file.Path;
+import java.text.Collator;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -25,21 +27,22 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import org.bremersee.comparator.ComparatorBuilder;
-import org.bremersee.comparator.ValueComparator;
 import org.bremersee.comparator.model.SortOrder;
 import org.bremersee.comparator.spring.mapper.SortMapper;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * The page builder.
@@ -52,6 +55,8 @@ public class PageBuilder<S, T> {
 
   private Stream<? extends S> sourceEntries;
 
+  private Iterable<? extends S> sourceIndex;
+
   private Predicate<S> sourceFilter;
 
   private Function<SortOrder, Comparator<?>> sourceSortFn;
@@ -70,18 +75,53 @@ public class PageBuilder<S, T> {
 
   private Function<SortOrder, Comparator<?>> targetSortFn;
 
+  private ComparatorCache comparatorCache;
+
+  private SortStrategy sortStrategy;
+
+  private Collator collator;
+
+  private boolean parallel;
+
+  private ForkJoinPool pool;
+
+  private List<?> keysetValues;
+
+  private String continuationToken;
+
+  private EntryCodec<?> entryCodec;
+
+  private int maxEntriesInMemory;
+
+  private Path spillDirectory;
+
+  private int maxFanIn = ExternalSorter.DEFAULT_MAX_FAN_IN;
+
+  private Executor converterExecutor;
+
+  private int converterConcurrency;
+
+  private Function<List<S>, List<T>> batchConverter;
+
+  private Integer batchSize;
+
+  private ResultCache resultCache;
+
+  private Object resultQueryKey;
+
+  private Object sourceVersion;
+
+  private CursorSessions cursorSessions;
+
+  private String cursor;
+
   /**
    * Instantiates a new page builder.
    */
   public PageBuilder() {
-    sourceFilter = sourceEntry -> true;
-    //noinspection unchecked
-    sourceSortFn = cf -> (Comparator<S>) new ValueComparator(cf);
     //noinspection unchecked
     converter = e -> (T) e;
-    targetFilter = targetEntry -> true;
-    //noinspection unchecked
-    targetSortFn = cf -> (Comparator<T>) new ValueComparator(cf);
+    sortStrategy = SortStrategy.COMPARATOR;
   }
 
   /**
@@ -93,19 +133,28 @@ public class PageBuilder<S, T> {
   public PageBuilder<S, T> sourceEntries(Stream<? extends S> entries) {
     if (!Objects.isNull(entries)) {
       this.sourceEntries = entries;
+      this.sourceIndex = null;
     }
     return this;
   }
 
   /**
-   * Sets source entries to the page builder.
+   * Sets source entries to the page builder. If the entries are a {@link PagedIndex} or a
+   * {@link PermutationIndex}, that has the order of the page, the page is taken from the index
+   * without sorting.
    *
    * @param entries the entries
    * @return the page builder
+   * @see PageQuery#execute(Iterable)
    */
   public PageBuilder<S, T> sourceEntries(Iterable<? extends S> entries) {
-    if (!Objects.isNull(entries)) {
+    if (entries instanceof PagedIndex<?> || entries instanceof PermutationIndex<?>) {
+      this.sourceEntries = StreamSupport
+          .stream(entries::spliterator, Spliterator.ORDERED, false);
+      this.sourceIndex = entries;
+    } else if (!Objects.isNull(entries)) {
       this.sourceEntries = StreamSupport.stream(entries.spliterator(), false);
+      this.sourceIndex = null;
     }
     return this;
   }
@@ -120,6 +169,7 @@ public class PageBuilder<S, T> {
     if (!Objects.isNull(entries)) {
       this.sourceEntries = StreamSupport.stream(Spliterators
           .spliteratorUnknownSize(entries, Spliterator.ORDERED), false);
+      this.sourceIndex = null;
     }
     return this;
   }
@@ -138,7 +188,8 @@ public class PageBuilder<S, T> {
   }
 
   /**
-   * Sets source sort function to the page builder.
+   * Sets source sort function to the page builder. The default sort function creates an
+   * {@link AccessorComparator} for each sort order.
    *
    * @param sourceSortFn the source sort function
    * @return the page builder
@@ -270,6 +321,49 @@ public class PageBuilder<S, T> {
   public PageBuilder<S, T> converter(Function<S, T> converter) {
     if (!Objects.isNull(converter)) {
       this.converter = converter;
+      this.batchConverter = null;
+      this.batchSize = null;
+    }
+    return this;
+  }
+
+  /**
+   * Sets a batch converter to the page builder, that replaces the entry converter. The batch
+   * size is the page size, so a page needs one call of the batch converter, if the target
+   * entries are neither filtered nor sorted.
+   *
+   * @param batchConverter the batch converter
+   * @return the page builder
+   * @see #batchConverter(Function, int)
+   */
+  public PageBuilder<S, T> batchConverter(Function<List<S>, List<T>> batchConverter) {
+    if (!Objects.isNull(batchConverter)) {
+      this.batchConverter = batchConverter;
+      this.batchSize = null;
+    }
+    return this;
+  }
+
+  /**
+   * Sets a batch converter to the page builder, that replaces the entry converter. It gets the
+   * source entries in batches of at most the given size (e.g. to make one bulk lookup per batch)
+   * and must return exactly one target entry for every source entry in the same order.
+   *
+   * <p>If the target entries are neither filtered nor sorted, only the source entries of the
+   * page are sent. Otherwise all source entries are sent batch by batch. If a converter
+   * executor is set, the batches are converted concurrently.
+   *
+   * @param batchConverter the batch converter
+   * @param batchSize the maximum size of a batch
+   * @return the page builder
+   * @see #converterExecutor(Executor, int)
+   */
+  public PageBuilder<S, T> batchConverter(
+      Function<List<S>, List<T>> batchConverter,
+      int batchSize) {
+    if (!Objects.isNull(batchConverter)) {
+      this.batchConverter = batchConverter;
+      this.batchSize = Math.max(1, batchSize);
     }
     return this;
   }
@@ -288,7 +382,8 @@ public class PageBuilder<S, T> {
   }
 
   /**
-   * Sets target sort function to the page builder.
+   * Sets target sort function to the page builder. The default sort function creates an
+   * {@link AccessorComparator} for each sort order.
    *
    * @param targetSortFn the target sort function
    * @return the page builder
@@ -302,42 +397,431 @@ public class PageBuilder<S, T> {
   }
 
   /**
-   * Builds the page.
+   * Sets the comparator cache to the page builder. The comparator of the sort orders is then
+   * built only once per sort orders, sort target and sort function and shared with other page
+   * builders, that use the same cache.
    *
-   * @return the page
+   * @param comparatorCache the comparator cache
+   * @return the page builder
    */
-  public Page<T> build() {
-    //noinspection unchecked
-    final List<S> source = ((Stream<S>) requireNonNullElse(this.sourceEntries, Stream.empty()))
-        .filter(sourceFilter)
-        .collect(Collectors.toList());
-    if (SortTarget.SOURCE_ENTRIES.equals(sortTarget) && !ObjectUtils.isEmpty(sort)) {
-      source.sort(ComparatorBuilder.newInstance()
-          .addAll(sort, sourceSortFn)
-          .build());
+  public PageBuilder<S, T> comparatorCache(ComparatorCache comparatorCache) {
+    if (!Objects.isNull(comparatorCache)) {
+      this.comparatorCache = comparatorCache;
+    }
+    return this;
+  }
+
+  /**
+   * Sets the result cache to the page builder. The filtered and sorted entries of the query are
+   * then cached by the first page request and the other pages of the query are sliced from the
+   * cached entries. The query key must identify the source entries and the filters (the sort
+   * orders are added to it) and the version must be changed, if the source entries change. If
+   * the cache or the query key is {@code null}, the result cache is turned off.
+   *
+   * @param resultCache the result cache
+   * @param queryKey the key of the query
+   * @param sourceVersion the version of the source entries, e.g. a modification counter
+   * @return the page builder
+   */
+  public PageBuilder<S, T> resultCache(
+      ResultCache resultCache,
+      Object queryKey,
+      Object sourceVersion) {
+    if (Objects.isNull(resultCache) || Objects.isNull(queryKey)) {
+      this.resultCache = null;
+      this.resultQueryKey = null;
+      this.sourceVersion = null;
+    } else {
+      this.resultCache = resultCache;
+      this.resultQueryKey = queryKey;
+      this.sourceVersion = sourceVersion;
+    }
+    return this;
+  }
+
+  /**
+   * Sets the sort strategy to the page builder. The default is
+   * {@link SortStrategy#COMPARATOR}.
+   *
+   * @param sortStrategy the sort strategy
+   * @return the page builder
+   */
+  public PageBuilder<S, T> sortStrategy(SortStrategy sortStrategy) {
+    if (!Objects.isNull(sortStrategy)) {
+      this.sortStrategy = sortStrategy;
+    }
+    return this;
+  }
+
+  /**
+   * Sets the collator of strings to the page builder. The strings of the sort orders are then
+   * compared locale aware by their collation keys; if a sort order ignores the case, the
+   * strength of the collator is reduced to {@link Collator#SECONDARY}. The collation keys are
+   * computed only once per entry and sort order, so the sort keys are extracted like with
+   * {@link SortStrategy#EXTRACTED_KEYS}. This is only possible with the default sort function.
+   *
+   * @param collator the collator, e. g. {@code Collator.getInstance(Locale.GERMAN)}
+   * @return the page builder
+   */
+  public PageBuilder<S, T> collator(Collator collator) {
+    if (!Objects.isNull(collator)) {
+      this.collator = collator;
+    }
+    return this;
+  }
+
+  /**
+   * Lets the page builder filter, convert and sort the entries in parallel in the common fork
+   * join pool. The result is the same as the one of the sequential execution, but the filters,
+   * the converter and the comparators must be thread safe.
+   *
+   * @return the page builder
+   */
+  public PageBuilder<S, T> parallel() {
+    this.parallel = true;
+    this.pool = null;
+    return this;
+  }
+
+  /**
+   * Lets the page builder filter, convert and sort the entries in parallel in the given fork
+   * join pool, e.g. to bound the threads, that a server uses for building pages. The pool is
+   * owned by the caller and should be shared by all builds; it is neither created nor shut down
+   * by the page builder. A {@code null} pool turns the parallel execution off.
+   *
+   * @param pool the fork join pool
+   * @return the page builder
+   * @see #parallel()
+   */
+  public PageBuilder<S, T> parallel(ForkJoinPool pool) {
+    this.parallel = !Objects.isNull(pool);
+    this.pool = pool;
+    return this;
+  }
+
+  /**
+   * Sets the values of the sort orders of the last entry, that the client has seen, to the page
+   * builder (keyset pagination). The page then contains the entries, that follow these values
+   * under the sort orders, instead of the entries of the page number. This needs sort orders
+   * and the default sort function.
+   *
+   * @param lastSortValues the values of the sort orders of the last entry
+   * @return the page builder
+   * @see #buildKeysetPage()
+   */
+  public PageBuilder<S, T> keyset(List<?> lastSortValues) {
+    if (!Objects.isNull(lastSortValues)) {
+      this.keysetValues = lastSortValues;
+      this.continuationToken = null;
+    }
+    return this;
+  }
+
+  /**
+   * Sets the continuation token of the last keyset page to the page builder. The page then
+   * contains the entries, that follow the last entry of the last page.
+   *
+   * @param continuationToken the continuation token
+   * @return the page builder
+   * @see KeysetPage#getContinuationToken()
+   * @see #buildKeysetPage()
+   */
+  public PageBuilder<S, T> continuationToken(String continuationToken) {
+    if (StringUtils.hasText(continuationToken)) {
+      this.continuationToken = continuationToken;
+      this.keysetValues = null;
+    }
+    return this;
+  }
+
+  /**
+   * Sets the cursor sessions to the page builder, that hold the snapshots of the cursor
+   * pagination.
+   *
+   * @param cursorSessions the cursor sessions
+   * @return the page builder
+   * @see #buildCursorPage()
+   */
+  public PageBuilder<S, T> cursorSessions(CursorSessions cursorSessions) {
+    if (!Objects.isNull(cursorSessions)) {
+      this.cursorSessions = cursorSessions;
+    }
+    return this;
+  }
+
+  /**
+   * Sets the cursor of the first cursor page to the page builder. The page is then served from
+   * the snapshot of the cursor.
+   *
+   * @param cursor the cursor
+   * @return the page builder
+   * @see CursorPage#getCursor()
+   * @see #buildCursorPage()
+   */
+  public PageBuilder<S, T> cursor(String cursor) {
+    if (StringUtils.hasText(cursor)) {
+      this.cursor = cursor;
+    }
+    return this;
+  }
+
+  /**
+   * Lets the page builder sort more entries than fit into memory. The entries to sort are
+   * collected into runs of at most the given number, every run is sorted in memory and written
+   * with the given codec to a temporary file, and the runs are merged until the end of the page
+   * is reached. The total number of elements is still exact. The codec must write and read the
+   * source entries, if the sort target is {@link SortTarget#SOURCE_ENTRIES}, otherwise the
+   * target entries. If the codec is {@code null} or the number is less than {@code 1}, the
+   * entries are sorted in memory.
+   *
+   * <p>The temporary files are written to the default temporary-file directory and at most
+   * 64 runs are merged at the same time.
+   *
+   * @param maxEntriesInMemory the maximum number of entries, that are sorted in memory
+   * @param entryCodec the codec of the entries to sort
+   * @return the page builder
+   * @see #spillToDisk(int, EntryCodec, Path, int)
+   */
+  public PageBuilder<S, T> spillToDisk(int maxEntriesInMemory, EntryCodec<?> entryCodec) {
+    return spillToDisk(
+        maxEntriesInMemory, entryCodec, null, ExternalSorter.DEFAULT_MAX_FAN_IN);
+  }
+
+  /**
+   * Lets the page builder sort more entries than fit into memory like
+   * {@link #spillToDisk(int, EntryCodec)}, but writes the temporary files to the given
+   * directory and merges at most the given number of runs at the same time, so that the
+   * number of open files is bounded. If there are more runs, they are merged in intermediate
+   * passes.
+   *
+   * @param maxEntriesInMemory the maximum number of entries, that are sorted in memory
+   * @param entryCodec the codec of the entries to sort
+   * @param directory the directory of the temporary files ({@code null} is the default
+   *     temporary-file directory)
+   * @param maxFanIn the maximum number of runs, that are merged at the same time (at least
+   *     {@code 2})
+   * @return the page builder
+   */
+  public PageBuilder<S, T> spillToDisk(
+      int maxEntriesInMemory,
+      EntryCodec<?> entryCodec,
+      Path directory,
+      int maxFanIn) {
+    if (Objects.isNull(entryCodec) || maxEntriesInMemory < 1) {
+      this.entryCodec = null;
+      this.maxEntriesInMemory = 0;
+    } else {
+      this.entryCodec = entryCodec;
+      this.maxEntriesInMemory = maxEntriesInMemory;
     }
-    final List<T> target = source.stream()
-        .map(converter)
-        .filter(targetFilter)
-        .collect(Collectors.toList());
-    final Sort pageSort;
-    if (SortTarget.TARGET_ENTRIES.equals(sortTarget) && !ObjectUtils.isEmpty(sort)) {
-      target.sort(ComparatorBuilder.newInstance()
-          .addAll(sort, targetSortFn)
-          .build());
-      pageSort = SortMapper.toSort(sort);
+    this.spillDirectory = directory;
+    this.maxFanIn = Math.max(2, maxFanIn);
+    return this;
+  }
+
+  /**
+   * Lets the page builder apply the converter with tasks of the given executor, so that
+   * converters with blocking lookups (e.g. in a repository) run concurrently instead of one
+   * after another. At most the given number of entries are converted at the same time, the
+   * order of the entries is preserved. Together with the conversion of only the entries of the
+   * page (if the target entries are neither filtered nor sorted) a page costs one round of
+   * concurrent lookups. On Java 21 or newer an executor of virtual threads is a good choice.
+   * If the executor is {@code null} or the concurrency is less than {@code 2}, the converter is
+   * applied in the calling thread.
+   *
+   * @param executor the executor of the converter
+   * @param concurrency the maximum number of entries, that are converted at the same time
+   * @return the page builder
+   */
+  public PageBuilder<S, T> converterExecutor(Executor executor, int concurrency) {
+    if (Objects.isNull(executor) || concurrency < 2) {
+      this.converterExecutor = null;
+      this.converterConcurrency = 0;
     } else {
-      pageSort = Sort.unsorted();
+      this.converterExecutor = executor;
+      this.converterConcurrency = concurrency;
     }
+    return this;
+  }
 
-    int number = requireNonNullElse(pageNumber, 0);
-    int size = requireNonNullElse(pageSize, Integer.MAX_VALUE);
-    final Pageable pageable = PageRequest.of(number, size, pageSort);
-    final List<T> content = target.stream()
-        .skip(pageable.getOffset())
-        .limit(pageable.getPageSize())
-        .collect(Collectors.toList());
-    return new PageImpl<>(content, pageable, target.size());
+  /**
+   * Creates the immutable page query of this page builder, that can be executed against many
+   * sources (the source entries of this page builder are not part of it).
+   *
+   * @return the page query
+   * @throws IllegalStateException if there is a keyset or a continuation token, but no sort
+   *     orders or a custom sort function
+   * @throws IllegalArgumentException if the continuation token is invalid
+   */
+  public PageQuery<S, T> query() {
+    return new PageQuery<>(new QuerySpec<>(
+        new QuerySpec.Filters<>(sourceFilter, targetFilter),
+        new QuerySpec.Paging(
+            pageNumber, pageSize, keysetValues, continuationToken, cursorSessions, cursor),
+        new QuerySpec.Sorting(
+            sort,
+            sortTarget,
+            SortTarget.SOURCE_ENTRIES.equals(sortTarget) ? sourceSortFn : targetSortFn,
+            comparatorCache,
+            sortStrategy,
+            collator),
+        new QuerySpec.Conversion<>(
+            converter, converterExecutor, converterConcurrency, batchConverter, batchSize),
+        new QuerySpec.Execution(
+            parallel, pool, entryCodec, maxEntriesInMemory, spillDirectory, maxFanIn),
+        new QuerySpec.Caching(resultCache, resultQueryKey, sourceVersion)));
+  }
+
+  /**
+   * Builds the page.
+   *
+   * <p>If the page is sorted, only the entries up to the end of the requested page are ordered
+   * (see {@link PageSorter}), the total number of elements is always exact. If there is no
+   * target filter and the target entries are not sorted, only the entries of the page are
+   * converted. If the page is not sorted, the entries are streamed and only the entries of the
+   * page are kept in memory.
+   *
+   * @return the page
+   * @see PageQuery#execute(Stream)
+   */
+  public Page<T> build() {
+    return Objects.isNull(sourceIndex)
+        ? query().execute(sourceEntries)
+        : query().execute(sourceIndex);
+  }
+
+  /**
+   * Builds the keyset page. It contains the first entries, that follow the keyset or the
+   * continuation token (or the first entries at all, if there is none), and the continuation
+   * token of the next page. The page number is ignored.
+   *
+   * <p>Only one pass over the entries with a heap of the page size is needed, regardless how
+   * far the client has scrolled. The values of the sort orders should identify an entry
+   * (e.g. the last sort order is an id), otherwise entries with the same values as the last
+   * entry are skipped.
+   *
+   * @return the keyset page
+   * @throws IllegalStateException if there are no sort orders or a custom sort function is set
+   * @throws IllegalArgumentException if the continuation token is invalid
+   */
+  public KeysetPage<T> buildKeysetPage() {
+    return query().executeKeyset(sourceEntries);
+  }
+
+  /**
+   * Builds the slice. In contrast to the page, the slice doesn't know the total number of
+   * entries, only whether there is a next slice. If no sort is requested, the source entries
+   * are only pulled until the first entry of the next slice is found.
+   *
+   * @return the slice
+   * @see PageQuery#executeSlice(Stream)
+   */
+  public Slice<T> buildSlice() {
+    return Objects.isNull(sourceIndex)
+        ? query().executeSlice(sourceEntries)
+        : query().executeSlice(sourceIndex);
+  }
+
+  /**
+   * Builds the cursor page. Without a cursor the sorted entries are pinned as snapshot in the
+   * cursor sessions and the page contains the cursor of the snapshot; with a cursor the page is
+   * served from the snapshot, so that concurrent changes of the source entries do not shift the
+   * pages.
+   *
+   * @return the cursor page
+   * @see PageQuery#executeCursor(Stream)
+   */
+  public CursorPage<T> buildCursorPage() {
+    return query().executeCursor(sourceEntries);
+  }
+
+  /**
+   * Builds the sorted result, that contains all filtered and sorted entries. Any page can be
+   * sliced from it and changes of the source entries can be applied incrementally.
+   *
+   * @return the sorted result
+   * @see PageQuery#executeSorted(Stream)
+   */
+  public SortedResult<S, T> buildSortedResult() {
+    return query().executeSorted(sourceEntries);
+  }
+
+  /**
+   * Builds the sorted result, that contains all filtered and sorted entries, and keeps the
+   * positions of the source entries, that do not pass the filters, if requested.
+   *
+   * @param keepFilteredPositions specifies whether the positions of the source entries, that
+   *     do not pass the filters, are kept, so that an update, after which an entry passes the
+   *     filters, keeps its position
+   * @return the sorted result
+   * @see PageQuery#executeSorted(Stream, boolean)
+   */
+  public SortedResult<S, T> buildSortedResult(boolean keepFilteredPositions) {
+    return query().executeSorted(sourceEntries, keepFilteredPositions);
+  }
+
+  /**
+   * Builds all pages from the page number to the last page in one pass, e.g. for an export. The
+   * entries are filtered and sorted once and the pages are created lazily, while the stream is
+   * consumed. If the entries are spilled to disk, the stream should be closed.
+   *
+   * @return the pages
+   * @see PageQuery#executeAll(Stream)
+   */
+  public Stream<Page<T>> buildAll() {
+    return query().executeAll(sourceEntries);
+  }
+
+  /**
+   * Builds the pages of the given page numbers in one pass, e.g. the current page and the next
+   * ones for prefetching. The entries are filtered, converted and sorted only once; the page
+   * number of this page builder is ignored.
+   *
+   * @param pageNumbers the page numbers
+   * @return the pages in the order of the given page numbers
+   * @see PageQuery#executePages(Stream, int...)
+   */
+  public List<Page<T>> buildPages(int... pageNumbers) {
+    return query().executePages(sourceEntries, pageNumbers);
+  }
+
+  /**
+   * Builds the page asynchronously from the source entries of the given publisher instead of
+   * the source entries of this page builder. The entries are requested with backpressure and
+   * processed without blocking; if the page is sorted, a bounded heap of the first
+   * {@code offset + size} entries is used.
+   *
+   * @param sourceEntries the publisher of the source entries
+   * @return the page, that is completed, when the publisher completes
+   * @see PageQuery#executeAsync(Publisher)
+   */
+  public CompletableFuture<Page<T>> buildAsync(Publisher<? extends S> sourceEntries) {
+    return query().executeAsync(sourceEntries);
+  }
+
+  /**
+   * The sort strategy.
+   */
+  public enum SortStrategy {
+    /**
+     * The entries are compared by the comparators of the sort function, the values of the
+     * sort orders are read on each comparison.
+     */
+    COMPARATOR,
+    /**
+     * The values of the sort orders are extracted once per entry into an array of sort keys
+     * and only the indexes of the entries are sorted against these keys. This is only possible
+     * with the default sort function, otherwise the comparators of the sort function are used.
+     */
+    EXTRACTED_KEYS,
+    /**
+     * The values of the sort orders are encoded once per entry into a byte array, whose
+     * unsigned order is the order of the entries, and all entries are sorted by a radix sort
+     * without comparisons. This pays off for large pages or exports. It is only possible with
+     * the default sort function and values of type string, number, character, boolean or enum,
+     * otherwise the entries are sorted like with {@link #EXTRACTED_KEYS}.
+     */
+    NORMALIZED_KEYS
   }
 
   /**
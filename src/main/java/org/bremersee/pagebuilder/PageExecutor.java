@@ -0,0 +1,275 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow.Publisher;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.bremersee.pagebuilder.QueryContext.Converted;
+import org.bremersee.pagebuilder.QueryContext.Range;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+/**
+ * The page executor builds the pages and slices of a page query by their page number. It
+ * selects the sorted window of entries, that is also used by the keyset executor.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+final class PageExecutor<S, T> {
+
+  private final QueryContext<S, T> context;
+
+  /**
+   * Instantiates a new page executor.
+   *
+   * @param context the query context
+   */
+  PageExecutor(QueryContext<S, T> context) {
+    this.context = context;
+  }
+
+  /**
+   * Executes the page query against the given source entries.
+   *
+   * @param sourceEntries the source entries
+   * @param mode the mode
+   * @return the page or slice
+   */
+  Slice<T> execute(Stream<? extends S> sourceEntries, Mode mode) {
+    return context.inPool(() -> build(sourceEntries, mode));
+  }
+
+  private Slice<T> build(Stream<? extends S> sourceEntries, Mode mode) {
+    final Pageable pageable = context.pageable(context.pageNumber());
+    final long to = pageable.getOffset() + pageable.getPageSize()
+        + (Mode.SLICE.equals(mode) ? 1L : 0L);
+    final Stream<S> sourceStream = context.sourceStream(sourceEntries);
+    if (!Objects.isNull(context.resultCache())) {
+      return buildCached(sourceStream, mode, pageable);
+    }
+    if (!context.isSorted() && Mode.SLICE.equals(mode)) {
+      return buildUnsortedSlice(sourceStream, pageable);
+    }
+    if (!context.isSorted() && !context.isParallel()) {
+      return buildUnsorted(sourceStream, pageable);
+    }
+    final Selection<T> selection = select(sourceStream, context.targetFilter(), pageable, to);
+    return Mode.SLICE.equals(mode)
+        ? new SliceImpl<>(selection.content(), pageable, selection.hasNext())
+        : new PageImpl<>(selection.content(), pageable, selection.total());
+  }
+
+  /**
+   * Executes the page query asynchronously against the source entries of the given publisher.
+   * If there is a keyset, the page is a keyset page.
+   *
+   * @param sourceEntries the publisher of the source entries
+   * @return the page, that is completed, when the publisher completes
+   */
+  CompletableFuture<Page<T>> executeAsync(Publisher<? extends S> sourceEntries) {
+    final KeysetExecutor<S, T> keysetExecutor = Objects.isNull(context.keyset())
+        ? null
+        : new KeysetExecutor<>(context);
+    final boolean sortSource = context.isSortSource();
+    final Pageable pageable = context.pageable(
+        Objects.isNull(keysetExecutor) ? context.pageNumber() : null);
+    final PageSubscriber<S, T, Page<T>> subscriber = new PageSubscriber<>(
+        Objects.isNull(keysetExecutor) ? context.sourceFilter() : keysetExecutor.sourceFilter(),
+        context.converter(),
+        context::convert,
+        Objects.isNull(keysetExecutor) ? context.targetFilter() : keysetExecutor.targetFilter(),
+        context.isSorted() ? context.entryComparator() : null,
+        sortSource,
+        pageable.getOffset(),
+        pageable.getOffset() + pageable.getPageSize(),
+        window -> Objects.isNull(keysetExecutor)
+            ? new PageImpl<>(window.targets(), pageable, window.total())
+            : keysetExecutor.keysetPage(
+                window.targets(),
+                pageable,
+                window.total(),
+                sortSource ? window.sources() : window.targets(),
+                PageSorter.identity(window.targets().size())));
+    sourceEntries.subscribe(subscriber);
+    return subscriber.getResult();
+  }
+
+  /**
+   * Builds the page or slice from the entries of the result cache.
+   *
+   * @param sourceStream the filtered source entries
+   * @param mode the mode
+   * @param pageable the pageable
+   * @return the page or slice
+   */
+  private Slice<T> buildCached(Stream<S> sourceStream, Mode mode, Pageable pageable) {
+    final Range range = context.cachedRange(sourceStream);
+    final List<T> content = context.content(
+        range, pageable.getOffset(), pageable.getPageSize());
+    final boolean hasNext = range.entries().size() > pageable.getOffset() + content.size();
+    return Mode.SLICE.equals(mode)
+        ? new SliceImpl<>(content, pageable, hasNext)
+        : new PageImpl<>(content, pageable, range.total());
+  }
+
+  /**
+   * Selects the sorted entries at the positions {@code [offset, to)} of the given pageable,
+   * the entries are sorted, if the query is sorted. If the entries are spilled to disk, neither
+   * the source nor the target entries are held in memory; if the source entries are sorted and
+   * filtered by the target filter, the entries of the window are converted again.
+   *
+   * @param sourceStream the filtered source entries
+   * @param targetFilter the target filter (can be {@code null})
+   * @param pageable the pageable
+   * @param to the last position (exclusive), that is at least the end of the page
+   * @return the selection
+   */
+  @SuppressWarnings("unchecked")
+  Selection<T> select(
+      Stream<S> sourceStream,
+      Predicate<T> targetFilter,
+      Pageable pageable,
+      long to) {
+
+    final boolean sorted = context.isSorted();
+    final boolean sortSource = context.isSortSource();
+    final int size = pageable.getPageSize();
+    final long from = pageable.getOffset();
+    if (context.isSpilled()) {
+      final ExternalSorter.Window<Object> window = context.externalSorter().sortedWindow(
+          context.sortStream(sourceStream, targetFilter, sortSource).iterator(), from, to);
+      final List<Object> sortEntries = window.entries();
+      final List<T> entries = sortSource
+          ? context.convert((List<S>) sortEntries)
+          : (List<T>) sortEntries;
+      final List<T> content = entries.subList(0, Math.min(entries.size(), size));
+      return new Selection<>(content, window.total(), entries.size() > size,
+          sortEntries, PageSorter.identity(content.size()));
+    }
+    if (context.isConversionLazy()) {
+      final List<S> source = sourceStream.collect(Collectors.toList());
+      final int[] window = sortSource ? context.sortedWindow(source, from, to) : null;
+      final List<S> entries = sortSource
+          ? QueryContext.entriesOf(source, window)
+          : QueryContext.entriesOfSlice(source, from, to);
+      final List<T> content = context.convert(entries.subList(0, Math.min(entries.size(), size)));
+      return new Selection<>(content, source.size(), entries.size() > size, source, window);
+    }
+    final Converted<S, T> converted = context.convertAll(sourceStream, targetFilter, sortSource);
+    final List<T> target = converted.target();
+    final List<?> sortEntries = sortSource ? converted.source() : target;
+    final int[] window = sorted ? context.sortedWindow(sortEntries, from, to) : null;
+    final List<T> entries = sorted
+        ? QueryContext.entriesOf(target, window)
+        : QueryContext.entriesOfSlice(target, from, to);
+    final List<T> content = entries.subList(0, Math.min(entries.size(), size));
+    return new Selection<>(content, target.size(), entries.size() > size, sortEntries, window);
+  }
+
+  /**
+   * Builds an unsorted page by streaming the entries. Only the entries of the page are kept,
+   * all others are just counted, so that at most one page of entries is held in memory.
+   *
+   * @param sourceStream the filtered source entries
+   * @param pageable the pageable
+   * @return the page
+   */
+  Page<T> buildUnsorted(Stream<S> sourceStream, Pageable pageable) {
+    if (context.isConversionLazy()) {
+      final List<S> slice = new ArrayList<>();
+      final long total = QueryContext.collectSlice(
+          sourceStream.iterator(), pageable.getOffset(), pageable.getPageSize(), slice);
+      return new PageImpl<>(context.convert(slice), pageable, total);
+    }
+    final List<T> content = new ArrayList<>();
+    final long total = QueryContext.collectSlice(
+        context.convert(sourceStream).filter(context.targetFilter()).iterator(),
+        pageable.getOffset(),
+        pageable.getPageSize(),
+        content);
+    return new PageImpl<>(content, pageable, total);
+  }
+
+  /**
+   * Builds an unsorted slice by streaming the entries. The stream is short-circuited after the
+   * first entry of the next slice, so the rest of the source is never pulled.
+   *
+   * @param sourceStream the filtered source entries
+   * @param pageable the pageable
+   * @return the slice
+   */
+  Slice<T> buildUnsortedSlice(Stream<S> sourceStream, Pageable pageable) {
+    final int size = pageable.getPageSize();
+    final long limit = size + 1L;
+    final List<T> entries;
+    if (context.isConversionLazy()) {
+      final List<S> slice = sourceStream
+          .skip(pageable.getOffset())
+          .limit(limit)
+          .collect(Collectors.toList());
+      entries = context.convert(slice.subList(0, Math.min(slice.size(), size)));
+      return new SliceImpl<>(entries, pageable, slice.size() > size);
+    }
+    entries = context.convert(sourceStream)
+        .filter(context.targetFilter())
+        .skip(pageable.getOffset())
+        .limit(limit)
+        .collect(Collectors.toList());
+    return new SliceImpl<>(
+        entries.subList(0, Math.min(entries.size(), size)),
+        pageable,
+        entries.size() > size);
+  }
+
+  /**
+   * The selected entries of a page.
+   *
+   * @param content the target entries of the page
+   * @param total the number of all entries
+   * @param hasNext specifies whether there are entries after the page
+   * @param sortEntries the sorted entries, that are referenced by the window
+   * @param window the indexes of the sorted entries ({@code null}, if they are not sorted)
+   * @param <T> the target type
+   */
+  record Selection<T>(
+      List<T> content,
+      long total,
+      boolean hasNext,
+      List<?> sortEntries,
+      int[] window) {
+
+  }
+
+  /**
+   * The kind of the result.
+   */
+  enum Mode {
+    PAGE,
+    SLICE
+  }
+}
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow.Publisher;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.bremersee.comparator.ComparatorBuilder;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.bremersee.pagebuilder.PageExecutor.Mode;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+/**
+ * The page query is the immutable specification of a page: the filters, the converter, the
+ * page number and size and the sort orders with their comparators, which are built only once.
+ * It is created by {@link PageBuilder#query()} and can be shared between threads and executed
+ * against many sources, if the filters, the converter and the comparators are thread safe.
+ *
+ * <p>The options are kept in the {@link QuerySpec}; a page query with another page, keyset or
+ * cursor is created from a copy of it. The pages, slices, keyset pages, cursor pages, indexed
+ * pages and exports are built by their executors.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+public final class PageQuery<S, T> {
+
+  private final QueryContext<S, T> context;
+
+  /**
+   * Instantiates a new page query.
+   *
+   * @param spec the specification of the query
+   */
+  PageQuery(QuerySpec<S, T> spec) {
+    this(new QueryContext<>(spec, null));
+  }
+
+  private PageQuery(QueryContext<S, T> context) {
+    this.context = context;
+  }
+
+  /**
+   * Builds the comparator of the given sort orders.
+   *
+   * @param sort the sort orders
+   * @param sortFn the sort function ({@code null} is the default one)
+   * @return the comparator
+   */
+  static Comparator<Object> comparator(
+      List<SortOrder> sort,
+      Function<SortOrder, Comparator<?>> sortFn) {
+    return ComparatorBuilder.newInstance()
+        .addAll(sort, requireNonNullElse(sortFn, AccessorComparator::new))
+        .build();
+  }
+
+  /**
+   * Gets the page number.
+   *
+   * @return the page number (can be {@code null})
+   */
+  public Integer getPageNumber() {
+    return context.pageNumber();
+  }
+
+  /**
+   * Gets the page size.
+   *
+   * @return the page size (can be {@code null})
+   */
+  public Integer getPageSize() {
+    return context.pageSize();
+  }
+
+  /**
+   * Gets the sort orders.
+   *
+   * @return the unmodifiable sort orders
+   */
+  public List<SortOrder> getSort() {
+    return context.sort();
+  }
+
+  /**
+   * Gets the sort target.
+   *
+   * @return the sort target, {@code null} if the page is not sorted
+   */
+  public SortTarget getSortTarget() {
+    return context.sortTarget();
+  }
+
+  /**
+   * Returns a page query with the same specification but another page. The comparators are
+   * not built again.
+   *
+   * @param pageNumber the page number
+   * @param pageSize the page size
+   * @return the page query
+   */
+  public PageQuery<S, T> withPage(int pageNumber, int pageSize) {
+    Pageable pageable = PageRequest.of(pageNumber, pageSize);
+    QuerySpec<S, T> spec = context.spec();
+    return new PageQuery<>(context.with(spec.withPaging(
+        spec.paging().withPage(pageable.getPageNumber(), pageable.getPageSize()))));
+  }
+
+  /**
+   * Returns a page query with the same specification, that returns the entries after the
+   * last entry of the continuation token.
+   *
+   * @param continuationToken the continuation token of the last keyset page
+   * @return the page query
+   * @throws IllegalStateException if the query is not sorted by the default sort function
+   * @throws IllegalArgumentException if the token is invalid
+   * @see #executeKeyset(Stream)
+   */
+  public PageQuery<S, T> withKeyset(String continuationToken) {
+    QuerySpec<S, T> spec = context.spec();
+    return new PageQuery<>(context.with(spec.withPaging(
+        spec.paging().withContinuationToken(continuationToken))));
+  }
+
+  /**
+   * Returns a page query with the same specification, that is served from the snapshot of the
+   * given cursor.
+   *
+   * @param cursor the cursor of the first cursor page
+   * @return the page query
+   * @see #executeCursor(Stream)
+   */
+  public PageQuery<S, T> withCursor(String cursor) {
+    QuerySpec<S, T> spec = context.spec();
+    return new PageQuery<>(context.with(spec.withPaging(spec.paging().withCursor(cursor))));
+  }
+
+  /**
+   * Executes the page query against the given source entries.
+   *
+   * <p>If the source entries are a {@link PagedIndex} or a {@link PermutationIndex}, that has
+   * the order of the page, the entries are not sorted again: without source filter and target
+   * filter the page is taken from the index by position, otherwise the index is walked in its
+   * order and filtered.
+   *
+   * @param sourceEntries the source entries
+   * @return the page
+   */
+  public Page<T> execute(Iterable<? extends S> sourceEntries) {
+    final Slice<T> indexed = new IndexedExecutor<>(context).execute(sourceEntries, Mode.PAGE);
+    if (!Objects.isNull(indexed)) {
+      return (Page<T>) indexed;
+    }
+    return execute(stream(sourceEntries));
+  }
+
+  /**
+   * Executes the page query against the given source entries.
+   *
+   * <p>If the page is sorted, only the entries up to the end of the requested page are ordered
+   * (see {@link PageSorter}), the total number of elements is always exact. If there is no
+   * target filter and the target entries are not sorted, only the entries of the page are
+   * converted. If the page is not sorted, the entries are streamed and only the entries of the
+   * page are kept in memory.
+   *
+   * <p>If a result cache is set, all filtered and sorted entries are cached by the first
+   * execution of the query and the pages of the following executions are sliced from the cached
+   * entries without reading the source entries. The result cache is not used for keyset pages.
+   *
+   * @param sourceEntries the source entries
+   * @return the page
+   */
+  public Page<T> execute(Stream<? extends S> sourceEntries) {
+    return Objects.isNull(context.keyset())
+        ? (Page<T>) new PageExecutor<>(context).execute(sourceEntries, Mode.PAGE)
+        : new KeysetExecutor<>(context).execute(sourceEntries);
+  }
+
+  /**
+   * Executes the page query as slice against the given source entries.
+   *
+   * <p>If the source entries are a {@link PagedIndex} or a {@link PermutationIndex}, that has
+   * the order of the slice, the entries are not sorted again and the index is walked only until
+   * the slice is filled.
+   *
+   * @param sourceEntries the source entries
+   * @return the slice
+   * @see #executeSlice(Stream)
+   */
+  public Slice<T> executeSlice(Iterable<? extends S> sourceEntries) {
+    final Slice<T> indexed = new IndexedExecutor<>(context).execute(sourceEntries, Mode.SLICE);
+    if (!Objects.isNull(indexed)) {
+      return indexed;
+    }
+    return executeSlice(stream(sourceEntries));
+  }
+
+  /**
+   * Executes the page query as slice against the given source entries. A slice only knows
+   * whether there is a next slice, but not the total number of elements. So if the slice is not
+   * sorted, no more than {@code offset + size + 1} matching entries are pulled from the source.
+   * The keyset is not used.
+   *
+   * @param sourceEntries the source entries
+   * @return the slice
+   */
+  public Slice<T> executeSlice(Stream<? extends S> sourceEntries) {
+    return new PageExecutor<>(context).execute(sourceEntries, Mode.SLICE);
+  }
+
+  /**
+   * Executes the page query as keyset page against the given source entries.
+   *
+   * @param sourceEntries the source entries
+   * @return the keyset page
+   * @see #executeKeyset(Stream)
+   */
+  public KeysetPage<T> executeKeyset(Iterable<? extends S> sourceEntries) {
+    return executeKeyset(stream(sourceEntries));
+  }
+
+  /**
+   * Executes the page query as keyset page against the given source entries. The page contains
+   * the first entries, that follow the keyset (or the first entries at all, if there is no
+   * keyset), so only one pass over the entries with a heap of the page size is needed. The page
+   * number is ignored.
+   *
+   * @param sourceEntries the source entries
+   * @return the keyset page
+   * @throws IllegalStateException if the query is not sorted by the default sort function
+   */
+  public KeysetPage<T> executeKeyset(Stream<? extends S> sourceEntries) {
+    return new KeysetExecutor<>(context).execute(sourceEntries);
+  }
+
+  /**
+   * Executes the page query as cursor page against the given source entries.
+   *
+   * @param sourceEntries the source entries
+   * @return the cursor page
+   * @see #executeCursor(Stream)
+   */
+  public CursorPage<T> executeCursor(Iterable<? extends S> sourceEntries) {
+    return executeCursor(stream(sourceEntries));
+  }
+
+  /**
+   * Executes the page query as cursor page. If there is no cursor, all entries are filtered and
+   * sorted and pinned as snapshot in the cursor sessions; the page contains the cursor of the
+   * snapshot. If there is a cursor, the page is served from its snapshot and the source entries
+   * are not read, so the pages are consistent, even if the source entries change. The keyset is
+   * not used.
+   *
+   * @param sourceEntries the source entries
+   * @return the cursor page
+   * @throws IllegalStateException if there are no cursor sessions
+   * @throws IllegalArgumentException if the cursor is unknown, expired or was created with other
+   *     sort orders
+   */
+  public CursorPage<T> executeCursor(Stream<? extends S> sourceEntries) {
+    return new CursorExecutor<>(context).execute(sourceEntries);
+  }
+
+  /**
+   * Executes the page query against the given source entries and returns all sorted entries.
+   *
+   * @param sourceEntries the source entries
+   * @return the sorted result
+   * @see #executeSorted(Stream)
+   */
+  public SortedResult<S, T> executeSorted(Iterable<? extends S> sourceEntries) {
+    return executeSorted(stream(sourceEntries));
+  }
+
+  /**
+   * Executes the page query against the given source entries and returns all filtered and
+   * sorted entries, from which any page can be sliced. Changes of the source entries can be
+   * applied to the sorted result instead of executing the query again. The keyset is not used.
+   * The positions of the source entries, that do not pass the filters, are not kept.
+   *
+   * @param sourceEntries the source entries
+   * @return the sorted result
+   * @see SortedResult#apply(ChangeSet)
+   */
+  public SortedResult<S, T> executeSorted(Stream<? extends S> sourceEntries) {
+    return executeSorted(sourceEntries, false);
+  }
+
+  /**
+   * Executes the page query against the given source entries and returns all filtered and
+   * sorted entries, from which any page can be sliced. If the positions of the source entries,
+   * that do not pass the filters, are kept, an update, after which an entry passes the filters,
+   * keeps its position like in a fresh build, but the sorted result references all filtered
+   * source entries.
+   *
+   * @param sourceEntries the source entries
+   * @param keepFilteredPositions specifies whether the positions of the source entries, that
+   *     do not pass the filters, are kept
+   * @return the sorted result
+   * @see SortedResult#apply(ChangeSet)
+   */
+  @SuppressWarnings("unchecked")
+  public SortedResult<S, T> executeSorted(
+      Stream<? extends S> sourceEntries,
+      boolean keepFilteredPositions) {
+    return new SortedResult<>(
+        (Stream<S>) requireNonNullElse(sourceEntries, Stream.empty()),
+        context.sourceFilter(),
+        context.converter(),
+        context::convert,
+        context.targetFilter(),
+        context.isSorted() ? context.entryComparator() : null,
+        context.isSortSource(),
+        keepFilteredPositions,
+        context.pageSort(),
+        requireNonNullElse(context.pageNumber(), 0),
+        requireNonNullElse(context.pageSize(), Integer.MAX_VALUE));
+  }
+
+  /**
+   * Executes the page query asynchronously against the source entries of the given publisher.
+   * The entries are requested with backpressure and filtered, converted and selected as they
+   * arrive without blocking; if the page is sorted, only the first {@code offset + size}
+   * entries are kept in a bounded heap. The fork join pool is not used.
+   *
+   * <p>A Reactor {@code Flux} can be adapted with {@code JdkFlowAdapter} and the result with
+   * {@code Mono.fromFuture(...)}. Cancelling the result cancels the subscription.
+   *
+   * @param sourceEntries the publisher of the source entries
+   * @return the page, that is completed, when the publisher completes
+   */
+  public CompletableFuture<Page<T>> executeAsync(Publisher<? extends S> sourceEntries) {
+    if (Objects.isNull(sourceEntries)) {
+      return CompletableFuture.completedFuture(execute(Stream.empty()));
+    }
+    return new PageExecutor<>(context).executeAsync(sourceEntries);
+  }
+
+  /**
+   * Executes the page query against the given source entries and returns all pages.
+   *
+   * @param sourceEntries the source entries
+   * @return the pages
+   * @see #executeAll(Stream)
+   */
+  public Stream<Page<T>> executeAll(Iterable<? extends S> sourceEntries) {
+    return executeAll(stream(sourceEntries));
+  }
+
+  /**
+   * Executes the page query against the given source entries and returns all pages from the
+   * page number of the query to the last page (e.g. for an export). The entries are filtered
+   * and sorted only once, the pages are created lazily while the returned stream is consumed,
+   * so an export costs one sort and a linear walk instead of one sort per page. Every page has
+   * its number and the total number of elements. If the target entries are neither filtered
+   * nor sorted, the entries of a page are converted, when the page is created.
+   *
+   * <p>If the entries are spilled to disk, the returned stream holds temporary files until it
+   * is consumed completely or closed, so it should be used in a try-with-resources block. With
+   * a fork join pool the entries are sorted and the pages are converted in that pool. The
+   * keyset is not used.
+   *
+   * @param sourceEntries the source entries
+   * @return the pages
+   */
+  public Stream<Page<T>> executeAll(Stream<? extends S> sourceEntries) {
+    return new ExportExecutor<>(context).executeAll(sourceEntries);
+  }
+
+  /**
+   * Executes the page query against the given source entries and returns the pages of the
+   * given page numbers.
+   *
+   * @param sourceEntries the source entries
+   * @param pageNumbers the page numbers
+   * @return the pages
+   * @see #executePages(Stream, int...)
+   */
+  public List<Page<T>> executePages(Iterable<? extends S> sourceEntries, int... pageNumbers) {
+    return executePages(stream(sourceEntries), pageNumbers);
+  }
+
+  /**
+   * Executes the page query against the given source entries and returns the pages of the
+   * given page numbers (e.g. the current page and the next ones for prefetching) in the given
+   * order. The page number of the query is ignored, the keyset is not used. The entries are
+   * filtered, converted and sorted only once; only the entries from the first position of the
+   * smallest page number to the last position of the largest page number are ordered.
+   *
+   * @param sourceEntries the source entries
+   * @param pageNumbers the page numbers
+   * @return the pages
+   * @throws IllegalArgumentException if a page number is negative
+   */
+  public List<Page<T>> executePages(Stream<? extends S> sourceEntries, int... pageNumbers) {
+    return new ExportExecutor<>(context).executePages(sourceEntries, pageNumbers);
+  }
+
+  private static <E> Stream<E> stream(Iterable<E> entries) {
+    return Objects.isNull(entries)
+        ? Stream.empty()
+        : StreamSupport.stream(entries.spliterator(), false);
+  }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * The page sorter selects the entries of a page from unsorted entries without sorting more
+ * entries than necessary. The entries are addressed by their index, so that the caller decides
+ * what is compared (source entries, target entries or extracted sort keys).
+ *
+ * <p>All methods produce the same result as a stable sort of all entries followed by taking
+ * the requested window.
+ *
+ * @author Christian Bremer
+ */
+final class PageSorter {
+
+  private static final int INSERTION_SORT_THRESHOLD = 32;
+
+  /**
+   * A heap is used, if it has to hold at most an eighth of all entries.
+   */
+  private static final int HEAP_SHIFT = 3;
+
+  /**
+   * Below this size the work is not split into parallel tasks.
+   */
+  private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+  private PageSorter() {
+  }
+
+  /**
+   * Returns the indexes of the entries, that a stable sort would place at the positions
+   * {@code [from, to)}, in sorted order.
+   *
+   * <p>Windows near the beginning are selected with a bounded heap of the first {@code to}
+   * entries, windows near the end with a bounded heap of the last {@code size - from} entries
+   * in reverse order. All other windows are isolated with a quickselect and only the window is
+   * sorted, so that deep pages are as cheap as shallow ones.
+   *
+   * @param size the number of entries
+   * @param comparator the comparator of the entry indexes
+   * @param from the first position (inclusive)
+   * @param to the last position (exclusive)
+   * @return the indexes of the entries of the window
+   */
+  static int[] sortedWindow(int size, IndexComparator comparator, long from, long to) {
+    int end = (int) Math.min(to, size);
+    if (from >= end) {
+      return new int[0];
+    }
+    int start = (int) from;
+    int threshold = size >>> HEAP_SHIFT;
+    IndexComparator stable = stable(comparator);
+    if (end <= threshold) {
+      return Arrays.copyOfRange(smallest(size, end, stable), start, end);
+    }
+    if (size - start <= threshold) {
+      int[] largest = smallest(size, size - start, (i, j) -> stable.compare(j, i));
+      int[] window = new int[end - start];
+      for (int i = 0; i < window.length; i++) {
+        window[i] = largest[largest.length - 1 - i];
+      }
+      return window;
+    }
+    int[] indexes = identity(size);
+    if (start > 0) {
+      select(indexes, 0, size, start, stable);
+    }
+    if (end < size) {
+      select(indexes, start, size, end, stable);
+    }
+    sort(indexes, start, end, stable);
+    return Arrays.copyOfRange(indexes, start, end);
+  }
+
+  /**
+   * Returns the indexes of the entries, that a stable sort would place at the positions
+   * {@code [from, to)}, in sorted order. The work is done in the current fork join pool: windows
+   * near the beginning are selected with one bounded heap per task whose results are merged,
+   * all other windows with a parallel merge sort.
+   *
+   * @param size the number of entries
+   * @param comparator the comparator of the entry indexes, that must be thread safe
+   * @param from the first position (inclusive)
+   * @param to the last position (exclusive)
+   * @return the indexes of the entries of the window
+   */
+  static int[] parallelSortedWindow(int size, IndexComparator comparator, long from, long to) {
+    if (size < PARALLEL_THRESHOLD) {
+      return sortedWindow(size, comparator, from, to);
+    }
+    int end = (int) Math.min(to, size);
+    if (from >= end) {
+      return new int[0];
+    }
+    int start = (int) from;
+    IndexComparator stable = stable(comparator);
+    if (end <= size >>> HEAP_SHIFT) {
+      int tasks = 4 * (ForkJoinTask.inForkJoinPool()
+          ? ForkJoinTask.getPool().getParallelism()
+          : ForkJoinPool.getCommonPoolParallelism());
+      int chunk = Math.max(PARALLEL_THRESHOLD, (size + tasks - 1) / tasks);
+      int[] candidates = IntStream.range(0, (size + chunk - 1) / chunk)
+          .parallel()
+          .mapToObj(c -> smallest(c * chunk, Math.min(size, (c + 1) * chunk), end, stable))
+          .flatMapToInt(Arrays::stream)
+          .toArray();
+      int[] selected = smallest(0, candidates.length, end,
+          (i, j) -> stable.compare(candidates[i], candidates[j]));
+      int[] window = new int[end - start];
+      for (int i = 0; i < window.length; i++) {
+        window[i] = candidates[selected[start + i]];
+      }
+      return window;
+    }
+    int[] indexes = identity(size);
+    new ParallelMergeSort(indexes, new int[size], 0, size, stable).invoke();
+    return Arrays.copyOfRange(indexes, start, end);
+  }
+
+  /**
+   * Rearranges the given range of indexes, so that the entry at position {@code nth} is the
+   * one, that would be there after sorting, all entries before it are less and all entries
+   * after it are greater. The range is sorted instead, if the partitioning degenerates.
+   *
+   * @param indexes the indexes
+   * @param from the first position (inclusive)
+   * @param to the last position (exclusive)
+   * @param nth the position of the entry to select
+   * @param comparator the comparator, that must not return {@code 0} for different indexes
+   */
+  static void select(int[] indexes, int from, int to, int nth, IndexComparator comparator) {
+    int lo = from;
+    int hi = to - 1;
+    int depth = 2 * (32 - Integer.numberOfLeadingZeros(to - from));
+    while (hi > lo) {
+      if (hi - lo < INSERTION_SORT_THRESHOLD || depth-- == 0) {
+        sort(indexes, lo, hi + 1, comparator);
+        return;
+      }
+      int pivot = partition(indexes, lo, hi, comparator);
+      if (pivot == nth) {
+        return;
+      } else if (nth < pivot) {
+        hi = pivot - 1;
+      } else {
+        lo = pivot + 1;
+      }
+    }
+  }
+
+  /**
+   * Returns the indexes of the {@code k} smallest entries in sorted order. A bounded max-heap
+   * of {@code k} indexes is used, so that only {@code O(n log k)} comparisons are necessary.
+   *
+   * @param size the number of entries
+   * @param k the number of entries to select
+   * @param comparator the comparator, that must not return {@code 0} for different indexes
+   * @return the sorted indexes of the smallest entries
+   */
+  static int[] smallest(int size, int k, IndexComparator comparator) {
+    return smallest(0, size, k, comparator);
+  }
+
+  private static int[] smallest(int from, int to, int k, IndexComparator comparator) {
+    int[] heap = new int[Math.min(to - from, k)];
+    int n = 0;
+    for (int i = from; i < to; i++) {
+      if (n < heap.length) {
+        heap[n] = i;
+        siftUp(heap, n++, comparator);
+      } else if (n > 0 && comparator.compare(i, heap[0]) < 0) {
+        heap[0] = i;
+        siftDown(heap, 0, n, comparator);
+      }
+    }
+    for (int last = n - 1; last > 0; last--) {
+      swap(heap, 0, last);
+      siftDown(heap, 0, last, comparator);
+    }
+    return heap;
+  }
+
+  /**
+   * Sorts the given range of indexes with a stable merge sort.
+   *
+   * @param indexes the indexes
+   * @param from the first position (inclusive)
+   * @param to the last position (exclusive)
+   * @param comparator the comparator
+   */
+  static void sort(int[] indexes, int from, int to, IndexComparator comparator) {
+    if (to - from > INSERTION_SORT_THRESHOLD) {
+      mergeSort(indexes, Arrays.copyOfRange(indexes, from, to), from, to, -from, comparator);
+    } else {
+      insertionSort(indexes, from, to, comparator);
+    }
+  }
+
+  /**
+   * Creates the identity permutation.
+   *
+   * @param size the size
+   * @return the indexes {@code 0} to {@code size - 1}
+   */
+  static int[] identity(int size) {
+    int[] indexes = new int[size];
+    for (int i = 0; i < size; i++) {
+      indexes[i] = i;
+    }
+    return indexes;
+  }
+
+  /**
+   * Returns a comparator, that compares equal entries by their index.
+   *
+   * @param comparator the comparator
+   * @return the stable comparator
+   */
+  static IndexComparator stable(IndexComparator comparator) {
+    return (i, j) -> {
+      int result = comparator.compare(i, j);
+      return result != 0 ? result : Integer.compare(i, j);
+    };
+  }
+
+  /*
+   * Sorts dst[from, to); src[from + offset, to + offset) holds the same values.
+   */
+  private static void mergeSort(
+      int[] dst,
+      int[] src,
+      int from,
+      int to,
+      int offset,
+      IndexComparator comparator) {
+
+    int length = to - from;
+    if (length <= INSERTION_SORT_THRESHOLD) {
+      insertionSort(dst, from, to, comparator);
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    mergeSort(src, dst, from + offset, mid + offset, -offset, comparator);
+    mergeSort(src, dst, mid + offset, to + offset, -offset, comparator);
+    int left = from + offset;
+    int leftEnd = mid + offset;
+    int right = leftEnd;
+    int rightEnd = to + offset;
+    if (comparator.compare(src[leftEnd - 1], src[right]) <= 0) {
+      System.arraycopy(src, left, dst, from, length);
+      return;
+    }
+    for (int i = from; i < to; i++) {
+      if (right >= rightEnd
+          || left < leftEnd && comparator.compare(src[left], src[right]) <= 0) {
+        dst[i] = src[left++];
+      } else {
+        dst[i] = src[right++];
+      }
+    }
+  }
+
+  private static int partition(int[] indexes, int lo, int hi, IndexComparator comparator) {
+    int mid = (lo + hi) >>> 1;
+    if (comparator.compare(indexes[mid], indexes[lo]) < 0) {
+      swap(indexes, lo, mid);
+    }
+    if (comparator.compare(indexes[hi], indexes[lo]) < 0) {
+      swap(indexes, lo, hi);
+    }
+    if (comparator.compare(indexes[mid], indexes[hi]) < 0) {
+      swap(indexes, mid, hi);
+    }
+    int pivot = indexes[hi];
+    int store = lo;
+    for (int i = lo; i < hi; i++) {
+      if (comparator.compare(indexes[i], pivot) < 0) {
+        swap(indexes, i, store++);
+      }
+    }
+    swap(indexes, store, hi);
+    return store;
+  }
+
+  private static void insertionSort(int[] indexes, int from, int to, IndexComparator comparator) {
+    for (int i = from + 1; i < to; i++) {
+      int index = indexes[i];
+      int j = i - 1;
+      while (j >= from && comparator.compare(indexes[j], index) > 0) {
+        indexes[j + 1] = indexes[j];
+        j--;
+      }
+      indexes[j + 1] = index;
+    }
+  }
+
+  private static void siftUp(int[] heap, int pos, IndexComparator comparator) {
+    int index = heap[pos];
+    while (pos > 0) {
+      int parent = (pos - 1) >>> 1;
+      if (comparator.compare(index, heap[parent]) <= 0) {
+        break;
+      }
+      heap[pos] = heap[parent];
+      pos = parent;
+    }
+    heap[pos] = index;
+  }
+
+  private static void siftDown(int[] heap, int pos, int size, IndexComparator comparator) {
+    int index = heap[pos];
+    int half = size >>> 1;
+    while (pos < half) {
+      int child = 2 * pos + 1;
+      int right = child + 1;
+      if (right < size && comparator.compare(heap[right], heap[child]) > 0) {
+        child = right;
+      }
+      if (comparator.compare(index, heap[child]) >= 0) {
+        break;
+      }
+      heap[pos] = heap[child];
+      pos = child;
+    }
+    heap[pos] = index;
+  }
+
+  private static void swap(int[] indexes, int i, int j) {
+    int tmp = indexes[i];
+    indexes[i] = indexes[j];
+    indexes[j] = tmp;
+  }
+
+  /**
+   * Sorts a range of indexes with a merge sort, whose halves are sorted in parallel.
+   */
+  private static class ParallelMergeSort extends RecursiveAction {
+
+    private final int[] indexes;
+
+    private final int[] buffer;
+
+    private final int from;
+
+    private final int to;
+
+    private final IndexComparator comparator;
+
+    ParallelMergeSort(int[] indexes, int[] buffer, int from, int to, IndexComparator comparator) {
+      this.indexes = indexes;
+      this.buffer = buffer;
+      this.from = from;
+      this.to = to;
+      this.comparator = comparator;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= PARALLEL_THRESHOLD) {
+        sort(indexes, from, to, comparator);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      invokeAll(
+          new ParallelMergeSort(indexes, buffer, from, mid, comparator),
+          new ParallelMergeSort(indexes, buffer, mid, to, comparator));
+      if (comparator.compare(indexes[mid - 1], indexes[mid]) <= 0) {
+        return;
+      }
+      int left = from;
+      int right = mid;
+      for (int i = from; i < to; i++) {
+        if (right >= to || left < mid && comparator.compare(indexes[left], indexes[right]) <= 0) {
+          buffer[i] = indexes[left++];
+        } else {
+          buffer[i] = indexes[right++];
+        }
+      }
+      System.arraycopy(buffer, from, indexes, from, to - from);
+    }
+  }
+
+  /**
+   * Compares two entries by their indexes.
+   */
+  @FunctionalInterface
+  interface IndexComparator {
+
+    /**
+     * Compares the entries with the given indexes.
+     *
+     * @param i the index of the first entry
+     * @param j the index of the second entry
+     * @return a negative integer, zero, or a positive integer as the first entry is less than,
+     *     equal to, or greater than the second
+     */
+    int compare(int i, int j);
+  }
+}
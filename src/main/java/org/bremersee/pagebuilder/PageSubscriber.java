@@ -0,0 +1,258 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The page subscriber consumes the source entries of a {@link java.util.concurrent.Flow.Publisher}
+ * with backpressure: it requests a bounded number of entries at a time and filters, converts
+ * and selects every entry as soon as it arrives, so that it never blocks. If the entries are
+ * sorted, only the first {@code to} entries are kept in a bounded heap (top-K), otherwise only
+ * the entries of the window are kept.
+ *
+ * <p>The result is the same as a stable sort of all entries followed by taking the window.
+ * Cancelling the result cancels the subscription.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @param <R> the result type
+ * @author Christian Bremer
+ */
+final class PageSubscriber<S, T, R> implements Subscriber<S> {
+
+  /**
+   * The number of entries, that are requested at a time.
+   */
+  static final int REQUEST_SIZE = 256;
+
+  private final Predicate<S> sourceFilter;
+
+  private final Function<S, T> converter;
+
+  private final Function<List<S>, List<T>> windowConverter;
+
+  private final Predicate<T> targetFilter;
+
+  private final Comparator<Candidate<S, T>> comparator;
+
+  private final boolean convertEagerly;
+
+  private final long from;
+
+  private final long to;
+
+  private final Function<Window<T>, R> finisher;
+
+  private final CompletableFuture<R> result = new CompletableFuture<>();
+
+  private final PriorityQueue<Candidate<S, T>> heap;
+
+  private final List<Candidate<S, T>> window = new ArrayList<>();
+
+  private Subscription subscription;
+
+  private long total;
+
+  private int outstanding;
+
+  private boolean done;
+
+  /**
+   * Instantiates a new page subscriber.
+   *
+   * @param sourceFilter the source filter
+   * @param converter the converter
+   * @param windowConverter the converter of the entries of the window, if they are not
+   *     converted before
+   * @param targetFilter the target filter (can be {@code null})
+   * @param comparator the comparator of the entries to sort ({@code null} if not sorted)
+   * @param sortSource specifies whether the source entries are sorted
+   * @param from the first position of the window (inclusive)
+   * @param to the last position of the window (exclusive)
+   * @param finisher creates the result of the window
+   */
+  PageSubscriber(
+      Predicate<S> sourceFilter,
+      Function<S, T> converter,
+      Function<List<S>, List<T>> windowConverter,
+      Predicate<T> targetFilter,
+      Comparator<Object> comparator,
+      boolean sortSource,
+      long from,
+      long to,
+      Function<Window<T>, R> finisher) {
+
+    this.sourceFilter = sourceFilter;
+    this.converter = converter;
+    this.windowConverter = windowConverter;
+    this.targetFilter = targetFilter;
+    this.convertEagerly = !Objects.isNull(targetFilter)
+        || !Objects.isNull(comparator) && !sortSource;
+    this.from = from;
+    this.to = to;
+    this.finisher = finisher;
+    if (Objects.isNull(comparator)) {
+      this.comparator = null;
+      this.heap = null;
+    } else {
+      Comparator<Candidate<S, T>> candidateComparator = (a, b) -> {
+        int result = comparator.compare(a.sortEntry(sortSource), b.sortEntry(sortSource));
+        return result != 0 ? result : Long.compare(a.position, b.position);
+      };
+      this.comparator = candidateComparator;
+      this.heap = new PriorityQueue<>(
+          (int) Math.min(to + 1, 1024), candidateComparator.reversed());
+    }
+  }
+
+  /**
+   * Gets the result, that is completed, when the publisher completes.
+   *
+   * @return the result
+   */
+  CompletableFuture<R> getResult() {
+    return result;
+  }
+
+  @Override
+  public void onSubscribe(Subscription subscription) {
+    if (!Objects.isNull(this.subscription)) {
+      subscription.cancel();
+      return;
+    }
+    this.subscription = subscription;
+    result.whenComplete((page, throwable) -> {
+      if (result.isCancelled()) {
+        subscription.cancel();
+      }
+    });
+    outstanding = REQUEST_SIZE;
+    subscription.request(REQUEST_SIZE);
+  }
+
+  @Override
+  public void onNext(S item) {
+    if (done) {
+      return;
+    }
+    try {
+      accept(item);
+    } catch (RuntimeException e) {
+      done = true;
+      subscription.cancel();
+      result.completeExceptionally(e);
+      return;
+    }
+    if (--outstanding == 0 && !result.isDone()) {
+      outstanding = REQUEST_SIZE;
+      subscription.request(REQUEST_SIZE);
+    }
+  }
+
+  private void accept(S item) {
+    if (!sourceFilter.test(item)) {
+      return;
+    }
+    T target = null;
+    if (convertEagerly) {
+      target = converter.apply(item);
+      if (!Objects.isNull(targetFilter) && !targetFilter.test(target)) {
+        return;
+      }
+    }
+    Candidate<S, T> candidate = new Candidate<>(item, target, total++);
+    if (Objects.isNull(heap)) {
+      if (candidate.position >= from && candidate.position < to) {
+        window.add(candidate);
+      }
+    } else if (heap.size() < to) {
+      heap.add(candidate);
+    } else if (comparator.compare(candidate, heap.peek()) < 0) {
+      heap.poll();
+      heap.add(candidate);
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    if (!done) {
+      done = true;
+      result.completeExceptionally(throwable);
+    }
+  }
+
+  @Override
+  public void onComplete() {
+    if (done) {
+      return;
+    }
+    done = true;
+    try {
+      List<Candidate<S, T>> candidates = window;
+      if (!Objects.isNull(heap)) {
+        candidates = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+          candidates.add(heap.poll());
+        }
+        Collections.reverse(candidates);
+        candidates = candidates.subList((int) Math.min(from, candidates.size()), candidates.size());
+      }
+      List<S> sources = new ArrayList<>(candidates.size());
+      List<T> targets = new ArrayList<>(candidates.size());
+      for (Candidate<S, T> candidate : candidates) {
+        sources.add(candidate.source);
+        targets.add(candidate.target);
+      }
+      if (!convertEagerly) {
+        targets = windowConverter.apply(sources);
+      }
+      result.complete(finisher.apply(new Window<>(sources, targets, total)));
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * The source and target entries of the window and the number of all entries.
+   *
+   * @param sources the source entries of the window
+   * @param targets the target entries of the window
+   * @param total the number of all entries
+   * @param <T> the target type
+   */
+  record Window<T>(List<?> sources, List<T> targets, long total) {
+
+  }
+
+  private record Candidate<S, T>(S source, T target, long position) {
+
+    Object sortEntry(boolean sortSource) {
+      return sortSource ? source : target;
+    }
+  }
+}
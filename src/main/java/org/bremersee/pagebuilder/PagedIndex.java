@@ -0,0 +1,268 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.OrderStatisticTree.Node;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * The paged index keeps its entries sorted by sort orders, so that any page is retrieved
+ * without sorting. It is an order statistic tree (a treap, whose nodes know the size of their
+ * subtree): an entry is inserted or removed in {@code O(log n)} and a page is retrieved in
+ * {@code O(log n + size)} together with the exact number of all entries. Equal entries keep
+ * the order, in which they were added.
+ *
+ * <p>To remove an entry in {@code O(log n)} regardless how many entries have the same sort
+ * values (or if the index is not sorted at all), the index keeps the position of every entry
+ * in a hash map by the equality of the entries; of equal entries the one, that was added
+ * first, is removed first. The entries must therefore implement {@code equals} and
+ * {@code hashCode}. The entry to remove may have other sort values than the added one (e.g. a
+ * freshly loaded copy of an entity, that is equal by its id), because the position is taken
+ * from the added entry. If an added entry was changed in place in a way, that changes its sort
+ * values, the entry is searched in {@code O(n)}; it should be updated with
+ * {@link #update(Object, Object)} instead.
+ *
+ * <p>The index can be used by many threads; the entries are read under a shared lock and
+ * changed under an exclusive lock. The iterator works on a snapshot of the entries.
+ *
+ * @param <T> the type of the entries
+ * @author Christian Bremer
+ * @see PageBuilder#sourceEntries(Iterable)
+ */
+public final class PagedIndex<T> implements Iterable<T> {
+
+  private final List<SortOrder> sort;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final OrderStatisticTree<T> tree;
+
+  private final Map<T, Deque<Node<T>>> nodes = new HashMap<>();
+
+  private long nextSequence;
+
+  /**
+   * Instantiates a new paged index.
+   *
+   * @param sort the sort orders (if there are none, the entries are kept in the order, in which
+   *     they were added)
+   */
+  public PagedIndex(List<SortOrder> sort) {
+    this.sort = ObjectUtils.isEmpty(sort)
+        ? Collections.emptyList()
+        : Collections.unmodifiableList(new ArrayList<>(sort));
+    this.tree = new OrderStatisticTree<>(this.sort.isEmpty()
+        ? null
+        : PageQuery.comparator(this.sort, null));
+  }
+
+  /**
+   * Gets the sort orders.
+   *
+   * @return the unmodifiable sort orders
+   */
+  public List<SortOrder> getSort() {
+    return sort;
+  }
+
+  /**
+   * Adds the given entry.
+   *
+   * @param entry the entry
+   */
+  public void add(T entry) {
+    lock.writeLock().lock();
+    try {
+      insert(entry, nextSequence++);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the given entries.
+   *
+   * @param entries the entries
+   */
+  public void addAll(Iterable<? extends T> entries) {
+    if (Objects.isNull(entries)) {
+      return;
+    }
+    lock.writeLock().lock();
+    try {
+      for (T entry : entries) {
+        insert(entry, nextSequence++);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes the given entry.
+   *
+   * @param entry the entry
+   * @return {@code true} if the entry was removed, otherwise {@code false}
+   */
+  public boolean remove(T entry) {
+    lock.writeLock().lock();
+    try {
+      return !Objects.isNull(delete(entry));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Replaces an entry. The new entry keeps the position of the old one among equal entries.
+   *
+   * @param before the entry with the old values
+   * @param after the entry with the new values
+   * @return {@code true} if the old entry was replaced, {@code false} if it was not found and
+   *     the new entry was added
+   */
+  public boolean update(T before, T after) {
+    lock.writeLock().lock();
+    try {
+      Node<T> removed = delete(before);
+      insert(after, Objects.isNull(removed) ? nextSequence++ : removed.sequence());
+      return !Objects.isNull(removed);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      tree.clear();
+      nodes.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of entries.
+   *
+   * @return the size
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return tree.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the entries at the positions {@code [from, to)}.
+   *
+   * @param from the first position (inclusive)
+   * @param to the last position (exclusive)
+   * @return the entries
+   */
+  public List<T> getRange(long from, long to) {
+    lock.readLock().lock();
+    try {
+      return tree.range(from, to);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the page of the given number and size. The page is unsorted, because the sort orders
+   * of the index are not the sort orders of a target type.
+   *
+   * @param number the page number
+   * @param size the page size
+   * @return the page
+   */
+  public Page<T> getPage(int number, int size) {
+    PageRequest pageable = PageRequest.of(number, size);
+    lock.readLock().lock();
+    try {
+      List<T> content = tree.range(pageable.getOffset(), pageable.getOffset() + size);
+      return new PageImpl<>(content, pageable, tree.size());
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns an iterator over a snapshot of the entries in their order.
+   *
+   * @return the iterator
+   */
+  @Override
+  public Iterator<T> iterator() {
+    return Collections.unmodifiableList(getRange(0L, Long.MAX_VALUE)).iterator();
+  }
+
+  private void insert(T entry, long sequence) {
+    nodes.computeIfAbsent(entry, key -> new ArrayDeque<>(1))
+        .addLast(tree.insert(entry, sequence));
+  }
+
+  /**
+   * Deletes the given entry. Its node is looked up by the equality of the entries and split off
+   * the tree by the added entry and its sequence without walking other entries.
+   *
+   * @param entry the entry
+   * @return the deleted node or {@code null}, if the entry was not found
+   */
+  private Node<T> delete(T entry) {
+    Deque<Node<T>> entryNodes = nodes.get(entry);
+    if (Objects.isNull(entryNodes)) {
+      return null;
+    }
+    Node<T> node = entryNodes.pollFirst();
+    if (entryNodes.isEmpty()) {
+      nodes.remove(entry);
+    }
+    return tree.remove(node) ? node : null;
+  }
+
+  @Override
+  public String toString() {
+    return "PagedIndex{"
+        + "sort=" + sort
+        + ", size=" + size()
+        + '}';
+  }
+
+}
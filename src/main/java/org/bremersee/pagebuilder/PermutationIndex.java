@@ -0,0 +1,314 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageSorter.IndexComparator;
+
+/**
+ * The permutation index holds the sorted permutations of a fixed list of source entries for a
+ * declared set of sort orders. A page query, that sorts the source entries by one of these sort
+ * orders or by their reversed direction with the default sort function, takes its page from
+ * the permutation without sorting; a source filter is applied while the permutation is walked.
+ * Equal entries keep the order of the source entries like in a fresh build, also in reversed
+ * direction.
+ *
+ * <p>The index is immutable and can be used by many threads. It iterates the source entries in
+ * their original order, so that any other page query treats it like a list.
+ *
+ * @param <S> the source type
+ * @author Christian Bremer
+ * @see PageBuilder#sourceEntries(Iterable)
+ */
+public final class PermutationIndex<S> implements Iterable<S> {
+
+  private final List<S> entries;
+
+  private final Map<List<SortOrder>, Order> orders;
+
+  private PermutationIndex(List<S> entries, Map<List<SortOrder>, Order> orders) {
+    this.entries = entries;
+    this.orders = orders;
+  }
+
+  /**
+   * Creates a new builder of a permutation index.
+   *
+   * @param <S> the source type
+   * @return the builder
+   */
+  public static <S> Builder<S> builder() {
+    return new Builder<>();
+  }
+
+  /**
+   * Gets the source entries.
+   *
+   * @return the unmodifiable source entries
+   */
+  public List<S> getEntries() {
+    return entries;
+  }
+
+  /**
+   * Gets the sort orders, that are served by the index, including the reversed ones.
+   *
+   * @return the unmodifiable sort orders
+   */
+  public Set<List<SortOrder>> getSorts() {
+    return Collections.unmodifiableSet(orders.keySet());
+  }
+
+  /**
+   * Gets the number of source entries.
+   *
+   * @return the size
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Gets the order of the given sort orders.
+   *
+   * @param sort the sort orders
+   * @return the order or {@code null}, if the sort orders are not served by the index
+   */
+  Order order(List<SortOrder> sort) {
+    return orders.get(sort);
+  }
+
+  @Override
+  public Iterator<S> iterator() {
+    return entries.iterator();
+  }
+
+  @Override
+  public String toString() {
+    return "PermutationIndex{"
+        + "size=" + size()
+        + ", sorts=" + orders.keySet()
+        + '}';
+  }
+
+  private static List<SortOrder> reversed(List<SortOrder> sort) {
+    return sort.stream()
+        .map(sortOrder -> new SortOrder(
+            sortOrder.getField(),
+            !sortOrder.isAsc(),
+            sortOrder.isIgnoreCase(),
+            !sortOrder.isNullIsFirst()))
+        .toList();
+  }
+
+  /**
+   * The builder of a permutation index.
+   *
+   * @param <S> the source type
+   */
+  public static final class Builder<S> {
+
+    private final List<S> entries = new ArrayList<>();
+
+    private final List<List<SortOrder>> sorts = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Sets the source entries.
+     *
+     * @param entries the source entries
+     * @return the builder
+     */
+    public Builder<S> sourceEntries(Collection<? extends S> entries) {
+      if (!Objects.isNull(entries)) {
+        this.entries.clear();
+        this.entries.addAll(entries);
+      }
+      return this;
+    }
+
+    /**
+     * Adds sort orders, whose permutation is precomputed. The reversed direction is served by
+     * the same permutation.
+     *
+     * @param sort the sort orders
+     * @return the builder
+     */
+    public Builder<S> sort(List<SortOrder> sort) {
+      if (!Objects.isNull(sort) && !sort.isEmpty()) {
+        this.sorts.add(List.copyOf(sort));
+      }
+      return this;
+    }
+
+    /**
+     * Adds sort orders, whose permutation is precomputed.
+     *
+     * @param sort the sort orders
+     * @return the builder
+     */
+    public Builder<S> sort(SortOrder... sort) {
+      return Objects.isNull(sort) ? this : sort(List.of(sort));
+    }
+
+    /**
+     * Builds the permutation index by sorting the source entries once for every sort orders.
+     *
+     * @return the permutation index
+     */
+    public PermutationIndex<S> build() {
+      List<S> source = Collections.unmodifiableList(new ArrayList<>(entries));
+      Map<List<SortOrder>, Order> orders = new LinkedHashMap<>();
+      for (List<SortOrder> sort : sorts) {
+        if (!orders.containsKey(sort)) {
+          int[] permutation = permutation(source, sort);
+          BitSet ties = ties(source, sort, permutation);
+          orders.put(sort, new Order(permutation, ties, false));
+          orders.putIfAbsent(reversed(sort), new Order(permutation, ties, true));
+        }
+      }
+      return new PermutationIndex<>(source, orders);
+    }
+
+    private static int[] permutation(List<?> source, List<SortOrder> sort) {
+      return PageSorter.sortedWindow(source.size(), comparator(source, sort), 0, source.size());
+    }
+
+    /**
+     * Marks the positions of the permutation, whose entry is equal to the entry at the next
+     * position.
+     */
+    private static BitSet ties(List<?> source, List<SortOrder> sort, int[] permutation) {
+      IndexComparator comparator = comparator(source, sort);
+      BitSet ties = new BitSet(permutation.length);
+      for (int position = 0; position < permutation.length - 1; position++) {
+        if (comparator.compare(permutation[position], permutation[position + 1]) == 0) {
+          ties.set(position);
+        }
+      }
+      return ties;
+    }
+
+    private static IndexComparator comparator(List<?> source, List<SortOrder> sort) {
+      SortKeys sortKeys = SortKeys.extract(source, sort, null, false);
+      if (!Objects.isNull(sortKeys)) {
+        return sortKeys;
+      }
+      Comparator<Object> comparator = PageQuery.comparator(sort, null);
+      return (i, j) -> comparator.compare(source.get(i), source.get(j));
+    }
+  }
+
+  /**
+   * The order of the source entries by sort orders: the sorted permutation of the indexes of
+   * the source entries, which is walked backwards for the reversed direction. Equal entries
+   * (marked by the ties) are then walked forwards, so that they keep the source order.
+   */
+  static final class Order {
+
+    private final int[] permutation;
+
+    private final BitSet ties;
+
+    private final boolean reversed;
+
+    private Order(int[] permutation, BitSet ties, boolean reversed) {
+      this.permutation = permutation;
+      this.ties = ties;
+      this.reversed = reversed;
+    }
+
+    /**
+     * Returns the indexes of the source entries in sorted order starting at the given position.
+     *
+     * @param from the position of the first index
+     * @return the indexes
+     */
+    PrimitiveIterator.OfInt indexes(long from) {
+      final int size = permutation.length;
+      final int start = (int) Math.min(Math.max(from, 0L), size);
+      if (!reversed) {
+        return new PrimitiveIterator.OfInt() {
+          private int position = start;
+
+          @Override
+          public boolean hasNext() {
+            return position < size;
+          }
+
+          @Override
+          public int nextInt() {
+            if (position >= size) {
+              throw new NoSuchElementException();
+            }
+            return permutation[position++];
+          }
+        };
+      }
+      return new PrimitiveIterator.OfInt() {
+        private int position = start;
+
+        private int runEnd;
+
+        private int cursor = position < size ? locate(size - 1 - position) : 0;
+
+        /**
+         * Finds the run of equal entries, that contains the given position of the permutation,
+         * and returns the position of the permutation, that is the next one in reversed order.
+         */
+        private int locate(int forwardPosition) {
+          int runStart = ties.previousClearBit(forwardPosition - 1) + 1;
+          runEnd = ties.nextClearBit(forwardPosition) + 1;
+          return runStart + (position - (size - runEnd));
+        }
+
+        @Override
+        public boolean hasNext() {
+          return position < size;
+        }
+
+        @Override
+        public int nextInt() {
+          if (position >= size) {
+            throw new NoSuchElementException();
+          }
+          int index = permutation[cursor++];
+          position++;
+          if (cursor == runEnd && position < size) {
+            cursor = locate(size - 1 - position);
+          }
+          return index;
+        }
+      };
+    }
+  }
+}
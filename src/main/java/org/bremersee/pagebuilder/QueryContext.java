@@ -0,0 +1,693 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static java.util.Objects.requireNonNullElse;
+
+import java.text.Collator;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.comparator.spring.mapper.SortMapper;
+import org.bremersee.pagebuilder.PageBuilder.SortStrategy;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.bremersee.pagebuilder.PageSorter.IndexComparator;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * The query context is the compiled query specification, that is shared by the executors of a
+ * page query: it holds the specification and what is built from it only once (the comparator,
+ * the keyset and the converters) and the operations, that all executors use to filter, convert
+ * and sort the entries.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+final class QueryContext<S, T> {
+
+  private final QuerySpec<S, T> spec;
+
+  private final Predicate<S> sourceFilter;
+
+  private final Function<S, T> converter;
+
+  private final List<SortOrder> sort;
+
+  private final SortTarget sortTarget;
+
+  private final Comparator<Object> comparator;
+
+  private final Collator collator;
+
+  private final Keyset keyset;
+
+  private final ConcurrentConverter<S, T> concurrentConverter;
+
+  private final BatchConverter<S, T> batchConverter;
+
+  private final ResultCache.Key resultKey;
+
+  /**
+   * Instantiates a new query context.
+   *
+   * @param spec the specification of the query
+   * @param comparator the comparator of a query with the same sorting options ({@code null}
+   *     builds it from the specification)
+   * @throws IllegalStateException if there is a keyset or a continuation token, but no sort
+   *     orders or a custom sort function
+   * @throws IllegalArgumentException if the continuation token is invalid
+   */
+  QueryContext(QuerySpec<S, T> spec, Comparator<Object> comparator) {
+    final QuerySpec.Paging paging = spec.paging();
+    final QuerySpec.Sorting sorting = spec.sorting();
+    final QuerySpec.Conversion<S, T> conversion = spec.conversion();
+    final QuerySpec.Caching caching = spec.caching();
+
+    this.spec = spec;
+    this.sourceFilter = requireNonNullElse(spec.filters().sourceFilter(), sourceEntry -> true);
+    this.batchConverter = batchConverter(
+        conversion.batchFunction(),
+        conversion.batchSize(),
+        conversion.converterExecutor(),
+        conversion.converterConcurrency(),
+        paging.pageSize());
+    this.converter = Objects.isNull(batchConverter)
+        ? conversion.converter()
+        : batchConverter::convertOne;
+    this.concurrentConverter = Objects.isNull(conversion.converterExecutor())
+        || conversion.converterConcurrency() < 2
+        || !Objects.isNull(batchConverter)
+        ? null
+        : new ConcurrentConverter<>(
+            converter, conversion.converterExecutor(), conversion.converterConcurrency());
+    this.sort = ObjectUtils.isEmpty(sorting.sort())
+        ? Collections.emptyList()
+        : Collections.unmodifiableList(new ArrayList<>(sorting.sort()));
+    this.sortTarget = this.sort.isEmpty() ? null : sorting.sortTarget();
+    if (this.sort.isEmpty()) {
+      this.comparator = null;
+    } else if (!Objects.isNull(comparator)) {
+      this.comparator = comparator;
+    } else if (Objects.isNull(sorting.comparatorCache())) {
+      this.comparator = PageQuery.comparator(this.sort, sorting.sortFn());
+    } else {
+      this.comparator = sorting.comparatorCache().get(
+          this.sort,
+          this.sortTarget,
+          sorting.sortFn(),
+          () -> PageQuery.comparator(this.sort, sorting.sortFn()));
+    }
+    this.collator = Objects.isNull(sorting.collator())
+        ? null
+        : (Collator) sorting.collator().clone();
+    this.keyset = keyset(paging.keysetValues(), paging.continuationToken());
+    this.resultKey = Objects.isNull(caching.resultCache())
+        ? null
+        : ResultCache.key(
+            caching.resultQueryKey(), caching.sourceVersion(), sort, sortTarget, sortFn());
+  }
+
+  /**
+   * Creates the batch converter.
+   *
+   * <p>The batch converter converts the entries of a page or window in batches. Where entries
+   * are converted one by one as they arrive, each entry is converted as batch of one entry (one
+   * call of the batch function per entry): by the page subscriber, if the target entries are
+   * filtered or sorted, and by the sorted result for every change, if the target entries are
+   * filtered or sorted.
+   *
+   * @param batchFunction the converter of batches (can be {@code null})
+   * @param batchSize the maximum size of a batch ({@code null} is the page size)
+   * @param executor the executor of the batches (can be {@code null})
+   * @param concurrency the maximum number of batches, that are converted at the same time
+   * @param pageSize the page size, that is the batch size, if there is no batch size
+   * @param <S> the source type
+   * @param <T> the target type
+   * @return the batch converter or {@code null}, if there is no batch function
+   */
+  private static <S, T> BatchConverter<S, T> batchConverter(
+      Function<List<S>, List<T>> batchFunction,
+      Integer batchSize,
+      Executor executor,
+      int concurrency,
+      Integer pageSize) {
+    if (Objects.isNull(batchFunction)) {
+      return null;
+    }
+    return new BatchConverter<>(
+        batchFunction,
+        requireNonNullElse(batchSize, requireNonNullElse(pageSize, Integer.MAX_VALUE)),
+        executor,
+        concurrency);
+  }
+
+  private Keyset keyset(List<?> keysetValues, String continuationToken) {
+    if (Objects.isNull(keysetValues) && Objects.isNull(continuationToken)) {
+      return null;
+    }
+    if (sort.isEmpty()) {
+      throw new IllegalStateException("Keyset pagination needs sort orders.");
+    }
+    if (!Objects.isNull(sortFn())) {
+      throw new IllegalStateException("Keyset pagination needs the default sort function.");
+    }
+    List<?> values = Objects.isNull(continuationToken)
+        ? keysetValues
+        : Keyset.decode(sort, continuationToken);
+    return new Keyset(sort, values, collator);
+  }
+
+  /**
+   * Returns the context of the given specification, that has the same sorting options, so
+   * that the comparator is not built again.
+   *
+   * @param spec the specification with the same sorting options
+   * @return the query context
+   */
+  QueryContext<S, T> with(QuerySpec<S, T> spec) {
+    return new QueryContext<>(spec, comparator);
+  }
+
+  QuerySpec<S, T> spec() {
+    return spec;
+  }
+
+  Predicate<S> sourceFilter() {
+    return sourceFilter;
+  }
+
+  boolean isSourceFiltered() {
+    return !Objects.isNull(spec.filters().sourceFilter());
+  }
+
+  Function<S, T> converter() {
+    return converter;
+  }
+
+  Predicate<T> targetFilter() {
+    return spec.filters().targetFilter();
+  }
+
+  Integer pageNumber() {
+    return spec.paging().pageNumber();
+  }
+
+  Integer pageSize() {
+    return spec.paging().pageSize();
+  }
+
+  List<SortOrder> sort() {
+    return sort;
+  }
+
+  SortTarget sortTarget() {
+    return sortTarget;
+  }
+
+  Function<SortOrder, Comparator<?>> sortFn() {
+    return spec.sorting().sortFn();
+  }
+
+  Collator collator() {
+    return collator;
+  }
+
+  boolean isParallel() {
+    return spec.execution().parallel();
+  }
+
+  Keyset keyset() {
+    return keyset;
+  }
+
+  ResultCache resultCache() {
+    return spec.caching().resultCache();
+  }
+
+  CursorSessions cursorSessions() {
+    return spec.paging().cursorSessions();
+  }
+
+  String cursor() {
+    return spec.paging().cursor();
+  }
+
+  /**
+   * Determines whether the entries are sorted.
+   *
+   * @return {@code true} if there are sort orders, otherwise {@code false}
+   */
+  boolean isSorted() {
+    return !sort.isEmpty();
+  }
+
+  /**
+   * Determines whether the source entries are sorted.
+   *
+   * @return {@code true} if the entries are sorted by the source entries, otherwise
+   *     {@code false}
+   */
+  boolean isSortSource() {
+    return isSorted() && SortTarget.SOURCE_ENTRIES.equals(sortTarget);
+  }
+
+  /**
+   * Determines whether the sorted entries are spilled to disk.
+   *
+   * @return {@code true} if the entries are sorted and there is an entry codec, otherwise
+   *     {@code false}
+   */
+  boolean isSpilled() {
+    return isSorted() && !Objects.isNull(spec.execution().entryCodec());
+  }
+
+  /**
+   * Gets the sort of the pages. The pages are only sorted, if the target entries are sorted.
+   *
+   * @return the sort of the pages
+   */
+  Sort pageSort() {
+    return isSorted() && !isSortSource() ? SortMapper.toSort(sort) : Sort.unsorted();
+  }
+
+  /**
+   * Creates the pageable of the given page number, the page size and the sort of the pages.
+   *
+   * @param number the page number ({@code null} is the first page)
+   * @return the pageable
+   */
+  Pageable pageable(Integer number) {
+    return PageRequest.of(
+        requireNonNullElse(number, 0),
+        requireNonNullElse(pageSize(), Integer.MAX_VALUE),
+        pageSort());
+  }
+
+  /**
+   * Returns the source entries, that pass the source filter, in parallel, if requested.
+   *
+   * @param sourceEntries the source entries (can be {@code null})
+   * @return the filtered source entries
+   */
+  @SuppressWarnings("unchecked")
+  Stream<S> sourceStream(Stream<? extends S> sourceEntries) {
+    final Stream<S> sourceStream = (Stream<S>) requireNonNullElse(sourceEntries, Stream.empty());
+    return (isParallel() ? sourceStream.parallel() : sourceStream).filter(sourceFilter);
+  }
+
+  /**
+   * Runs the given task in the fork join pool of the caller, if there is one and the current
+   * thread is not already a worker of it, otherwise in the current thread.
+   *
+   * @param task the task
+   * @param <R> the type of the result
+   * @return the result
+   */
+  <R> R inPool(Supplier<R> task) {
+    final ForkJoinPool pool = spec.execution().pool();
+    if (Objects.isNull(pool) || ForkJoinTask.getPool() == pool) {
+      return task.get();
+    }
+    return pool.submit(task::get).join();
+  }
+
+  /**
+   * Determines whether the converter must only be applied to the entries of the page. This is
+   * the case, if the target entries are neither filtered nor sorted.
+   *
+   * @return {@code true} if only the entries of the page must be converted, otherwise
+   *     {@code false}
+   */
+  boolean isConversionLazy() {
+    return Objects.isNull(targetFilter())
+        && (sort.isEmpty() || SortTarget.SOURCE_ENTRIES.equals(sortTarget));
+  }
+
+  /**
+   * Converts the given source entries with the batch converter or the concurrent converter, if
+   * there is one.
+   *
+   * @param sourceEntries the source entries
+   * @return the target entries in the same order
+   */
+  List<T> convert(List<S> sourceEntries) {
+    if (!Objects.isNull(batchConverter)) {
+      return batchConverter.convert(sourceEntries);
+    }
+    if (!Objects.isNull(concurrentConverter)) {
+      return concurrentConverter.convert(sourceEntries);
+    }
+    return (isParallel() ? sourceEntries.parallelStream() : sourceEntries.stream())
+        .map(converter)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Converts the given source entries with the batch converter batch by batch, if there is
+   * one.
+   *
+   * @param sourceEntries the source entries
+   * @return the target entries in the same order
+   */
+  Stream<T> convert(Stream<S> sourceEntries) {
+    return Objects.isNull(batchConverter)
+        ? sourceEntries.map(converter)
+        : batchConverter.convert(sourceEntries);
+  }
+
+  /**
+   * Converts and filters all source entries. The source entries are only kept, if they are
+   * sorted.
+   *
+   * @param sourceStream the filtered source entries
+   * @param targetFilter the target filter (can be {@code null})
+   * @param sortSource specifies whether the source entries are sorted
+   * @return the source entries (if they are sorted) and the target entries
+   */
+  Converted<S, T> convertAll(
+      Stream<S> sourceStream,
+      Predicate<T> targetFilter,
+      boolean sortSource) {
+
+    final Predicate<T> survivorFilter = targetFilter;
+    final List<S> source;
+    final List<T> target;
+    if (isParallel() && Objects.isNull(batchConverter)) {
+      final List<Entry<S, T>> entries = sourceStream
+          .map(sourceEntry -> new SimpleImmutableEntry<>(sourceEntry, converter.apply(sourceEntry)))
+          .filter(entry -> Objects.isNull(survivorFilter) || survivorFilter.test(entry.getValue()))
+          .collect(Collectors.toList());
+      source = sortSource
+          ? entries.stream().map(Entry::getKey).collect(Collectors.toList())
+          : List.of();
+      target = entries.stream().map(Entry::getValue).collect(Collectors.toList());
+    } else if (!Objects.isNull(concurrentConverter) || !Objects.isNull(batchConverter)) {
+      final List<S> allSourceEntries = sourceStream.collect(Collectors.toList());
+      final List<T> allTargetEntries = convert(allSourceEntries);
+      source = new ArrayList<>();
+      target = new ArrayList<>();
+      for (int i = 0; i < allTargetEntries.size(); i++) {
+        T targetEntry = allTargetEntries.get(i);
+        if (Objects.isNull(survivorFilter) || survivorFilter.test(targetEntry)) {
+          if (sortSource) {
+            source.add(allSourceEntries.get(i));
+          }
+          target.add(targetEntry);
+        }
+      }
+    } else {
+      source = new ArrayList<>();
+      target = new ArrayList<>();
+      sourceStream.forEachOrdered(sourceEntry -> {
+        T targetEntry = converter.apply(sourceEntry);
+        if (Objects.isNull(survivorFilter) || survivorFilter.test(targetEntry)) {
+          if (sortSource) {
+            source.add(sourceEntry);
+          }
+          target.add(targetEntry);
+        }
+      });
+    }
+    return new Converted<>(source, target);
+  }
+
+  /**
+   * Returns the entries to sort, if they are spilled to disk: the source entries, that pass the
+   * target filter, or the filtered target entries.
+   *
+   * @param sourceStream the filtered source entries
+   * @param targetFilter the target filter (can be {@code null})
+   * @param sortSource specifies whether the source entries are sorted
+   * @return the entries to sort
+   */
+  Stream<?> sortStream(
+      Stream<S> sourceStream,
+      Predicate<T> targetFilter,
+      boolean sortSource) {
+
+    if (sortSource && Objects.isNull(targetFilter)) {
+      return sourceStream;
+    }
+    if (sortSource && !Objects.isNull(batchConverter)) {
+      return batchConverter.convertEntries(sourceStream)
+          .filter(entry -> targetFilter.test(entry.getValue()))
+          .map(Entry::getKey);
+    }
+    if (sortSource) {
+      return sourceStream
+          .filter(sourceEntry -> targetFilter.test(converter.apply(sourceEntry)));
+    }
+    Stream<T> targetStream = convert(sourceStream);
+    return Objects.isNull(targetFilter)
+        ? targetStream
+        : targetStream.filter(targetFilter);
+  }
+
+  /**
+   * Creates the external sorter of the entries, that are spilled to disk.
+   *
+   * @return the external sorter
+   */
+  @SuppressWarnings("unchecked")
+  ExternalSorter<Object> externalSorter() {
+    final QuerySpec.Execution execution = spec.execution();
+    return new ExternalSorter<>(
+        (EntryCodec<Object>) execution.entryCodec(),
+        execution.maxEntriesInMemory(),
+        entryComparator(),
+        this::sortedWindow,
+        execution.spillDirectory(),
+        execution.maxFanIn());
+  }
+
+  /**
+   * Returns the comparator of single entries. It is the pre-built comparator, unless a collator
+   * is set and the default sort function is used; then a comparator is built, that compares
+   * strings with the collator and is therefore not thread safe.
+   *
+   * @return the comparator of the entries
+   */
+  Comparator<Object> entryComparator() {
+    return Objects.isNull(collator) || !Objects.isNull(sortFn())
+        ? comparator
+        : PageQuery.comparator(sort, sortOrder -> new AccessorComparator(sortOrder, collator));
+  }
+
+  /**
+   * Creates the comparator of the indexes of the given entries. If the sort strategy is not
+   * {@link SortStrategy#COMPARATOR} or a collator is set and the default sort function is used,
+   * the sort keys are extracted once, otherwise the pre-built comparator is used.
+   *
+   * @param sortEntries the entries to sort
+   * @param <E> the type of the entries
+   * @return the index comparator
+   */
+  private <E> IndexComparator indexComparator(List<E> sortEntries) {
+    final SortStrategy sortStrategy = spec.sorting().sortStrategy();
+    if ((!SortStrategy.COMPARATOR.equals(sortStrategy) || !Objects.isNull(collator))
+        && Objects.isNull(sortFn())) {
+      SortKeys sortKeys = SortKeys.extract(sortEntries, sort, collator, isParallel());
+      if (!Objects.isNull(sortKeys)) {
+        return sortKeys;
+      }
+    }
+    return (i, j) -> comparator.compare(sortEntries.get(i), sortEntries.get(j));
+  }
+
+  /**
+   * Returns the indexes of the sorted entries at the positions {@code [from, to)}.
+   *
+   * @param sortEntries the entries to sort
+   * @param from the first position (inclusive)
+   * @param to the last position (exclusive)
+   * @return the indexes of the entries in their order
+   */
+  int[] sortedWindow(List<?> sortEntries, long from, long to) {
+    if (SortStrategy.NORMALIZED_KEYS.equals(spec.sorting().sortStrategy())
+        && Objects.isNull(sortFn())) {
+      NormalizedKeys keys = NormalizedKeys.encode(sortEntries, sort, collator, isParallel());
+      if (!Objects.isNull(keys)) {
+        return keys.sortedWindow(from, to);
+      }
+    }
+    IndexComparator indexComparator = indexComparator(sortEntries);
+    return isParallel()
+        ? PageSorter.parallelSortedWindow(sortEntries.size(), indexComparator, from, to)
+        : PageSorter.sortedWindow(sortEntries.size(), indexComparator, from, to);
+  }
+
+  /**
+   * Returns the sorted entries at the positions {@code [from, to)} and the number of all
+   * entries.
+   *
+   * @param sourceStream the filtered source entries
+   * @param from the first position (inclusive)
+   * @param to the last position (exclusive)
+   * @return the range
+   */
+  Range range(Stream<S> sourceStream, long from, long to) {
+    final boolean sorted = isSorted();
+    final boolean sortSource = isSortSource();
+    if (isSpilled()) {
+      final ExternalSorter.Window<Object> window = externalSorter().sortedWindow(
+          sortStream(sourceStream, targetFilter(), sortSource).iterator(), from, to);
+      return new Range(window.entries(), !sortSource, window.total());
+    }
+    if (!sorted && !isParallel()) {
+      final List<Object> entries = new ArrayList<>();
+      final Iterator<?> iterator = isConversionLazy()
+          ? sourceStream.iterator()
+          : convert(sourceStream).filter(targetFilter()).iterator();
+      final long total = collectSlice(iterator, from, to - from, entries);
+      return new Range(entries, !isConversionLazy(), total);
+    }
+    if (isConversionLazy()) {
+      final List<S> source = sourceStream.collect(Collectors.toList());
+      final List<S> entries = sortSource
+          ? entriesOf(source, sortedWindow(source, from, to))
+          : entriesOfSlice(source, from, to);
+      return new Range(entries, false, source.size());
+    }
+    final Converted<S, T> converted = convertAll(sourceStream, targetFilter(), sortSource);
+    final List<T> target = converted.target();
+    final List<?> sortEntries = sortSource ? converted.source() : target;
+    final List<T> entries = sorted
+        ? entriesOf(target, sortedWindow(sortEntries, from, to))
+        : entriesOfSlice(target, from, to);
+    return new Range(entries, true, target.size());
+  }
+
+  /**
+   * Returns all sorted entries from the result cache or puts them into the result cache.
+   *
+   * @param sourceStream the filtered source entries
+   * @return the range of all entries
+   */
+  Range cachedRange(Stream<S> sourceStream) {
+    final ResultCache resultCache = resultCache();
+    if (resultCache.get(resultKey) instanceof Range range) {
+      return range;
+    }
+    final Range range = snapshot(sourceStream);
+    resultCache.put(resultKey, range, resultCache.weigh(range.entries()));
+    return range;
+  }
+
+  /**
+   * Returns all sorted entries as unmodifiable range, that can be shared between threads.
+   *
+   * @param sourceStream the filtered source entries
+   * @return the range of all entries
+   */
+  Range snapshot(Stream<S> sourceStream) {
+    final Range range = range(sourceStream, 0L, Long.MAX_VALUE);
+    return new Range(
+        Collections.unmodifiableList(range.entries()), range.converted(), range.total());
+  }
+
+  /**
+   * Returns the target entries of the given range at the positions
+   * {@code [offset, offset + size)}. The entries are converted, if they are source entries.
+   *
+   * @param range the range
+   * @param offset the position of the first entry in the range
+   * @param size the page size
+   * @return the target entries
+   */
+  @SuppressWarnings("unchecked")
+  List<T> content(Range range, long offset, int size) {
+    final List<?> entries = range.entries();
+    final List<?> pageEntries = entries.subList(
+        (int) Math.min(offset, entries.size()),
+        (int) Math.min(offset + size, entries.size()));
+    return range.converted()
+        ? new ArrayList<>((List<T>) pageEntries)
+        : convert((List<S>) pageEntries);
+  }
+
+  static <E> List<E> entriesOf(List<E> entries, int[] window) {
+    List<E> content = new ArrayList<>(window.length);
+    for (int index : window) {
+      content.add(entries.get(index));
+    }
+    return content;
+  }
+
+  static <E> List<E> entriesOfSlice(List<E> entries, long from, long to) {
+    return entries.stream()
+        .skip(from)
+        .limit(to - from)
+        .collect(Collectors.toList());
+  }
+
+  static <E> long collectSlice(
+      Iterator<? extends E> entries,
+      long offset,
+      long limit,
+      List<E> slice) {
+    long count = 0;
+    while (entries.hasNext()) {
+      E entry = entries.next();
+      if (count >= offset && slice.size() < limit) {
+        slice.add(entry);
+      }
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * The sorted entries of a range of positions.
+   *
+   * @param entries the source entries, if they are not converted, otherwise the target entries
+   * @param converted specifies whether the entries are converted
+   * @param total the number of all entries
+   */
+  record Range(List<?> entries, boolean converted, long total) {
+
+  }
+
+  /**
+   * The converted entries.
+   *
+   * @param source the source entries, if they are sorted, otherwise an empty list
+   * @param target the target entries
+   * @param <S> the source type
+   * @param <T> the target type
+   */
+  record Converted<S, T>(List<S> source, List<T> target) {
+
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.pagebuilder;
+
+import java.nio.file.Path;
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortStrategy;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+
+/**
+ * The query specification holds the options of a page query, that are collected by the page
+ * builder, grouped by concern. It is the only place, where an option is kept: a new option is
+ * added to its group, and a page query with another page, keyset or cursor is created from a
+ * copy of the specification, so that neither the page query nor its executors change.
+ *
+ * @param filters the filters
+ * @param paging the paging options
+ * @param sorting the sorting options
+ * @param conversion the conversion options
+ * @param execution the execution options
+ * @param caching the caching options
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ */
+record QuerySpec<S, T>(
+    Filters<S, T> filters,
+    Paging paging,
+    Sorting sorting,
+    Conversion<S, T> conversion,
+    Execution execution,
+    Caching caching) {
+
+  /**
+   * Returns a copy of the specification with the given paging options.
+   *
+   * @param paging the paging options
+   * @return the specification
+   */
+  QuerySpec<S, T> withPaging(Paging paging) {
+    return new QuerySpec<>(filters, paging, sorting, conversion, execution, caching);
+  }
+
+  /**
+   * The filters.
+   *
+   * @param sourceFilter the source filter (can be {@code null})
+   * @param targetFilter the target filter (can be {@code null})
+   * @param <S> the source type
+   * @param <T> the target type
+   */
+  record Filters<S, T>(Predicate<S> sourceFilter, Predicate<T> targetFilter) {
+
+  }
+
+  /**
+   * The paging options.
+   *
+   * @param pageNumber the page number (can be {@code null})
+   * @param pageSize the page size (can be {@code null})
+   * @param keysetValues the values of the sort orders of the last entry (can be {@code null})
+   * @param continuationToken the continuation token of the last page (can be {@code null})
+   * @param cursorSessions the sessions of the cursor pagination (can be {@code null})
+   * @param cursor the cursor of the snapshot (can be {@code null})
+   */
+  record Paging(
+      Integer pageNumber,
+      Integer pageSize,
+      List<?> keysetValues,
+      String continuationToken,
+      CursorSessions cursorSessions,
+      String cursor) {
+
+    /**
+     * Returns a copy of the paging options with the given page.
+     *
+     * @param pageNumber the page number
+     * @param pageSize the page size
+     * @return the paging options
+     */
+    Paging withPage(int pageNumber, int pageSize) {
+      return new Paging(
+          pageNumber, pageSize, keysetValues, continuationToken, cursorSessions, cursor);
+    }
+
+    /**
+     * Returns a copy of the paging options with the given continuation token instead of the
+     * keyset values.
+     *
+     * @param continuationToken the continuation token
+     * @return the paging options
+     */
+    Paging withContinuationToken(String continuationToken) {
+      return new Paging(pageNumber, pageSize, null, continuationToken, cursorSessions, cursor);
+    }
+
+    /**
+     * Returns a copy of the paging options with the given cursor.
+     *
+     * @param cursor the cursor
+     * @return the paging options
+     */
+    Paging withCursor(String cursor) {
+      return new Paging(
+          pageNumber, pageSize, keysetValues, continuationToken, cursorSessions, cursor);
+    }
+  }
+
+  /**
+   * The sorting options.
+   *
+   * @param sort the sort orders (can be {@code null})
+   * @param sortTarget the sort target (can be {@code null})
+   * @param sortFn the sort function of the sort target ({@code null} is the default one)
+   * @param comparatorCache the cache of the comparator (can be {@code null})
+   * @param sortStrategy the sort strategy
+   * @param collator the collator (can be {@code null})
+   */
+  record Sorting(
+      List<SortOrder> sort,
+      SortTarget sortTarget,
+      Function<SortOrder, Comparator<?>> sortFn,
+      ComparatorCache comparatorCache,
+      SortStrategy sortStrategy,
+      Collator collator) {
+
+  }
+
+  /**
+   * The conversion options.
+   *
+   * @param converter the converter
+   * @param converterExecutor the executor of the converter (can be {@code null})
+   * @param converterConcurrency the maximum number of entries, that are converted at the same
+   *     time by the executor
+   * @param batchFunction the converter of batches, that replaces the converter (can be
+   *     {@code null})
+   * @param batchSize the maximum size of a batch ({@code null} is the page size)
+   * @param <S> the source type
+   * @param <T> the target type
+   */
+  record Conversion<S, T>(
+      Function<S, T> converter,
+      Executor converterExecutor,
+      int converterConcurrency,
+      Function<List<S>, List<T>> batchFunction,
+      Integer batchSize) {
+
+  }
+
+  /**
+   * The execution options.
+   *
+   * @param parallel specifies whether the query is executed in parallel
+   * @param pool the fork join pool of the caller (can be {@code null})
+   * @param entryCodec the codec of the entries to sort, if they are spilled to disk (can be
+   *     {@code null})
+   * @param maxEntriesInMemory the maximum number of entries to sort in memory, if they are
+   *     spilled to disk
+   * @param spillDirectory the directory of the temporary files (can be {@code null})
+   * @param maxFanIn the maximum number of spilled runs, that are merged at the same time
+   */
+  record Execution(
+      boolean parallel,
+      ForkJoinPool pool,
+      EntryCodec<?> entryCodec,
+      int maxEntriesInMemory,
+      Path spillDirectory,
+      int maxFanIn) {
+
+  }
+
+  /**
+   * The caching options.
+   *
+   * @param resultCache the cache of the sorted entries (can be {@code null})
+   * @param resultQueryKey the key of the query in the result cache
+   * @param sourceVersion the version of the source entries in the result cache
+   */
+  record Caching(ResultCache resultCache, Object resultQueryKey, Object sourceVersion) {
+
+  }
+}
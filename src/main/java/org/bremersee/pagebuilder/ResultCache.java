@@ -0,0 +1,449 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+
+/**
+ * The result cache holds the sorted and filtered entries of a query, so that the pages of the
+ * same query are sliced from the cached entries instead of filtering, converting and sorting
+ * all source entries again. A result is identified by a query key, that is supplied by the
+ * caller and must identify the source and the filters, and a version of the source, which must
+ * be changed, if the source entries change; the sort orders, the sort target and the sort
+ * function are added to the key.
+ *
+ * <p>The weight of a result is the sum of the weights of its entries, that are given by the
+ * entry weigher (e.g. an estimated size in bytes); without entry weigher every entry weighs
+ * {@code 1}, so the weight is the number of entries. The cache is bounded by the number of
+ * results and by the sum of their weights; a result, that is heavier than the maximum weight, is
+ * not cached. Results expire after the time to live, that starts, when they are put into the
+ * cache. Expired results are removed on every access of the cache, before the least recently
+ * used results are evicted, so that they never displace live results. The results are kept in
+ * the order of their access and in the order of their creation, so that both is done without
+ * scanning the cache.
+ *
+ * <p>Another version of a query replaces the cached one. If both versions are comparable (e.g.
+ * modification counters or timestamps), an older version neither replaces nor is cached next to
+ * a newer one, so that a slow request cannot evict the newer result. Versions, that are not
+ * comparable, always replace each other. The cache can be used by many threads.
+ *
+ * @author Christian Bremer
+ * @see PageBuilder#resultCache(ResultCache, Object, Object)
+ */
+public final class ResultCache {
+
+  private final int maximumSize;
+
+  private final long maximumWeight;
+
+  private final long timeToLiveNanos;
+
+  private final ToLongFunction<Object> entryWeigher;
+
+  private final LongSupplier ticker;
+
+  private final LinkedHashMap<Key, Node> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final LinkedHashMap<Key, Node> expiry = new LinkedHashMap<>();
+
+  private final Map<Object, Set<Key>> queries = new HashMap<>();
+
+  private final LongAdder hitCount = new LongAdder();
+
+  private final LongAdder missCount = new LongAdder();
+
+  private final LongAdder evictionCount = new LongAdder();
+
+  private long weight;
+
+  /**
+   * Instantiates a new result cache.
+   *
+   * @param maximumSize the maximum number of results
+   * @param maximumWeight the maximum number of all cached entries
+   * @param timeToLive the time to live of a result ({@code null} means forever)
+   */
+  public ResultCache(int maximumSize, long maximumWeight, Duration timeToLive) {
+    this(maximumSize, maximumWeight, timeToLive, null, System::nanoTime);
+  }
+
+  /**
+   * Instantiates a new result cache, whose weight is the sum of the weights of the cached
+   * entries.
+   *
+   * @param maximumSize the maximum number of results
+   * @param maximumWeight the maximum sum of the weights of all cached entries
+   * @param timeToLive the time to live of a result ({@code null} means forever)
+   * @param entryWeigher the weigher of a cached entry, e.g. its estimated size in bytes
+   *     ({@code null} weighs every entry with {@code 1})
+   */
+  public ResultCache(
+      int maximumSize,
+      long maximumWeight,
+      Duration timeToLive,
+      ToLongFunction<Object> entryWeigher) {
+    this(maximumSize, maximumWeight, timeToLive, entryWeigher, System::nanoTime);
+  }
+
+  /**
+   * Instantiates a new result cache.
+   *
+   * @param maximumSize the maximum number of results
+   * @param maximumWeight the maximum number of all cached entries
+   * @param timeToLive the time to live of a result ({@code null} means forever)
+   * @param ticker the ticker, that returns the current time in nanoseconds
+   */
+  ResultCache(int maximumSize, long maximumWeight, Duration timeToLive, LongSupplier ticker) {
+    this(maximumSize, maximumWeight, timeToLive, null, ticker);
+  }
+
+  /**
+   * Instantiates a new result cache.
+   *
+   * @param maximumSize the maximum number of results
+   * @param maximumWeight the maximum sum of the weights of all cached entries
+   * @param timeToLive the time to live of a result ({@code null} means forever)
+   * @param entryWeigher the weigher of a cached entry ({@code null} weighs every entry with
+   *     {@code 1})
+   * @param ticker the ticker, that returns the current time in nanoseconds
+   */
+  ResultCache(
+      int maximumSize,
+      long maximumWeight,
+      Duration timeToLive,
+      ToLongFunction<Object> entryWeigher,
+      LongSupplier ticker) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("Maximum size must be greater than zero.");
+    }
+    if (maximumWeight < 1L) {
+      throw new IllegalArgumentException("Maximum weight must be greater than zero.");
+    }
+    if (!Objects.isNull(timeToLive) && (timeToLive.isNegative() || timeToLive.isZero())) {
+      throw new IllegalArgumentException("Time to live must be positive.");
+    }
+    this.maximumSize = maximumSize;
+    this.maximumWeight = maximumWeight;
+    this.timeToLiveNanos = Objects.isNull(timeToLive) ? Long.MAX_VALUE : timeToLive.toNanos();
+    this.entryWeigher = entryWeigher;
+    this.ticker = ticker;
+  }
+
+  /**
+   * Weighs the given entries with the entry weigher.
+   *
+   * @param entries the entries of a result
+   * @return the weight of the entries, the number of entries, if there is no entry weigher
+   */
+  long weigh(List<?> entries) {
+    if (Objects.isNull(entryWeigher)) {
+      return entries.size();
+    }
+    long sum = 0L;
+    for (Object entry : entries) {
+      sum += Math.max(0L, entryWeigher.applyAsLong(entry));
+    }
+    return sum;
+  }
+
+  /**
+   * Creates the key of a result.
+   *
+   * @param queryKey the query key
+   * @param version the version of the source (can be {@code null})
+   * @param sort the sort orders
+   * @param sortTarget the sort target (can be {@code null})
+   * @param sortFn the sort function ({@code null} is the default one)
+   * @return the key
+   */
+  static Key key(
+      Object queryKey,
+      Object version,
+      List<SortOrder> sort,
+      SortTarget sortTarget,
+      Function<SortOrder, Comparator<?>> sortFn) {
+    return new Key(queryKey, version, new ArrayList<>(sort), sortTarget, sortFn);
+  }
+
+  /**
+   * Gets the result of the given key.
+   *
+   * @param key the key
+   * @return the result or {@code null}, if there is no result or it is expired
+   */
+  synchronized Object get(Key key) {
+    purge();
+    Node node = cache.get(key);
+    if (Objects.isNull(node)) {
+      missCount.increment();
+      return null;
+    }
+    hitCount.increment();
+    return node.value;
+  }
+
+  /**
+   * Puts the result of the given key into the cache. Results of other versions of the same
+   * query are removed, unless one of them is newer than the version of the key.
+   *
+   * @param key the key
+   * @param value the result
+   * @param weight the weight of the result
+   * @return {@code true} if the result was put into the cache, {@code false} if it is heavier
+   *     than the maximum weight or a newer version of the query is cached
+   */
+  synchronized boolean put(Key key, Object value, long weight) {
+    purge();
+    Set<Key> versions = queries.getOrDefault(key.queryKey(), Set.of());
+    for (Key other : versions) {
+      if (other.isOtherVersionOf(key) && isNewer(other.version(), key.version())) {
+        return false;
+      }
+    }
+    for (Key other : new ArrayList<>(versions)) {
+      if (other.isOtherVersionOf(key)) {
+        remove(other);
+      }
+    }
+    if (weight > maximumWeight) {
+      return false;
+    }
+    remove(key);
+    Node node = new Node(value, weight, ticker.getAsLong());
+    cache.put(key, node);
+    expiry.put(key, node);
+    queries.computeIfAbsent(key.queryKey(), queryKey -> new LinkedHashSet<>()).add(key);
+    this.weight += weight;
+    evict();
+    return true;
+  }
+
+  /**
+   * Determines whether the given version is newer than the other one. Only versions of the
+   * same comparable type are ordered.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static boolean isNewer(Object version, Object other) {
+    return version instanceof Comparable comparable
+        && !Objects.isNull(other)
+        && version.getClass() == other.getClass()
+        && comparable.compareTo(other) > 0;
+  }
+
+  /**
+   * Removes the expired results. They are the eldest ones in the order of creation.
+   */
+  private void purge() {
+    long now = ticker.getAsLong();
+    while (!expiry.isEmpty()) {
+      Map.Entry<Key, Node> eldest = expiry.entrySet().iterator().next();
+      if (now - eldest.getValue().created < timeToLiveNanos) {
+        return;
+      }
+      remove(eldest.getKey());
+      evictionCount.increment();
+    }
+  }
+
+  /**
+   * Evicts the least recently used results, until the cache is within its bounds.
+   */
+  private void evict() {
+    while (!cache.isEmpty() && (cache.size() > maximumSize || weight > maximumWeight)) {
+      remove(cache.keySet().iterator().next());
+      evictionCount.increment();
+    }
+  }
+
+  private void remove(Key key) {
+    Node node = cache.remove(key);
+    if (Objects.isNull(node)) {
+      return;
+    }
+    expiry.remove(key);
+    Set<Key> versions = queries.get(key.queryKey());
+    versions.remove(key);
+    if (versions.isEmpty()) {
+      queries.remove(key.queryKey());
+    }
+    weight -= node.weight;
+  }
+
+  /**
+   * Removes all results of the given query key, e.g. if the source entries were changed.
+   *
+   * @param queryKey the query key
+   */
+  public synchronized void invalidate(Object queryKey) {
+    for (Key key : new ArrayList<>(queries.getOrDefault(queryKey, Set.of()))) {
+      remove(key);
+    }
+  }
+
+  /**
+   * Removes the expired results. This is done on every access of the cache, so it is only
+   * necessary, if the cache is not accessed for a long time.
+   */
+  public synchronized void cleanUp() {
+    purge();
+  }
+
+  /**
+   * Gets the maximum number of results.
+   *
+   * @return the maximum size
+   */
+  public int getMaximumSize() {
+    return maximumSize;
+  }
+
+  /**
+   * Gets the maximum sum of the weights of all cached entries.
+   *
+   * @return the maximum weight
+   */
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  /**
+   * Gets the number of cached results.
+   *
+   * @return the size
+   */
+  public synchronized int size() {
+    return cache.size();
+  }
+
+  /**
+   * Gets the sum of the weights of all cached entries.
+   *
+   * @return the weight
+   */
+  public synchronized long getWeight() {
+    return weight;
+  }
+
+  /**
+   * Gets the number of requests, that were answered from the cache.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Gets the number of requests, that had to build the result.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Gets the number of evicted or expired results.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * Gets the ratio of hits to all requests.
+   *
+   * @return the hit rate, {@code 1.0} if there was no request
+   */
+  public double getHitRate() {
+    long hits = getHitCount();
+    long requests = hits + getMissCount();
+    return requests == 0L ? 1.0 : (double) hits / requests;
+  }
+
+  /**
+   * Removes all results and resets the statistics.
+   */
+  public synchronized void clear() {
+    cache.clear();
+    expiry.clear();
+    queries.clear();
+    weight = 0L;
+    hitCount.reset();
+    missCount.reset();
+    evictionCount.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "ResultCache{"
+        + "maximumSize=" + maximumSize
+        + ", maximumWeight=" + maximumWeight
+        + ", size=" + size()
+        + ", weight=" + getWeight()
+        + ", hitCount=" + getHitCount()
+        + ", missCount=" + getMissCount()
+        + ", evictionCount=" + getEvictionCount()
+        + '}';
+  }
+
+  /**
+   * The key of a result.
+   */
+  record Key(
+      Object queryKey,
+      Object version,
+      List<SortOrder> sort,
+      SortTarget sortTarget,
+      Function<SortOrder, Comparator<?>> sortFn) {
+
+    private boolean isOtherVersionOf(Key key) {
+      return Objects.equals(queryKey, key.queryKey) && !Objects.equals(version, key.version);
+    }
+  }
+
+  private static final class Node {
+
+    private final Object value;
+
+    private final long weight;
+
+    private final long created;
+
+    private Node(Object value, long weight, long created) {
+      this.value = value;
+      this.weight = weight;
+      this.created = created;
+    }
+  }
+}
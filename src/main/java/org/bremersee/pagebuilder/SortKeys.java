@@ -0,0 +1,181 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.text.Collator;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import org.bremersee.comparator.ValueComparator;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageSorter.IndexComparator;
+import org.springframework.util.StringUtils;
+
+/**
+ * The sort keys hold the values of the sort orders of each entry (decorate-sort-undecorate).
+ * The values are extracted only once per entry and sort order into one compact array per sort
+ * order, so that a comparison of two entries just compares array elements instead of walking
+ * the object graph again. Values of a primitive type are stored in a {@code long[]} or
+ * {@code double[]} without boxing.
+ *
+ * <p>If a collator is given, strings are replaced by their {@link java.text.CollationKey}, so
+ * that the locale aware normalization is done only once per entry and sort order, too.
+ *
+ * @author Christian Bremer
+ */
+final class SortKeys implements IndexComparator {
+
+  private final IndexComparator[] columns;
+
+  private SortKeys(IndexComparator[] columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Extracts the sort keys of the given entries.
+   *
+   * @param entries the entries
+   * @param sort the sort orders
+   * @param collator the collator of strings (can be {@code null})
+   * @param parallel specifies whether the keys are extracted in parallel
+   * @return the sort keys or {@code null}, if a field path of the sort orders cannot be
+   *     resolved for an entry
+   */
+  static SortKeys extract(
+      List<?> entries,
+      List<SortOrder> sort,
+      Collator collator,
+      boolean parallel) {
+
+    IndexComparator[] columns = new IndexComparator[sort.size()];
+    for (int c = 0; c < columns.length; c++) {
+      SortOrder sortOrder = sort.get(c);
+      ValuePath path = StringUtils.hasText(sortOrder.getField())
+          ? new ValuePath(sortOrder.getField())
+          : null;
+      if (!Objects.isNull(path)) {
+        columns[c] = primitiveColumn(entries, path, sortOrder.isAsc(), parallel);
+      }
+      if (Objects.isNull(columns[c])) {
+        columns[c] = objectColumn(entries, path, sortOrder, collator, parallel);
+      }
+      if (Objects.isNull(columns[c])) {
+        return null;
+      }
+    }
+    return new SortKeys(columns);
+  }
+
+  private static IndexComparator objectColumn(
+      List<?> entries,
+      ValuePath path,
+      SortOrder sortOrder,
+      Collator collator,
+      boolean parallel) {
+
+    Comparator<Object> comparator = new ValueComparator(new SortOrder(
+        null,
+        sortOrder.isAsc(),
+        sortOrder.isIgnoreCase(),
+        sortOrder.isNullIsFirst()));
+    ThreadLocal<Collator> collators = Objects.isNull(collator)
+        ? null
+        : ThreadLocal.withInitial(() -> {
+          Collator clone = (Collator) collator.clone();
+          if (sortOrder.isIgnoreCase() && clone.getStrength() > Collator.SECONDARY) {
+            clone.setStrength(Collator.SECONDARY);
+          }
+          return clone;
+        });
+    Object[] values = new Object[entries.size()];
+    boolean resolved = rows(entries.size(), parallel).allMatch(row -> {
+      Object entry = entries.get(row);
+      Object value = Objects.isNull(path) ? entry : path.valueOf(entry);
+      if (value instanceof String && !Objects.isNull(collators)) {
+        value = collators.get().getCollationKey((String) value);
+      }
+      values[row] = value;
+      return value != ValuePath.NOT_FOUND;
+    });
+    return resolved ? (i, j) -> comparator.compare(values[i], values[j]) : null;
+  }
+
+  private static IndexComparator primitiveColumn(
+      List<?> entries,
+      ValuePath path,
+      boolean asc,
+      boolean parallel) {
+
+    if (entries.isEmpty()) {
+      return null;
+    }
+    Object owner = path.ownerOf(entries.get(0));
+    if (Objects.isNull(owner) || owner == ValuePath.NOT_FOUND) {
+      return null;
+    }
+    ValueAccessor first = path.accessorOf(owner);
+    if (!first.isLong() && !first.isDouble()) {
+      return null;
+    }
+    long[] longs = first.isLong() ? new long[entries.size()] : null;
+    double[] doubles = first.isDouble() ? new double[entries.size()] : null;
+    boolean resolved = rows(entries.size(), parallel).allMatch(row -> {
+      Object rowOwner = path.ownerOf(entries.get(row));
+      if (Objects.isNull(rowOwner) || rowOwner == ValuePath.NOT_FOUND) {
+        return false;
+      }
+      ValueAccessor accessor = path.accessorOf(rowOwner);
+      if (accessor.getValueType() != first.getValueType()) {
+        return false;
+      }
+      if (longs != null) {
+        longs[row] = accessor.getLong(rowOwner);
+      } else {
+        doubles[row] = accessor.getDouble(rowOwner);
+      }
+      return true;
+    });
+    if (!resolved) {
+      return null;
+    }
+    if (longs != null) {
+      return asc
+          ? (i, j) -> Long.compare(longs[i], longs[j])
+          : (i, j) -> Long.compare(longs[j], longs[i]);
+    }
+    return asc
+        ? (i, j) -> Double.compare(doubles[i], doubles[j])
+        : (i, j) -> Double.compare(doubles[j], doubles[i]);
+  }
+
+  private static IntStream rows(int size, boolean parallel) {
+    IntStream rows = IntStream.range(0, size);
+    return parallel ? rows.parallel() : rows;
+  }
+
+  @Override
+  public int compare(int i, int j) {
+    for (IndexComparator column : columns) {
+      int result = column.compare(i, j);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import org.bremersee.pagebuilder.ChangeSet.Change;
+import org.bremersee.pagebuilder.OrderStatisticTree.Node;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The sorted result holds all filtered and sorted entries of a page query, so that any page
+ * is sliced from it. Changes of the source entries are applied incrementally: inserted entries
+ * are filtered and put at their position, deleted entries are removed and updated entries are
+ * repositioned, so that the result stays equal to a fresh build over the changed source entries
+ * (in which inserted entries are appended and updated entries keep their position). Equal
+ * entries keep the order of the source entries like in a fresh build.
+ *
+ * <p>The entries are kept in an order statistic tree, so that an entry is inserted or removed
+ * in {@code O(log n)} and a page is sliced in {@code O(log n + size)}. To find the entry of a
+ * deleted or updated source entry without searching, the sorted result keeps the nodes of the
+ * source entries in a hash map by their equality, which costs one map entry per distinct
+ * source entry; the source entries must therefore implement {@code equals} and
+ * {@code hashCode}. Of equal source entries the first one (in the order of the source entries)
+ * is taken.
+ *
+ * <p>If the target entries are neither filtered nor sorted, only the entries of a page are
+ * converted. The sorted result can be used by many threads, changes are applied exclusively.
+ *
+ * <p>The positions of the source entries, that do not pass the filters, are only kept, if this
+ * is requested. Then an update, after which an entry passes the filters, keeps its position
+ * like in a fresh build, but the sorted result references all filtered source entries, too.
+ * Otherwise such an entry is appended like an inserted one.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ * @author Christian Bremer
+ * @see PageBuilder#buildSortedResult()
+ */
+public final class SortedResult<S, T> {
+
+  private final Predicate<S> sourceFilter;
+
+  private final Function<S, T> converter;
+
+  private final Function<List<S>, List<T>> pageConverter;
+
+  private final Predicate<T> targetFilter;
+
+  private final boolean sortSource;
+
+  private final boolean conversionLazy;
+
+  private final boolean keepFilteredPositions;
+
+  private final Sort pageSort;
+
+  private final int pageNumber;
+
+  private final int pageSize;
+
+  private final OrderStatisticTree<Entry<S, T>> entries;
+
+  private final Map<S, PriorityQueue<Position<S, T>>> positions = new HashMap<>();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private long nextSequence;
+
+  /**
+   * Instantiates a new sorted result.
+   *
+   * @param sourceEntries the source entries
+   * @param sourceFilter the source filter
+   * @param converter the converter
+   * @param pageConverter the converter of the entries of a page
+   * @param targetFilter the target filter (can be {@code null})
+   * @param comparator the comparator ({@code null} if the entries are not sorted)
+   * @param sortSource specifies whether the source entries are sorted
+   * @param keepFilteredPositions specifies whether the positions of the source entries, that
+   *     do not pass the filters, are kept
+   * @param pageSort the sort of the pages
+   * @param pageNumber the default page number
+   * @param pageSize the default page size
+   */
+  SortedResult(
+      Stream<S> sourceEntries,
+      Predicate<S> sourceFilter,
+      Function<S, T> converter,
+      Function<List<S>, List<T>> pageConverter,
+      Predicate<T> targetFilter,
+      Comparator<Object> comparator,
+      boolean sortSource,
+      boolean keepFilteredPositions,
+      Sort pageSort,
+      int pageNumber,
+      int pageSize) {
+
+    this.sourceFilter = sourceFilter;
+    this.converter = converter;
+    this.pageConverter = pageConverter;
+    this.targetFilter = targetFilter;
+    this.sortSource = sortSource;
+    this.conversionLazy = Objects.isNull(targetFilter)
+        && (Objects.isNull(comparator) || sortSource);
+    this.keepFilteredPositions = keepFilteredPositions;
+    this.entries = new OrderStatisticTree<>(Objects.isNull(comparator)
+        ? null
+        : (a, b) -> comparator.compare(sortEntry(a), sortEntry(b)));
+    this.pageSort = pageSort;
+    this.pageNumber = pageNumber;
+    this.pageSize = pageSize;
+    sourceEntries.forEachOrdered(sourceEntry -> insert(sourceEntry, nextSequence++));
+  }
+
+  private Object sortEntry(Entry<S, T> entry) {
+    return sortSource ? entry.source() : entry.target();
+  }
+
+  /**
+   * Creates the entry of the given source entry.
+   *
+   * @param sourceEntry the source entry
+   * @return the entry or {@code null}, if the source entry does not pass the filters
+   */
+  private Entry<S, T> entry(S sourceEntry) {
+    if (!sourceFilter.test(sourceEntry)) {
+      return null;
+    }
+    if (conversionLazy) {
+      return new Entry<>(sourceEntry, null);
+    }
+    T targetEntry = converter.apply(sourceEntry);
+    if (!Objects.isNull(targetFilter) && !targetFilter.test(targetEntry)) {
+      return null;
+    }
+    return new Entry<>(sourceEntry, targetEntry);
+  }
+
+  /**
+   * Applies the given changes.
+   *
+   * @param changes the changes
+   * @return the sorted result
+   */
+  public SortedResult<S, T> apply(ChangeSet<S> changes) {
+    if (Objects.isNull(changes)) {
+      return this;
+    }
+    lock.writeLock().lock();
+    try {
+      for (Change<S> change : changes.getChanges()) {
+        long sequence = Objects.isNull(change.before())
+            ? nextSequence++
+            : remove(change.before());
+        if (!Objects.isNull(change.after())) {
+          insert(change.after(), sequence < 0L ? nextSequence++ : sequence);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    return this;
+  }
+
+  private void insert(S sourceEntry, long sequence) {
+    Entry<S, T> entry = entry(sourceEntry);
+    if (Objects.isNull(entry) && !keepFilteredPositions) {
+      return;
+    }
+    Node<Entry<S, T>> node = Objects.isNull(entry) ? null : entries.insert(entry, sequence);
+    positions
+        .computeIfAbsent(sourceEntry, key -> new PriorityQueue<>(
+            1, Comparator.comparingLong(Position::sequence)))
+        .add(new Position<>(sequence, node));
+  }
+
+  /**
+   * Removes the entry of the given source entry. Of equal source entries the one with the
+   * smallest position in the source entries is removed.
+   *
+   * @param sourceEntry the source entry
+   * @return the position of the removed entry in the source entries, {@code -1} if it is
+   *     unknown
+   */
+  private long remove(S sourceEntry) {
+    PriorityQueue<Position<S, T>> sourcePositions = positions.get(sourceEntry);
+    if (Objects.isNull(sourcePositions)) {
+      return -1L;
+    }
+    Position<S, T> position = sourcePositions.poll();
+    if (sourcePositions.isEmpty()) {
+      positions.remove(sourceEntry);
+    }
+    if (!Objects.isNull(position.node())) {
+      entries.remove(position.node());
+    }
+    return position.sequence();
+  }
+
+  /**
+   * Gets the page of the default page number and size.
+   *
+   * @return the page
+   */
+  public Page<T> getPage() {
+    return getPage(pageNumber, pageSize);
+  }
+
+  /**
+   * Gets the page of the given number and size.
+   *
+   * @param number the page number
+   * @param size the page size
+   * @return the page
+   */
+  public Page<T> getPage(int number, int size) {
+    PageRequest pageable = PageRequest.of(number, size, pageSort);
+    List<Entry<S, T>> pageEntries;
+    int total;
+    lock.readLock().lock();
+    try {
+      total = entries.size();
+      pageEntries = entries.range(pageable.getOffset(), pageable.getOffset() + size);
+    } finally {
+      lock.readLock().unlock();
+    }
+    List<T> content = conversionLazy
+        ? pageConverter.apply(pageEntries.stream().map(Entry::source).toList())
+        : new ArrayList<>(pageEntries.stream().map(Entry::target).toList());
+    return new PageImpl<>(content, pageable, total);
+  }
+
+  /**
+   * Gets the number of all entries.
+   *
+   * @return the total elements
+   */
+  public long getTotalElements() {
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * An entry of the sorted result.
+   *
+   * @param source the source entry
+   * @param target the target entry ({@code null} if the conversion is lazy)
+   * @param <S> the source type
+   * @param <T> the target type
+   */
+  private record Entry<S, T>(S source, T target) {
+
+  }
+
+  /**
+   * The position of a source entry.
+   *
+   * @param sequence the position in the source entries
+   * @param node the node of the entry ({@code null} if the source entry does not pass the
+   *     filters)
+   * @param <S> the source type
+   * @param <T> the target type
+   */
+  private record Position<S, T>(long sequence, Node<Entry<S, T>> node) {
+
+  }
+}
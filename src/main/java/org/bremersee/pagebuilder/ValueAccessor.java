@@ -0,0 +1,317 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * The value accessor reads one property (a field, a bean getter or a record component) of a
+ * class. It is resolved only once per class and property name and then cached. Getter methods
+ * are compiled into a function with the {@link LambdaMetafactory}, fields are read with a
+ * {@link MethodHandle}.
+ *
+ * <p>Properties of a primitive type can also be read without boxing: integral types,
+ * {@code char} and {@code boolean} ({@code false < true}) as {@code long}, {@code float} and
+ * {@code double} as {@code double}. The order of the values is not changed by this.
+ *
+ * <p>Like the reflective value extraction of the comparator library a field is looked up
+ * first (in the class and its super classes), then a method with the prefix {@code get} or
+ * {@code is} or with the name of the property itself.
+ *
+ * @author Christian Bremer
+ */
+final class ValueAccessor {
+
+  /**
+   * The accessor of a property, that does not exist.
+   */
+  static final ValueAccessor NONE = new ValueAccessor(Object.class, null, null);
+
+  private static final ClassValue<Map<String, ValueAccessor>> CACHE = new ClassValue<>() {
+    @Override
+    protected Map<String, ValueAccessor> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
+  private static final String[] METHOD_PREFIXES = {"get", "is", ""};
+
+  private final Class<?> valueType;
+
+  private final Function<Object, Object> getter;
+
+  private final ToLongFunction<Object> longGetter;
+
+  private final ToDoubleFunction<Object> doubleGetter;
+
+  private ValueAccessor(
+      Class<?> valueType,
+      Function<Object, Object> getter,
+      MethodHandle handle) {
+    this.valueType = valueType;
+    this.getter = getter;
+    if (valueType == float.class || valueType == double.class) {
+      MethodHandle doubleHandle = handle.asType(MethodType.methodType(double.class, Object.class));
+      this.longGetter = null;
+      this.doubleGetter = obj -> invokeDouble(doubleHandle, obj);
+    } else if (valueType == boolean.class) {
+      MethodHandle booleanHandle = handle
+          .asType(MethodType.methodType(boolean.class, Object.class));
+      this.longGetter = obj -> invokeBoolean(booleanHandle, obj) ? 1L : 0L;
+      this.doubleGetter = null;
+    } else if (valueType.isPrimitive()) {
+      MethodHandle longHandle = handle.asType(MethodType.methodType(long.class, Object.class));
+      this.longGetter = obj -> invokeLong(longHandle, obj);
+      this.doubleGetter = null;
+    } else {
+      this.longGetter = null;
+      this.doubleGetter = null;
+    }
+  }
+
+  /**
+   * Returns the accessor of the given property.
+   *
+   * @param type the class
+   * @param name the name of the property
+   * @return the accessor, {@link #NONE} if the property does not exist
+   */
+  static ValueAccessor of(Class<?> type, String name) {
+    return CACHE.get(type).computeIfAbsent(name, n -> resolve(type, n));
+  }
+
+  /**
+   * Determines whether the property exists.
+   *
+   * @return {@code true} if the property exists, otherwise {@code false}
+   */
+  boolean isPresent() {
+    return getter != null;
+  }
+
+  /**
+   * Gets the declared type of the property.
+   *
+   * @return the value type
+   */
+  Class<?> getValueType() {
+    return valueType;
+  }
+
+  /**
+   * Determines whether the property can be read as {@code long} without boxing.
+   *
+   * @return {@code true} if the property is of an integral primitive type, {@code char} or
+   *     {@code boolean}, otherwise {@code false}
+   */
+  boolean isLong() {
+    return longGetter != null;
+  }
+
+  /**
+   * Determines whether the property can be read as {@code double} without boxing.
+   *
+   * @return {@code true} if the property is a {@code float} or a {@code double}, otherwise
+   *     {@code false}
+   */
+  boolean isDouble() {
+    return doubleGetter != null;
+  }
+
+  /**
+   * Reads the property as {@code long}.
+   *
+   * @param obj the object
+   * @return the value of the property
+   * @see #isLong()
+   */
+  long getLong(Object obj) {
+    return longGetter.applyAsLong(obj);
+  }
+
+  /**
+   * Reads the property as {@code double}.
+   *
+   * @param obj the object
+   * @return the value of the property
+   * @see #isDouble()
+   */
+  double getDouble(Object obj) {
+    return doubleGetter.applyAsDouble(obj);
+  }
+
+  /**
+   * Reads the property.
+   *
+   * @param obj the object
+   * @return the value of the property
+   */
+  Object get(Object obj) {
+    return getter.apply(obj);
+  }
+
+  private static ValueAccessor resolve(Class<?> type, String name) {
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+          ValueAccessor accessor = compile(field);
+          if (accessor != null) {
+            return accessor;
+          }
+        }
+      }
+    }
+    String capitalized = name.isEmpty()
+        ? name
+        : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    for (String prefix : METHOD_PREFIXES) {
+      String methodName = prefix.isEmpty() ? name : prefix + capitalized;
+      Method method = findMethod(type, methodName);
+      if (method != null) {
+        ValueAccessor accessor = compile(method);
+        if (accessor != null) {
+          return accessor;
+        }
+      }
+    }
+    return NONE;
+  }
+
+  private static Method findMethod(Class<?> type, String name) {
+    for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+      try {
+        Method method = c.getDeclaredMethod(name);
+        if (!Modifier.isStatic(method.getModifiers()) && method.getReturnType() != void.class) {
+          return method;
+        }
+      } catch (NoSuchMethodException ignored) {
+        // continue with super class
+      }
+    }
+    try {
+      return type.getMethod(name);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static ValueAccessor compile(Field field) {
+    try {
+      MethodHandle handle = lookup(field.getDeclaringClass()).unreflectGetter(field);
+      MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+      return new ValueAccessor(field.getType(), obj -> invoke(generic, obj), handle);
+    } catch (IllegalAccessException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  private static ValueAccessor compile(Method method) {
+    MethodHandle handle;
+    Lookup lookup;
+    try {
+      lookup = lookup(method.getDeclaringClass());
+      handle = lookup.unreflect(method);
+    } catch (IllegalAccessException | RuntimeException e) {
+      try {
+        lookup = MethodHandles.publicLookup();
+        handle = lookup.unreflect(method);
+      } catch (IllegalAccessException | RuntimeException ex) {
+        return null;
+      }
+    }
+    try {
+      CallSite site = LambdaMetafactory.metafactory(
+          lookup,
+          "apply",
+          MethodType.methodType(Function.class),
+          MethodType.methodType(Object.class, Object.class),
+          handle,
+          MethodType.methodType(
+              MethodType.methodType(method.getReturnType()).wrap().returnType(),
+              method.getDeclaringClass()));
+      //noinspection unchecked
+      Function<Object, Object> getter = (Function<Object, Object>) site.getTarget().invoke();
+      return new ValueAccessor(method.getReturnType(), getter, handle);
+    } catch (LambdaConversionException | ReflectiveOperationException | RuntimeException e) {
+      // The lookup has no full privilege access (e.g. another class loader), use the handle.
+      MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+      return new ValueAccessor(method.getReturnType(), obj -> invoke(generic, obj), handle);
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException("Creating getter failed.", t);
+    }
+  }
+
+  private static Lookup lookup(Class<?> type) throws IllegalAccessException {
+    return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+  }
+
+  private static Object invoke(MethodHandle handle, Object obj) {
+    try {
+      return handle.invokeExact(obj);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException("Reading value failed.", t);
+    }
+  }
+
+  private static long invokeLong(MethodHandle handle, Object obj) {
+    try {
+      return (long) handle.invokeExact(obj);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException("Reading value failed.", t);
+    }
+  }
+
+  private static double invokeDouble(MethodHandle handle, Object obj) {
+    try {
+      return (double) handle.invokeExact(obj);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException("Reading value failed.", t);
+    }
+  }
+
+  private static boolean invokeBoolean(MethodHandle handle, Object obj) {
+    try {
+      return (boolean) handle.invokeExact(obj);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException("Reading value failed.", t);
+    }
+  }
+}
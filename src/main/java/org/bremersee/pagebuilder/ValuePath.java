@@ -0,0 +1,93 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.Objects;
+
+/**
+ * The value path reads the value of a field path like {@code address.city} with cached
+ * {@link ValueAccessor value accessors}. The path is split only once.
+ *
+ * @author Christian Bremer
+ */
+final class ValuePath {
+
+  /**
+   * The value, that is returned, if a property of the path does not exist.
+   */
+  static final Object NOT_FOUND = new Object();
+
+  private final String[] names;
+
+  /**
+   * Instantiates a new value path.
+   *
+   * @param path the field path, the names are separated by a dot
+   */
+  ValuePath(String path) {
+    this.names = path.trim().split("\\.");
+  }
+
+  /**
+   * Reads the value of the path. If an object on the path is {@code null}, the value is
+   * {@code null}.
+   *
+   * @param obj the object
+   * @return the value or {@link #NOT_FOUND}
+   */
+  Object valueOf(Object obj) {
+    Object owner = ownerOf(obj);
+    if (Objects.isNull(owner) || owner == NOT_FOUND) {
+      return owner;
+    }
+    ValueAccessor accessor = accessorOf(owner);
+    return accessor.isPresent() ? accessor.get(owner) : NOT_FOUND;
+  }
+
+  /**
+   * Returns the object, that holds the last property of the path. For a path without dots
+   * this is the given object itself.
+   *
+   * @param obj the object
+   * @return the owner of the last property, {@code null} if an object on the path is
+   *     {@code null}, or {@link #NOT_FOUND}
+   */
+  Object ownerOf(Object obj) {
+    Object value = obj;
+    for (int i = 0; i < names.length - 1; i++) {
+      if (Objects.isNull(value)) {
+        return null;
+      }
+      ValueAccessor accessor = ValueAccessor.of(value.getClass(), names[i]);
+      if (!accessor.isPresent()) {
+        return NOT_FOUND;
+      }
+      value = accessor.get(value);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the accessor of the last property of the path.
+   *
+   * @param owner the owner of the last property (see {@link #ownerOf(Object)})
+   * @return the accessor
+   */
+  ValueAccessor accessorOf(Object owner) {
+    return ValueAccessor.of(owner.getClass(), names[names.length - 1]);
+  }
+}
@@ -70,6 +70,14 @@ public abstract class AbstractPageDto<T> {
   @XmlElementRef(type = SortOrders.class)
   private final SortOrders sort;
 
+  @Schema(description = "The continuation token of the next page (keyset pagination).")
+  @XmlElement(name = "continuationToken")
+  private final String continuationToken;
+
+  @Schema(description = "The cursor of the pinned snapshot of the following pages.")
+  @XmlElement(name = "cursor")
+  private final String cursor;
+
   /**
    * Instantiates a new abstract page transfer object.
    */
@@ -115,6 +123,8 @@ public abstract class AbstractPageDto<T> {
     this.size = size;
     this.totalElements = totalElements;
     this.sort = Objects.isNull(sort) ? new SortOrders(List.of()) : sort;
+    this.continuationToken = null;
+    this.cursor = null;
   }
 
   /**
@@ -146,12 +156,26 @@ public abstract class AbstractPageDto<T> {
    * @param page the page
    */
   public AbstractPageDto(Page<? extends T> page) {
-    this(
-        page.getContent(),
-        page.getNumber(),
-        page.getSize(),
-        page.getTotalElements(),
-        page.getSort());
+    this(page, null, null);
+  }
+
+  /**
+   * Instantiates a new abstract page transfer object.
+   *
+   * @param page the page
+   * @param continuationToken the continuation token of the next page (can be {@code null})
+   * @param cursor the cursor of the pinned snapshot (can be {@code null})
+   */
+  public AbstractPageDto(Page<? extends T> page, String continuationToken, String cursor) {
+    if (!Objects.isNull(page.getContent())) {
+      this.content.addAll(page.getContent());
+    }
+    this.number = page.getNumber();
+    this.size = page.getSize();
+    this.totalElements = page.getTotalElements();
+    this.sort = new SortOrders(SortMapper.fromSort(page.getSort()));
+    this.continuationToken = continuationToken;
+    this.cursor = cursor;
   }
 
   /**
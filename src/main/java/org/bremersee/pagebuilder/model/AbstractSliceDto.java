@@ -0,0 +1,176 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlElementRef;
+import jakarta.xml.bind.annotation.XmlTransient;
+import jakarta.xml.bind.annotation.XmlType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.bremersee.comparator.model.SortOrders;
+import org.bremersee.comparator.spring.mapper.SortMapper;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The abstract slice transfer object. In contrast to the page, it doesn't know the total
+ * number of elements, only whether there is a next slice.
+ *
+ * @param <T> the type of the content
+ * @author Christian Bremer
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlType(name = "abstractSliceType")
+@Getter
+@EqualsAndHashCode
+@ToString
+@Schema(description = "The base slice.")
+public abstract class AbstractSliceDto<T> {
+
+  /**
+   * The Content.
+   */
+  @Schema(description = "The content of the slice.")
+  @XmlTransient
+  protected List<T> content = new ArrayList<>();
+
+  @Schema(description = "The slice number starting with 0.")
+  @XmlElement(name = "number", required = true)
+  private final int number;
+
+  @Schema(description = "The size of the slice (not the size of the content).")
+  @XmlElement(name = "size", required = true)
+  private final int size;
+
+  @Schema(description = "Specifies whether there is a next slice.")
+  @XmlElement(name = "hasNext", required = true)
+  private final boolean hasNext;
+
+  @XmlElementRef(type = SortOrders.class)
+  private final SortOrders sort;
+
+  /**
+   * Instantiates a new abstract slice transfer object.
+   */
+  protected AbstractSliceDto() {
+    this(null, 0, 0, false, (SortOrders) null);
+  }
+
+  /**
+   * Instantiates a new abstract slice transfer object.
+   *
+   * @param content the content
+   * @param number the number
+   * @param size the size
+   * @param hasNext the has next flag
+   */
+  public AbstractSliceDto(
+      List<? extends T> content,
+      int number,
+      int size,
+      boolean hasNext) {
+    this(content, number, size, hasNext, Sort.unsorted());
+  }
+
+  /**
+   * Instantiates a new abstract slice transfer object.
+   *
+   * @param content the content of the slice
+   * @param number the number of the slice starting with 0
+   * @param size the size of the slice (not the size of the content)
+   * @param hasNext specifies whether there is a next slice
+   * @param sort the sort oder
+   */
+  public AbstractSliceDto(
+      List<? extends T> content,
+      int number,
+      int size,
+      boolean hasNext,
+      SortOrders sort) {
+    if (!Objects.isNull(content)) {
+      this.content.addAll(content);
+    }
+    this.number = number;
+    this.size = size;
+    this.hasNext = hasNext;
+    this.sort = Objects.isNull(sort) ? new SortOrders(List.of()) : sort;
+  }
+
+  /**
+   * Instantiates a new abstract slice transfer object.
+   *
+   * @param content the content
+   * @param number the number
+   * @param size the size
+   * @param hasNext the has next flag
+   * @param sort the sort
+   */
+  public AbstractSliceDto(
+      List<? extends T> content,
+      int number,
+      int size,
+      boolean hasNext,
+      Sort sort) {
+    this(
+        content,
+        number,
+        size,
+        hasNext,
+        new SortOrders(SortMapper.fromSort(sort)));
+  }
+
+  /**
+   * Instantiates a new abstract slice transfer object.
+   *
+   * @param slice the slice
+   */
+  public AbstractSliceDto(Slice<? extends T> slice) {
+    this(
+        slice.getContent(),
+        slice.getNumber(),
+        slice.getSize(),
+        slice.hasNext(),
+        slice.getSort());
+  }
+
+  /**
+   * Gets content.
+   *
+   * @return the content
+   */
+  public abstract List<T> getContent();
+
+  /**
+   * Gets sort.
+   *
+   * @return the sort
+   */
+  public final SortOrders getSort() {
+    if (Objects.isNull(sort)) {
+      return new SortOrders(List.of());
+    }
+    return sort;
+  }
+}
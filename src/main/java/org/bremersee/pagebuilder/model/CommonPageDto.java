@@ -104,6 +104,17 @@ public class CommonPageDto extends AbstractPageDto<Object> {
     super(page);
   }
 
+  /**
+   * Instantiates a new common page transfer object.
+   *
+   * @param page the page
+   * @param continuationToken the continuation token of the next page (can be {@code null})
+   * @param cursor the cursor of the pinned snapshot (can be {@code null})
+   */
+  public CommonPageDto(Page<?> page, String continuationToken, String cursor) {
+    super(page, continuationToken, cursor);
+  }
+
   /**
    * Gets content.
    *
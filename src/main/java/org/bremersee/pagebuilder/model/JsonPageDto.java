@@ -89,6 +89,17 @@ public abstract class JsonPageDto<T> extends AbstractPageDto<T> {
     super(page);
   }
 
+  /**
+   * Instantiates a new json page transfer object.
+   *
+   * @param page the page
+   * @param continuationToken the continuation token of the next page (can be {@code null})
+   * @param cursor the cursor of the pinned snapshot (can be {@code null})
+   */
+  public JsonPageDto(Page<? extends T> page, String continuationToken, String cursor) {
+    super(page, continuationToken, cursor);
+  }
+
   @Override
   public List<T> getContent() {
     return Collections.unmodifiableList(content);
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Collections;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import org.bremersee.comparator.model.SortOrders;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The json slice transfer object.
+ *
+ * @param <T> the content type
+ * @author Christian Bremer
+ */
+@EqualsAndHashCode(callSuper = true)
+@Schema(description = "The slice for json deserialization.")
+public abstract class JsonSliceDto<T> extends AbstractSliceDto<T> {
+
+  /**
+   * Instantiates a new json slice transfer object.
+   */
+  protected JsonSliceDto() {
+  }
+
+  /**
+   * Instantiates a new json slice transfer object.
+   *
+   * @param content the content
+   * @param number the number
+   * @param size the size
+   * @param hasNext the has next flag
+   */
+  public JsonSliceDto(List<? extends T> content, int number, int size, boolean hasNext) {
+    super(content, number, size, hasNext);
+  }
+
+  /**
+   * Instantiates a new json slice transfer object.
+   *
+   * @param content the content
+   * @param number the number
+   * @param size the size
+   * @param hasNext the has next flag
+   * @param sort the sort
+   */
+  public JsonSliceDto(List<? extends T> content, int number, int size, boolean hasNext,
+      SortOrders sort) {
+    super(content, number, size, hasNext, sort);
+  }
+
+  /**
+   * Instantiates a new json slice transfer object.
+   *
+   * @param content the content
+   * @param number the number
+   * @param size the size
+   * @param hasNext the has next flag
+   * @param sort the sort
+   */
+  public JsonSliceDto(List<? extends T> content, int number, int size, boolean hasNext,
+      Sort sort) {
+    super(content, number, size, hasNext, sort);
+  }
+
+  /**
+   * Instantiates a new json slice transfer object.
+   *
+   * @param slice the slice
+   */
+  public JsonSliceDto(Slice<? extends T> slice) {
+    super(slice);
+  }
+
+  @Override
+  public List<T> getContent() {
+    return Collections.unmodifiableList(content);
+  }
+}
@@ -35,4 +35,13 @@ public class ObjectFactory {
     return new CommonPageDto();
   }
 
+  /**
+   * Creates common slice dto.
+   *
+   * @return the common slice dto
+   */
+  public CommonSliceDto createCommonSliceDto() {
+    return new CommonSliceDto();
+  }
+
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.ValueComparator;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.bremersee.pagebuilder.testmodel.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * The accessor comparator test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class AccessorComparatorTest {
+
+  /**
+   * Compare nested field.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void compareNestedField(SoftAssertions softly) {
+    List<Person> entries = new ArrayList<>(List.of(
+        new Person("A", "", new Address("london")),
+        new Person("B", "", null),
+        new Person("C", "", new Address("Berlin")),
+        new Person("D", "", new Address("Paris"))));
+    for (SortOrder sortOrder : List.of(
+        new SortOrder("address.city", true, true, false),
+        new SortOrder("address.city", false, false, true),
+        new SortOrder("firstname", false, false, false))) {
+
+      List<Person> expected = new ArrayList<>(entries);
+      expected.sort(new ValueComparator(sortOrder));
+      List<Person> actual = new ArrayList<>(entries);
+      actual.sort(new AccessorComparator(sortOrder));
+      softly.assertThat(actual)
+          .containsExactlyElementsOf(expected);
+    }
+  }
+
+  /**
+   * Compare record component and getter.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void compareRecordComponentAndGetter(SoftAssertions softly) {
+    AccessorComparator comparator = new AccessorComparator(
+        new SortOrder("value", true, false, false));
+    softly.assertThat(comparator.compare(new Item(1), new Item(2)))
+        .isLessThan(0);
+    softly.assertThat(comparator.compare(new Item(3), new Item(2)))
+        .isGreaterThan(0);
+
+    comparator = new AccessorComparator(new SortOrder("doubled", false, false, false));
+    softly.assertThat(comparator.compare(new Item(1), new Item(2)))
+        .isGreaterThan(0);
+  }
+
+  /**
+   * Compare primitives and wrappers.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void comparePrimitivesAndWrappers(SoftAssertions softly) {
+    List<Measure> entries = List.of(
+        new Measure(3, 1.5, true, null),
+        new Measure(-1, -0.5, false, 2),
+        new Measure(7, 1.5, true, -4),
+        new Measure(3, Double.NaN, false, 2));
+    for (String field : List.of("count", "weight", "active", "rank")) {
+      for (boolean asc : new boolean[]{true, false}) {
+        SortOrder sortOrder = new SortOrder(field, asc, false, !asc);
+        List<Measure> expected = new ArrayList<>(entries);
+        expected.sort(new ValueComparator(sortOrder));
+        List<Measure> actual = new ArrayList<>(entries);
+        actual.sort(new AccessorComparator(sortOrder));
+        softly.assertThat(actual)
+            .containsExactlyElementsOf(expected);
+      }
+    }
+  }
+
+  /**
+   * Compare without field.
+   */
+  @Test
+  void compareWithoutField() {
+    AccessorComparator comparator = new AccessorComparator(
+        new SortOrder(null, false, false, false));
+    assertThat(comparator.compare(1, 2))
+        .isGreaterThan(0);
+  }
+
+  /**
+   * A measure.
+   *
+   * @param count the count
+   * @param weight the weight
+   * @param active the active flag
+   * @param rank the rank
+   */
+  record Measure(int count, double weight, boolean active, Integer rank) {
+
+  }
+
+  /**
+   * An item.
+   *
+   * @param value the value
+   */
+  record Item(int value) {
+
+    /**
+     * Gets doubled.
+     *
+     * @return the doubled value
+     */
+    public int getDoubled() {
+      return 2 * value;
+    }
+  }
+}
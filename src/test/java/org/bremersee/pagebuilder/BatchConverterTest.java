@@ -0,0 +1,117 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * The batch converter test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class BatchConverterTest {
+
+  /**
+   * Convert list.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void convertList(SoftAssertions softly) {
+    List<Integer> batchSizes = new ArrayList<>();
+    BatchConverter<Integer, String> converter = new BatchConverter<>(
+        entries -> {
+          batchSizes.add(entries.size());
+          return entries.stream().map(i -> "#" + i).toList();
+        },
+        10,
+        null,
+        0);
+    List<Integer> entries = IntStream.range(0, 25).boxed().collect(Collectors.toList());
+    softly.assertThat(converter.convert(entries))
+        .containsExactlyElementsOf(entries.stream().map(i -> "#" + i).toList());
+    softly.assertThat(batchSizes)
+        .containsExactly(10, 10, 5);
+  }
+
+  /**
+   * Convert list concurrently.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void convertListConcurrently(SoftAssertions softly) {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      BatchConverter<Integer, Integer> converter = new BatchConverter<>(
+          entries -> entries.stream().map(i -> -i).toList(),
+          7,
+          executor,
+          4);
+      List<Integer> entries = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+      softly.assertThat(converter.convert(entries))
+          .containsExactlyElementsOf(entries.stream().map(i -> -i).toList());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Convert stream.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void convertStream(SoftAssertions softly) {
+    List<Integer> batchSizes = new ArrayList<>();
+    BatchConverter<Integer, Integer> converter = new BatchConverter<>(
+        entries -> {
+          batchSizes.add(entries.size());
+          return entries.stream().map(i -> i * 10).toList();
+        },
+        4,
+        null,
+        0);
+    softly.assertThat(converter.convert(IntStream.range(0, 10).boxed()).toList())
+        .containsExactly(0, 10, 20, 30, 40, 50, 60, 70, 80, 90);
+    softly.assertThat(batchSizes)
+        .containsExactly(4, 4, 2);
+  }
+
+  /**
+   * Convert with wrong result size.
+   */
+  @Test
+  void convertWithWrongResultSize() {
+    BatchConverter<Integer, Integer> converter = new BatchConverter<>(
+        entries -> entries.subList(1, entries.size()), 10, null, 0);
+    assertThatThrownBy(() -> converter.convert(List.of(1, 2, 3)))
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
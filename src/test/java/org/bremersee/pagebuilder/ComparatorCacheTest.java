@@ -0,0 +1,139 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Comparator;
+import java.util.List;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.data.domain.Page;
+
+/**
+ * The comparator cache test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class ComparatorCacheTest {
+
+  /**
+   * Get.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void get(SoftAssertions softly) {
+    ComparatorCache cache = new ComparatorCache(10);
+    List<SortOrder> sort = List.of(new SortOrder("city", true, false, false));
+    Comparator<Object> first = cache.get(
+        sort, SortTarget.TARGET_ENTRIES, null, () -> (a, b) -> 0);
+    Comparator<Object> second = cache.get(
+        List.of(new SortOrder("city", true, false, false)), SortTarget.TARGET_ENTRIES, null,
+        () -> (a, b) -> 1);
+    Comparator<Object> third = cache.get(
+        sort, SortTarget.SOURCE_ENTRIES, null, () -> (a, b) -> 2);
+    softly.assertThat(second)
+        .isSameAs(first);
+    softly.assertThat(third)
+        .isNotSameAs(first);
+    softly.assertThat(cache.getHitCount())
+        .isEqualTo(1L);
+    softly.assertThat(cache.getMissCount())
+        .isEqualTo(2L);
+    softly.assertThat(cache.size())
+        .isEqualTo(2);
+    softly.assertThat(cache.getHitRate())
+        .isEqualTo(1.0 / 3.0);
+
+    cache.clear();
+    softly.assertThat(cache.size())
+        .isEqualTo(0);
+    softly.assertThat(cache.getMissCount())
+        .isEqualTo(0L);
+  }
+
+  /**
+   * Evict least recently used.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void evictLeastRecentlyUsed(SoftAssertions softly) {
+    ComparatorCache cache = new ComparatorCache(2);
+    List<SortOrder> a = List.of(new SortOrder("a", true, false, false));
+    List<SortOrder> b = List.of(new SortOrder("b", true, false, false));
+    List<SortOrder> c = List.of(new SortOrder("c", true, false, false));
+    Comparator<Object> comparatorOfA = cache.get(
+        a, SortTarget.TARGET_ENTRIES, null, () -> (x, y) -> 0);
+    cache.get(b, SortTarget.TARGET_ENTRIES, null, () -> (x, y) -> 0);
+    cache.get(a, SortTarget.TARGET_ENTRIES, null, () -> (x, y) -> 0);
+    cache.get(c, SortTarget.TARGET_ENTRIES, null, () -> (x, y) -> 0);
+
+    softly.assertThat(cache.size())
+        .isEqualTo(2);
+    softly.assertThat(cache.getEvictionCount())
+        .isEqualTo(1L);
+    softly.assertThat(cache.get(a, SortTarget.TARGET_ENTRIES, null, () -> (x, y) -> 0))
+        .isSameAs(comparatorOfA);
+    softly.assertThat(cache.getHitCount())
+        .isEqualTo(2L);
+    cache.get(b, SortTarget.TARGET_ENTRIES, null, () -> (x, y) -> 0);
+    softly.assertThat(cache.getMissCount())
+        .isEqualTo(4L);
+  }
+
+  /**
+   * Build pages with cache.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildPagesWithCache(SoftAssertions softly) {
+    ComparatorCache cache = new ComparatorCache(10);
+    List<Address> entries = List.of(
+        new Address("Ulm"), new Address("Aachen"), new Address("Essen"));
+    for (int i = 0; i < 3; i++) {
+      Page<Address> actual = new PageBuilder<Address, Address>()
+          .sourceEntries(entries)
+          .pageable(0, 2, new SortOrder("city", true, false, false))
+          .comparatorCache(cache)
+          .build();
+      softly.assertThat(actual)
+          .containsExactly(new Address("Aachen"), new Address("Essen"));
+    }
+    softly.assertThat(cache.getMissCount())
+        .isEqualTo(1L);
+    softly.assertThat(cache.getHitCount())
+        .isEqualTo(2L);
+  }
+
+  /**
+   * Illegal maximum size.
+   */
+  @Test
+  void illegalMaximumSize() {
+    assertThatThrownBy(() -> new ComparatorCache(0))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
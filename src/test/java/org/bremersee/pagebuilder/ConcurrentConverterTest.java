@@ -0,0 +1,98 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * The concurrent converter test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class ConcurrentConverterTest {
+
+  /**
+   * Convert.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void convert(SoftAssertions softly) {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      AtomicInteger running = new AtomicInteger();
+      AtomicInteger maxRunning = new AtomicInteger();
+      ConcurrentConverter<Integer, String> converter = new ConcurrentConverter<>(
+          i -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+              Thread.sleep(2L);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            return "#" + i;
+          },
+          executor,
+          4);
+      List<Integer> entries = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+      List<String> actual = converter.convert(entries);
+      softly.assertThat(actual)
+          .containsExactlyElementsOf(entries.stream().map(i -> "#" + i).toList());
+      softly.assertThat(maxRunning.get())
+          .isBetween(2, 4);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Convert with failure.
+   */
+  @Test
+  void convertWithFailure() {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ConcurrentConverter<Integer, Integer> converter = new ConcurrentConverter<>(
+          i -> {
+            if (i == 17) {
+              throw new IllegalStateException("Lookup failed.");
+            }
+            return i;
+          },
+          executor,
+          3);
+      assertThatThrownBy(() -> converter.convert(
+          IntStream.range(0, 50).boxed().collect(Collectors.toList())))
+          .isInstanceOf(IllegalStateException.class);
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
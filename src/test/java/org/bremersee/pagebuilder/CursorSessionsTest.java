@@ -0,0 +1,186 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.pagebuilder;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * The cursor sessions test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class CursorSessionsTest {
+
+  private static final List<SortOrder> SORT = List.of(new SortOrder("city", true, false, false));
+
+  /**
+   * Open and get.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void openAndGet(SoftAssertions softly) {
+    AtomicLong time = new AtomicLong();
+    CursorSessions sessions = new CursorSessions(10, 10L, Duration.ofNanos(10L), time::get);
+    String cursor = sessions.open(SORT, SortTarget.TARGET_ENTRIES, null, "snapshot", 3L);
+    softly.assertThat(cursor)
+        .matches("[A-Za-z0-9_-]{24}");
+    softly.assertThat(sessions.open(SORT, SortTarget.TARGET_ENTRIES, null, "other", 3L))
+        .isNotEqualTo(cursor);
+    softly.assertThat(sessions.open(SORT, SortTarget.TARGET_ENTRIES, null, "heavy", 11L))
+        .isNull();
+    softly.assertThat(sessions.get(cursor, SORT, SortTarget.TARGET_ENTRIES, null))
+        .isEqualTo("snapshot");
+    softly.assertThat(sessions.get(cursor, SORT, SortTarget.SOURCE_ENTRIES, null))
+        .isNull();
+    softly.assertThat(sessions.size())
+        .isEqualTo(2);
+    softly.assertThat(sessions.getWeight())
+        .isEqualTo(6L);
+
+    sessions.close(cursor);
+    softly.assertThat(sessions.get(cursor, SORT, SortTarget.TARGET_ENTRIES, null))
+        .isNull();
+    time.set(10L);
+    softly.assertThat(sessions.size())
+        .isEqualTo(0);
+    cursor = sessions.open(SORT, SortTarget.TARGET_ENTRIES, null, "snapshot", 3L);
+    time.set(19L);
+    softly.assertThat(sessions.get(cursor, SORT, SortTarget.TARGET_ENTRIES, null))
+        .isEqualTo("snapshot");
+    time.set(20L);
+    softly.assertThat(sessions.get(cursor, SORT, SortTarget.TARGET_ENTRIES, null))
+        .isNull();
+  }
+
+  /**
+   * Expire sessions without looking them up.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void expireSessionsWithoutLookup(SoftAssertions softly) {
+    AtomicLong time = new AtomicLong();
+    CursorSessions sessions = new CursorSessions(10, 100L, Duration.ofNanos(10L), time::get);
+    String abandoned = sessions.open(SORT, SortTarget.TARGET_ENTRIES, null, "abandoned", 50L);
+    time.set(5L);
+    String cursor = sessions.open(SORT, SortTarget.TARGET_ENTRIES, null, "snapshot", 3L);
+    time.set(10L);
+    softly.assertThat(sessions.get(cursor, SORT, SortTarget.TARGET_ENTRIES, null))
+        .isEqualTo("snapshot");
+    time.set(12L);
+    sessions.open(SORT, SortTarget.TARGET_ENTRIES, null, "other", 4L);
+    softly.assertThat(sessions.getEvictionCount())
+        .isEqualTo(1L);
+    softly.assertThat(sessions.size())
+        .isEqualTo(2);
+    softly.assertThat(sessions.getWeight())
+        .isEqualTo(7L);
+    softly.assertThat(abandoned)
+        .isNotNull();
+
+    time.set(30L);
+    softly.assertThat(sessions.size())
+        .isEqualTo(0);
+    softly.assertThat(sessions.getWeight())
+        .isEqualTo(0L);
+  }
+
+  /**
+   * Build cursor pages.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildCursorPages(SoftAssertions softly) {
+    CursorSessions sessions = new CursorSessions(10, 100L, Duration.ofMinutes(5L));
+    List<Address> entries = new ArrayList<>(List.of(
+        new Address("Ulm"), new Address("Aachen"), new Address("Essen"),
+        new Address("Berlin"), new Address("Dresden")));
+    CursorPage<Address> first = new PageBuilder<Address, Address>()
+        .sourceEntries(entries)
+        .pageable(0, 2, new SortOrder("city", true, false, false))
+        .cursorSessions(sessions)
+        .buildCursorPage();
+    softly.assertThat(first.getContent())
+        .containsExactly(new Address("Aachen"), new Address("Berlin"));
+    softly.assertThat(first.getCursor())
+        .isNotNull();
+
+    entries.add(new Address("Bonn"));
+    CursorPage<Address> second = new PageBuilder<Address, Address>()
+        .sourceEntries(entries)
+        .pageable(1, 2, new SortOrder("city", true, false, false))
+        .cursorSessions(sessions)
+        .cursor(first.getCursor())
+        .buildCursorPage();
+    softly.assertThat(second.getContent())
+        .containsExactly(new Address("Dresden"), new Address("Essen"));
+    softly.assertThat(second.getTotalElements())
+        .isEqualTo(5L);
+    softly.assertThat(second.getCursor())
+        .isEqualTo(first.getCursor());
+
+    PageQuery<Address, Address> query = new PageBuilder<Address, Address>()
+        .pageable(2, 2, new SortOrder("city", true, false, false))
+        .cursorSessions(sessions)
+        .query()
+        .withCursor(first.getCursor());
+    softly.assertThat(query.executeCursor(List.of()).getContent())
+        .containsExactly(new Address("Ulm"));
+  }
+
+  /**
+   * Build cursor page with unknown cursor.
+   */
+  @Test
+  void buildCursorPageWithUnknownCursor() {
+    PageBuilder<Address, Address> builder = new PageBuilder<Address, Address>()
+        .sourceEntries(List.of(new Address("Ulm")))
+        .pageable(0, 2, new SortOrder("city", true, false, false))
+        .cursorSessions(new CursorSessions(10, 100L, Duration.ofMinutes(5L)))
+        .cursor("unknown");
+    assertThatThrownBy(builder::buildCursorPage)
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /**
+   * Build cursor page without sessions.
+   */
+  @Test
+  void buildCursorPageWithoutSessions() {
+    PageBuilder<Address, Address> builder = new PageBuilder<Address, Address>()
+        .sourceEntries(List.of(new Address("Ulm")))
+        .pageable(0, 2);
+    assertThatThrownBy(builder::buildCursorPage)
+        .isInstanceOf(IllegalStateException.class);
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.pagebuilder.ExternalSorter.Window;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * The external sorter test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class ExternalSorterTest {
+
+  /**
+   * Sorted window.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortedWindow(SoftAssertions softly) {
+    List<Integer> entries = new Random(42).ints(10_000, 0, 500)
+        .boxed()
+        .collect(Collectors.toList());
+    List<Integer> expected = entries.stream().sorted().collect(Collectors.toList());
+    CountingCodec codec = new CountingCodec();
+    ExternalSorter<Integer> sorter = new ExternalSorter<>(
+        codec, 1000, Comparator.naturalOrder(), ExternalSorterTest::sortRun);
+
+    Window<Integer> actual = sorter.sortedWindow(entries.iterator(), 7000, 7050);
+    softly.assertThat(actual.entries())
+        .containsExactlyElementsOf(expected.subList(7000, 7050));
+    softly.assertThat(actual.total())
+        .isEqualTo(10_000L);
+    softly.assertThat(codec.written.get())
+        .isEqualTo(9000);
+
+    actual = sorter.sortedWindow(entries.iterator(), 9990, 10_010);
+    softly.assertThat(actual.entries())
+        .containsExactlyElementsOf(expected.subList(9990, 10_000));
+  }
+
+  /**
+   * Sorted window without spilling.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortedWindowWithoutSpilling(SoftAssertions softly) {
+    List<Integer> entries = new Random(7).ints(10_000)
+        .boxed()
+        .collect(Collectors.toList());
+    List<Integer> expected = entries.stream().sorted().collect(Collectors.toList());
+    CountingCodec codec = new CountingCodec();
+    ExternalSorter<Integer> sorter = new ExternalSorter<>(
+        codec, 1000, Comparator.naturalOrder(), ExternalSorterTest::sortRun);
+
+    Window<Integer> actual = sorter.sortedWindow(entries.iterator(), 100, 200);
+    softly.assertThat(actual.entries())
+        .containsExactlyElementsOf(expected.subList(100, 200));
+    softly.assertThat(actual.total())
+        .isEqualTo(10_000L);
+    softly.assertThat(codec.written.get())
+        .isEqualTo(0);
+  }
+
+  /**
+   * Sorted window with intermediate merges.
+   *
+   * @param softly the softly
+   * @throws IOException if the directory cannot be created
+   */
+  @Test
+  void sortedWindowWithIntermediateMerges(SoftAssertions softly) throws IOException {
+    List<Integer> entries = new Random(11).ints(5_000, 0, 100)
+        .boxed()
+        .collect(Collectors.toList());
+    List<Integer> expected = entries.stream().sorted().collect(Collectors.toList());
+    Path directory = Files.createTempDirectory("external-sorter-test-");
+    try {
+      CountingCodec codec = new CountingCodec();
+      ExternalSorter<Integer> sorter = new ExternalSorter<>(
+          codec, 100, Comparator.naturalOrder(), ExternalSorterTest::sortRun, directory, 3);
+
+      try (ExternalSorter<Integer>.Merge merge = sorter.sorted(entries.iterator(), 5_000L)) {
+        try (Stream<Path> files = Files.list(directory)) {
+          softly.assertThat(files.count())
+              .isLessThanOrEqualTo(3L);
+        }
+        List<Integer> actual = new ArrayList<>();
+        merge.forEachRemaining(actual::add);
+        softly.assertThat(actual)
+            .containsExactlyElementsOf(expected);
+      }
+      softly.assertThat(codec.written.get())
+          .isGreaterThan(4_900);
+
+      Window<Integer> window = sorter.sortedWindow(entries.iterator(), 2_000, 2_100);
+      softly.assertThat(window.entries())
+          .containsExactlyElementsOf(expected.subList(2_000, 2_100));
+      softly.assertThat(window.total())
+          .isEqualTo(5_000L);
+      try (Stream<Path> files = Files.list(directory)) {
+        softly.assertThat(files.count())
+            .isEqualTo(0L);
+      }
+    } finally {
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  private static int[] sortRun(List<?> entries, long from, long to) {
+    //noinspection unchecked
+    List<Integer> values = (List<Integer>) entries;
+    return PageSorter.sortedWindow(
+        values.size(), (i, j) -> values.get(i).compareTo(values.get(j)), from, to);
+  }
+
+  private static class CountingCodec implements EntryCodec<Integer> {
+
+    private final AtomicInteger written = new AtomicInteger();
+
+    @Override
+    public void write(Integer entry, DataOutput output) throws IOException {
+      written.incrementAndGet();
+      output.writeInt(entry);
+    }
+
+    @Override
+    public Integer read(DataInput input) throws IOException {
+      return input.readInt();
+    }
+  }
+}
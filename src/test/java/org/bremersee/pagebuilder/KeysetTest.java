@@ -0,0 +1,130 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.bremersee.pagebuilder.testmodel.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * The keyset test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class KeysetTest {
+
+  /**
+   * Encode and decode.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void encodeAndDecode(SoftAssertions softly) {
+    List<Object> values = Arrays.asList(
+        "M\u00fcller", 42, 7L, null, 1.5, true, 'x', new BigDecimal("10.50"),
+        Instant.parse("2022-01-01T12:00:00Z"), LocalDate.of(2022, 1, 1),
+        UUID.fromString("c0a80101-0000-4000-8000-000000000001"));
+    List<SortOrder> sort = values.stream()
+        .map(value -> new SortOrder("field", true, false, false))
+        .toList();
+    String token = Keyset.encode(sort, values);
+    softly.assertThat(token)
+        .matches("[A-Za-z0-9_-]+");
+    softly.assertThat(Keyset.decode(sort, token))
+        .containsExactlyElementsOf(values);
+  }
+
+  /**
+   * Decode with other sort orders.
+   */
+  @Test
+  void decodeWithOtherSortOrders() {
+    String token = Keyset.encode(
+        List.of(new SortOrder("city", true, false, false)), List.of("Berlin"));
+    assertThatThrownBy(() -> Keyset.decode(
+        List.of(new SortOrder("city", false, false, false)), token))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /**
+   * Decode invalid token.
+   */
+  @Test
+  void decodeInvalidToken() {
+    assertThatThrownBy(() -> Keyset.decode(
+        List.of(new SortOrder("city", true, false, false)), "not+a+token"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  /**
+   * Decode tampered values.
+   */
+  @Test
+  void decodeTamperedValues() {
+    List<SortOrder> sort = List.of(new SortOrder("value", true, false, false));
+    for (Object value : List.of(new BigDecimal("1.5"), BigInteger.TEN, new UUID(1L, 2L))) {
+      byte[] bytes = Base64.getUrlDecoder().decode(Keyset.encode(sort, List.of(value)));
+      bytes[bytes.length - 1] = 'x';
+      String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+      assertThatThrownBy(() -> Keyset.decode(sort, token))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("The continuation token is invalid.");
+    }
+  }
+
+  /**
+   * Is followed by.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void isFollowedBy(SoftAssertions softly) {
+    Keyset keyset = new Keyset(
+        List.of(
+            new SortOrder("address.city", false, false, true),
+            new SortOrder("firstname", true, true, false)),
+        Arrays.asList("Berlin", "bob"),
+        null);
+    softly.assertThat(keyset.isFollowedBy(new Person("Carl", "", new Address("Aachen"))))
+        .isTrue();
+    softly.assertThat(keyset.isFollowedBy(new Person("Carl", "", new Address("Berlin"))))
+        .isTrue();
+    softly.assertThat(keyset.isFollowedBy(new Person("Bob", "", new Address("Berlin"))))
+        .isFalse();
+    softly.assertThat(keyset.isFollowedBy(new Person("Anna", "", new Address("Berlin"))))
+        .isFalse();
+    softly.assertThat(keyset.isFollowedBy(new Person("Anna", "", null)))
+        .isFalse();
+    softly.assertThat(keyset.isFollowedBy(new Person("Anna", "", new Address("Essen"))))
+        .isFalse();
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.ComparatorBuilder;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.AccessorComparatorTest.Measure;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.bremersee.pagebuilder.testmodel.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * The normalized keys test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class NormalizedKeysTest {
+
+  /**
+   * Sort strings.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortStrings(SoftAssertions softly) {
+    Random random = new Random(42L);
+    String[] names = {"anna", "Anna", "Ann", "bob", "Bob", "b\u00f6b", "", null};
+    List<Person> entries = IntStream.range(0, 500)
+        .mapToObj(i -> {
+          String city = names[random.nextInt(names.length)];
+          return new Person(
+              names[random.nextInt(names.length)],
+              names[random.nextInt(names.length)],
+              city == null ? null : new Address(city));
+        })
+        .collect(Collectors.toList());
+    List<SortOrder> sort = List.of(
+        new SortOrder("address.city", false, true, true),
+        new SortOrder("firstname", true, false, false),
+        new SortOrder("lastname", false, false, true));
+
+    NormalizedKeys actual = NormalizedKeys.encode(entries, sort, null, false);
+    softly.assertThat(actual)
+        .isNotNull();
+    softly.assertThat(entriesOf(entries, actual.sort()))
+        .containsExactlyElementsOf(sorted(entries, sort));
+  }
+
+  /**
+   * Sort primitive values.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortPrimitiveValues(SoftAssertions softly) {
+    Random random = new Random(7L);
+    double[] weights = {-0.0, 0.0, -1.5, 2.5, Double.NaN, Double.NEGATIVE_INFINITY};
+    Integer[] ranks = {null, -4, 0, 2, Integer.MIN_VALUE, Integer.MAX_VALUE};
+    List<Measure> entries = IntStream.range(0, 1000)
+        .mapToObj(i -> new Measure(
+            random.nextInt(11) - 5,
+            weights[random.nextInt(weights.length)],
+            random.nextBoolean(),
+            ranks[random.nextInt(ranks.length)]))
+        .collect(Collectors.toList());
+    List<SortOrder> sort = List.of(
+        new SortOrder("active", false, false, false),
+        new SortOrder("rank", true, false, false),
+        new SortOrder("weight", false, false, false),
+        new SortOrder("count", true, false, false));
+
+    NormalizedKeys actual = NormalizedKeys.encode(entries, sort, null, true);
+    softly.assertThat(actual)
+        .isNotNull();
+    softly.assertThat(entriesOf(entries, actual.sort()))
+        .containsExactlyElementsOf(sorted(entries, sort));
+    softly.assertThat(entriesOf(entries, actual.sortedWindow(990L, 1010L)))
+        .containsExactlyElementsOf(sorted(entries, sort).subList(990, 1000));
+  }
+
+  /**
+   * Sort strings with long common prefixes.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortStringsWithLongCommonPrefixes(SoftAssertions softly) {
+    Random random = new Random(11L);
+    String prefix = "x".repeat(5000);
+    List<Address> entries = IntStream.range(0, 2000)
+        .mapToObj(i -> new Address(prefix + random.nextInt(50)))
+        .collect(Collectors.toList());
+    List<SortOrder> sort = List.of(new SortOrder("city", false, false, false));
+
+    NormalizedKeys actual = NormalizedKeys.encode(entries, sort, null, false);
+    softly.assertThat(actual)
+        .isNotNull();
+    softly.assertThat(entriesOf(entries, actual.sort()))
+        .containsExactlyElementsOf(sorted(entries, sort));
+  }
+
+  /**
+   * Encode unsupported value.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void encodeUnsupportedValue(SoftAssertions softly) {
+    softly.assertThat(NormalizedKeys.encode(
+            List.of(BigDecimal.ONE, BigDecimal.TEN),
+            List.of(new SortOrder(null, true, false, false)),
+            null,
+            false))
+        .isNull();
+    softly.assertThat(NormalizedKeys.encode(
+            List.of(new Person("Anna", "", null)),
+            List.of(new SortOrder("unknown", true, false, false)),
+            null,
+            false))
+        .isNull();
+  }
+
+  private static <E> List<E> entriesOf(List<E> entries, int[] indexes) {
+    return IntStream.of(indexes).mapToObj(entries::get).collect(Collectors.toList());
+  }
+
+  private static <E> List<E> sorted(List<E> entries, List<SortOrder> sort) {
+    Comparator<Object> comparator = ComparatorBuilder.newInstance()
+        .addAll(sort, AccessorComparator::new)
+        .build();
+    List<E> expected = new ArrayList<>(entries);
+    expected.sort(comparator);
+    return expected;
+  }
+}
@@ -17,12 +17,37 @@
 package org.bremersee.pagebuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
 import org.bremersee.comparator.ValueComparator;
 import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortStrategy;
 import org.bremersee.pagebuilder.PageBuilder.SortTarget;
 import org.bremersee.pagebuilder.testmodel.Address;
 import org.bremersee.pagebuilder.testmodel.Animal;
@@ -33,6 +58,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.data.domain.Sort.NullHandling;
@@ -46,6 +72,8 @@ import org.springframework.data.domain.Sort.Order;
 @ExtendWith(SoftAssertionsExtension.class)
 class PageBuilderTest {
 
+  private static final ForkJoinPool POOL = new ForkJoinPool(2);
+
   /**
    * Source filter.
    *
@@ -306,4 +334,803 @@ class PageBuilderTest {
     softly.assertThat(actual)
         .containsExactlyElementsOf(expected);
   }
-}
\ No newline at end of file
+
+  /**
+   * Sorted page of many entries.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortedPageOfManyEntries(SoftAssertions softly) {
+    List<Integer> entries = new Random(42L).ints(1000, 0, 500).boxed()
+        .collect(Collectors.toList());
+    List<Integer> expected = entries.stream()
+        .sorted(Comparator.reverseOrder())
+        .skip(30)
+        .limit(10)
+        .collect(Collectors.toList());
+    for (SortTarget sortTarget : SortTarget.values()) {
+      Page<Integer> actual = new PageBuilder<Integer, Integer>()
+          .sourceEntries(entries)
+          .pageable(3, 10, sortTarget, new SortOrder(null, false, false, false))
+          .build();
+      softly.assertThat(actual)
+          .containsExactlyElementsOf(expected);
+      softly.assertThat(actual.getTotalElements())
+          .isEqualTo(entries.size());
+    }
+  }
+
+  /**
+   * Converter is only applied to page entries.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void converterIsOnlyAppliedToPageEntries(SoftAssertions softly) {
+    List<Integer> entries = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+    AtomicInteger conversions = new AtomicInteger();
+    Page<String> actual = new PageBuilder<Integer, String>()
+        .sourceEntries(entries)
+        .sourceFilter(i -> i % 2 == 0)
+        .converter(i -> {
+          conversions.incrementAndGet();
+          return String.valueOf(i);
+        })
+        .pageable(1, 5, SortTarget.SOURCE_ENTRIES, new SortOrder(null, false, false, false))
+        .build();
+    softly.assertThat(actual)
+        .containsExactly("88", "86", "84", "82", "80");
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(50L);
+    softly.assertThat(conversions.get())
+        .isEqualTo(5);
+
+    conversions.set(0);
+    actual = new PageBuilder<Integer, String>()
+        .sourceEntries(entries)
+        .converter(i -> {
+          conversions.incrementAndGet();
+          return String.valueOf(i);
+        })
+        .pageable(2, 10)
+        .build();
+    softly.assertThat(actual)
+        .containsExactly("20", "21", "22", "23", "24", "25", "26", "27", "28", "29");
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(100L);
+    softly.assertThat(conversions.get())
+        .isEqualTo(10);
+  }
+
+  /**
+   * Unsorted page with target filter.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void unsortedPageWithTargetFilter(SoftAssertions softly) {
+    Page<String> actual = new PageBuilder<Integer, String>()
+        .sourceEntries(IntStream.range(0, 100).boxed())
+        .sourceFilter(i -> i % 2 == 0)
+        .converter(String::valueOf)
+        .targetFilter(s -> s.endsWith("0"))
+        .pageable(1, 3)
+        .build();
+    softly.assertThat(actual)
+        .containsExactly("30", "40", "50");
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(10L);
+    softly.assertThat(actual.getTotalPages())
+        .isEqualTo(4);
+  }
+
+  /**
+   * Parallel build is equal to sequential build.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void parallelBuildIsEqualToSequentialBuild(SoftAssertions softly) {
+    List<Person> entries = IntStream.range(0, 20000)
+        .mapToObj(i -> new Person(String.valueOf(i), "", new Address("City " + (i * 7919 % 100))))
+        .collect(Collectors.toList());
+    SortOrder sortOrder = new SortOrder("address.city", true, false, false);
+    for (int number : new int[]{0, 700}) {
+      for (SortTarget sortTarget : SortTarget.values()) {
+        Page<Person> expected = new PageBuilder<Person, Person>()
+            .sourceEntries(entries)
+            .pageable(number, 20, sortTarget, sortOrder)
+            .build();
+        Page<Person> actual = new PageBuilder<Person, Person>()
+            .sourceEntries(entries)
+            .pageable(number, 20, sortTarget, sortOrder)
+            .parallel(POOL)
+            .build();
+        softly.assertThat(actual)
+            .containsExactlyElementsOf(expected);
+        softly.assertThat(actual.getTotalElements())
+            .isEqualTo(expected.getTotalElements());
+      }
+    }
+
+    List<Person> expected = entries.stream()
+        .filter(person -> person.getFirstname().endsWith("7"))
+        .sorted(Comparator.comparing((Person p) -> p.getAddress().getCity()))
+        .skip(40)
+        .limit(20)
+        .collect(Collectors.toList());
+    Page<Person> actual = new PageBuilder<Person, Person>()
+        .sourceEntries(entries)
+        .targetFilter(person -> person.getFirstname().endsWith("7"))
+        .pageable(2, 20, new SortOrder("address.city", true, false, false))
+        .parallel()
+        .build();
+    softly.assertThat(actual)
+        .containsExactlyElementsOf(expected);
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(2000L);
+  }
+
+  /**
+   * Sort strategy with extracted keys.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortStrategyWithExtractedKeys(SoftAssertions softly) {
+    List<Person> entries = IntStream.range(0, 500)
+        .mapToObj(i -> new Person(
+            String.valueOf(i % 7),
+            String.valueOf(i),
+            i % 11 == 0 ? null : new Address("City " + (i % 13))))
+        .collect(Collectors.toList());
+    List<SortOrder> sort = List.of(
+        new SortOrder("address.city", false, true, true),
+        new SortOrder("firstname", true, false, false));
+    for (int number : new int[]{0, 7, 24}) {
+      Page<Person> expected = new PageBuilder<Person, Person>()
+          .sourceEntries(entries)
+          .pageable(number, 20, sort)
+          .build();
+      Page<Person> actual = new PageBuilder<Person, Person>()
+          .sourceEntries(entries)
+          .pageable(number, 20, sort)
+          .sortStrategy(SortStrategy.EXTRACTED_KEYS)
+          .build();
+      softly.assertThat(actual)
+          .containsExactlyElementsOf(expected);
+      softly.assertThat(actual.getTotalElements())
+          .isEqualTo(500L);
+    }
+  }
+
+  /**
+   * Sort strategy with normalized keys.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortStrategyWithNormalizedKeys(SoftAssertions softly) {
+    List<Person> entries = IntStream.range(0, 500)
+        .mapToObj(i -> new Person(
+            String.valueOf(i % 7),
+            String.valueOf(i),
+            i % 11 == 0 ? null : new Address((i % 2 == 0 ? "city " : "City ") + (i % 13))))
+        .collect(Collectors.toList());
+    List<SortOrder> sort = List.of(
+        new SortOrder("address.city", false, true, true),
+        new SortOrder("firstname", true, false, false));
+    for (Collator collator : new Collator[]{null, Collator.getInstance(Locale.GERMAN)}) {
+      for (int number : new int[]{0, 7, 24}) {
+        Page<Person> expected = new PageBuilder<Person, Person>()
+            .sourceEntries(entries)
+            .pageable(number, 20, sort)
+            .collator(collator)
+            .build();
+        Page<Person> actual = new PageBuilder<Person, Person>()
+            .sourceEntries(entries)
+            .pageable(number, 20, sort)
+            .collator(collator)
+            .sortStrategy(SortStrategy.NORMALIZED_KEYS)
+            .build();
+        softly.assertThat(actual)
+            .containsExactlyElementsOf(expected);
+        softly.assertThat(actual.getTotalElements())
+            .isEqualTo(500L);
+      }
+    }
+  }
+
+  /**
+   * Keyset pages.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void keysetPages(SoftAssertions softly) {
+    List<Person> entries = IntStream.range(0, 95)
+        .mapToObj(i -> new Person(
+            String.valueOf(i % 7),
+            String.format("%03d", i),
+            i % 11 == 0 ? null : new Address("City " + (i % 13))))
+        .collect(Collectors.toList());
+    List<SortOrder> sort = List.of(
+        new SortOrder("address.city", false, true, true),
+        new SortOrder("lastname", true, false, false));
+    for (SortTarget sortTarget : SortTarget.values()) {
+      List<String> expected = new PageBuilder<Person, String>()
+          .sourceEntries(entries)
+          .converter(Person::getLastname)
+          .pageable(0, 100, SortTarget.SOURCE_ENTRIES, sort)
+          .build()
+          .getContent();
+      List<String> actual = new ArrayList<>();
+      String token = null;
+      int pages = 0;
+      do {
+        PageBuilder<Person, Person> builder = new PageBuilder<Person, Person>()
+            .sourceEntries(entries)
+            .pageable(3, 10, sortTarget, sort)
+            .continuationToken(token);
+        KeysetPage<Person> page = builder.buildKeysetPage();
+        softly.assertThat(page.getNumber())
+            .isEqualTo(0);
+        softly.assertThat(page.getTotalElements())
+            .isEqualTo(95L - actual.size());
+        page.getContent().forEach(person -> actual.add(person.getLastname()));
+        token = page.getContinuationToken();
+        pages++;
+      } while (token != null && pages < 20);
+      softly.assertThat(pages)
+          .isEqualTo(10);
+      softly.assertThat(actual)
+          .containsExactlyElementsOf(expected);
+    }
+  }
+
+  /**
+   * Keyset values.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void keysetValues(SoftAssertions softly) {
+    List<Address> entries = List.of(
+        new Address("Zwickau"),
+        new Address("Aachen"),
+        new Address("Berlin"),
+        new Address("Essen"));
+    Page<Address> actual = new PageBuilder<Address, Address>()
+        .sourceEntries(entries)
+        .pageable(0, 2, new SortOrder("city", true, false, false))
+        .keyset(List.of("Berlin"))
+        .build();
+    softly.assertThat(actual)
+        .containsExactly(new Address("Essen"), new Address("Zwickau"));
+    softly.assertThat(actual)
+        .isInstanceOf(KeysetPage.class);
+    softly.assertThat(((KeysetPage<Address>) actual).getContinuationToken())
+        .isNull();
+  }
+
+  /**
+   * Keyset pagination without sort orders.
+   */
+  @Test
+  void keysetWithoutSortOrders() {
+    PageBuilder<Address, Address> builder = new PageBuilder<Address, Address>()
+        .sourceEntries(List.of(new Address("Ulm")))
+        .pageable(0, 2)
+        .keyset(List.of("Ulm"));
+    assertThatThrownBy(builder::query)
+        .isInstanceOf(IllegalStateException.class);
+    assertThatThrownBy(builder::buildKeysetPage)
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  /**
+   * Collator.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void collator(SoftAssertions softly) {
+    List<Address> entries = List.of(
+        new Address("Zwickau"),
+        new Address("\u00d6hringen"),
+        new Address("aachen"),
+        new Address("Oberhausen"),
+        new Address("Aachen"),
+        new Address("\u00c4chtal"));
+    Page<Address> actual = new PageBuilder<Address, Address>()
+        .sourceEntries(entries)
+        .pageable(0, 10, new SortOrder("city", true, true, false))
+        .collator(Collator.getInstance(Locale.GERMAN))
+        .build();
+    softly.assertThat(actual)
+        .containsExactly(
+            new Address("aachen"),
+            new Address("Aachen"),
+            new Address("\u00c4chtal"),
+            new Address("Oberhausen"),
+            new Address("\u00d6hringen"),
+            new Address("Zwickau"));
+
+    actual = new PageBuilder<Address, Address>()
+        .sourceEntries(entries)
+        .pageable(0, 2, new SortOrder("city", false, false, false))
+        .collator(Collator.getInstance(Locale.GERMAN))
+        .build();
+    softly.assertThat(actual)
+        .containsExactly(
+            new Address("Zwickau"),
+            new Address("\u00d6hringen"));
+  }
+
+  /**
+   * Unsorted slice.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void unsortedSlice(SoftAssertions softly) {
+    AtomicInteger pulled = new AtomicInteger();
+    Iterator<Integer> source = IntStream.range(0, 1000)
+        .peek(i -> pulled.incrementAndGet())
+        .boxed()
+        .iterator();
+    Slice<String> actual = new PageBuilder<Integer, String>()
+        .sourceEntries(source)
+        .sourceFilter(i -> i % 2 == 0)
+        .converter(String::valueOf)
+        .pageable(1, 3)
+        .buildSlice();
+    softly.assertThat(actual.getContent())
+        .containsExactly("6", "8", "10");
+    softly.assertThat(actual.hasNext())
+        .isTrue();
+    softly.assertThat(actual.getNumber())
+        .isEqualTo(1);
+    softly.assertThat(pulled.get())
+        .isEqualTo(13);
+  }
+
+  /**
+   * Sorted slice.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortedSlice(SoftAssertions softly) {
+    List<Address> entries = List.of(
+        new Address("Zwickau"),
+        new Address("Aachen"),
+        new Address("Berlin"),
+        new Address("Essen"));
+    PageBuilder<Address, Address> builder = new PageBuilder<Address, Address>()
+        .sourceEntries(entries)
+        .pageable(0, 2, new SortOrder("city", true, false, false));
+    Slice<Address> actual = builder.buildSlice();
+    softly.assertThat(actual.getContent())
+        .containsExactly(new Address("Aachen"), new Address("Berlin"));
+    softly.assertThat(actual.hasNext())
+        .isTrue();
+
+    actual = new PageBuilder<Address, Address>()
+        .sourceEntries(entries)
+        .pageable(1, 2, new SortOrder("city", true, false, false))
+        .buildSlice();
+    softly.assertThat(actual.getContent())
+        .containsExactly(new Address("Essen"), new Address("Zwickau"));
+    softly.assertThat(actual.hasNext())
+        .isFalse();
+  }
+
+  /**
+   * Spill to disk.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void spillToDisk(SoftAssertions softly) {
+    Random random = new Random(11L);
+    String[] cities = {"Aachen", "\u00c4chtal", "Berlin", "essen", "Essen", "Ulm"};
+    List<Person> entries = IntStream.range(0, 950)
+        .mapToObj(i -> new Person(
+            "P" + random.nextInt(100),
+            "L" + i,
+            random.nextInt(10) == 0 ? null : new Address(cities[random.nextInt(cities.length)])))
+        .collect(Collectors.toList());
+    EntryCodec<Person> codec = new EntryCodec<>() {
+      @Override
+      public void write(Person entry, DataOutput output) throws IOException {
+        output.writeUTF(entry.getFirstname());
+        output.writeUTF(entry.getLastname());
+        output.writeBoolean(entry.getAddress() != null);
+        if (entry.getAddress() != null) {
+          output.writeUTF(entry.getAddress().getCity());
+        }
+      }
+
+      @Override
+      public Person read(DataInput input) throws IOException {
+        return new Person(
+            input.readUTF(),
+            input.readUTF(),
+            input.readBoolean() ? new Address(input.readUTF()) : null);
+      }
+    };
+    List<SortOrder> sort = List.of(
+        new SortOrder("address.city", true, true, false),
+        new SortOrder("firstname", false, false, false));
+    for (SortTarget sortTarget : SortTarget.values()) {
+      for (Collator collator : new Collator[]{null, Collator.getInstance(Locale.GERMAN)}) {
+        for (int pageNumber : new int[]{0, 5, 90}) {
+          Page<Person> expected = new PageBuilder<Person, Person>()
+              .sourceEntries(entries)
+              .targetFilter(person -> !person.getFirstname().endsWith("7"))
+              .pageable(pageNumber, 9, sortTarget, sort)
+              .collator(collator)
+              .build();
+          Page<Person> actual = new PageBuilder<Person, Person>()
+              .sourceEntries(entries)
+              .targetFilter(person -> !person.getFirstname().endsWith("7"))
+              .pageable(pageNumber, 9, sortTarget, sort)
+              .collator(collator)
+              .spillToDisk(100, codec)
+              .build();
+          softly.assertThat(actual.getContent())
+              .containsExactlyElementsOf(expected.getContent());
+          softly.assertThat(actual.getTotalElements())
+              .isEqualTo(expected.getTotalElements());
+        }
+      }
+    }
+  }
+
+  /**
+   * Build async.
+   *
+   * @param softly the softly
+   * @throws Exception the exception
+   */
+  @Test
+  void buildAsync(SoftAssertions softly) throws Exception {
+    List<Address> entries = IntStream.range(0, 500)
+        .mapToObj(i -> new Address("City " + (i * 7919 % 500)))
+        .collect(Collectors.toList());
+    for (SortTarget sortTarget : SortTarget.values()) {
+      PageBuilder<Address, Address> builder = new PageBuilder<Address, Address>()
+          .sourceEntries(entries)
+          .sourceFilter(address -> !address.getCity().endsWith("3"))
+          .pageable(4, 25, sortTarget, new SortOrder("city", false, false, false));
+      Page<Address> expected = builder.build();
+      CompletableFuture<Page<Address>> actual;
+      try (SubmissionPublisher<Address> publisher = new SubmissionPublisher<>()) {
+        actual = builder.buildAsync(publisher);
+        entries.forEach(publisher::submit);
+      }
+      Page<Address> page = actual.get(10, TimeUnit.SECONDS);
+      softly.assertThat(page.getContent())
+          .containsExactlyElementsOf(expected.getContent());
+      softly.assertThat(page.getTotalElements())
+          .isEqualTo(expected.getTotalElements());
+    }
+  }
+
+  /**
+   * Converter executor.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void converterExecutor(SoftAssertions softly) {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Integer> entries = new Random(5L).ints(300, 0, 1000).boxed()
+          .collect(Collectors.toList());
+      AtomicInteger conversions = new AtomicInteger();
+      Page<String> actual = new PageBuilder<Integer, String>()
+          .sourceEntries(entries)
+          .converter(i -> {
+            conversions.incrementAndGet();
+            return String.valueOf(i);
+          })
+          .pageable(2, 50, SortTarget.SOURCE_ENTRIES, new SortOrder(null, true, false, false))
+          .converterExecutor(executor, 8)
+          .build();
+      softly.assertThat(actual.getContent())
+          .containsExactlyElementsOf(entries.stream()
+              .sorted()
+              .skip(100)
+              .limit(50)
+              .map(String::valueOf)
+              .toList());
+      softly.assertThat(conversions.get())
+          .isEqualTo(50);
+
+      actual = new PageBuilder<Integer, String>()
+          .sourceEntries(entries)
+          .converter(String::valueOf)
+          .targetFilter(s -> s.length() > 2)
+          .pageable(1, 20, new SortOrder(null, false, false, false))
+          .converterExecutor(executor, 8)
+          .build();
+      softly.assertThat(actual.getContent())
+          .containsExactlyElementsOf(entries.stream()
+              .map(String::valueOf)
+              .filter(s -> s.length() > 2)
+              .sorted(Comparator.reverseOrder())
+              .skip(20)
+              .limit(20)
+              .toList());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Batch converter.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void batchConverter(SoftAssertions softly) {
+    List<Integer> entries = IntStream.range(0, 200).boxed().collect(Collectors.toList());
+    List<List<Integer>> batches = new ArrayList<>();
+    Page<String> actual = new PageBuilder<Integer, String>()
+        .sourceEntries(entries)
+        .sourceFilter(i -> i % 2 == 1)
+        .batchConverter(sources -> {
+          batches.add(sources);
+          return sources.stream().map(String::valueOf).toList();
+        })
+        .pageable(3, 5)
+        .build();
+    softly.assertThat(actual.getContent())
+        .containsExactly("31", "33", "35", "37", "39");
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(100L);
+    softly.assertThat(batches)
+        .containsExactly(List.of(31, 33, 35, 37, 39));
+
+    batches.clear();
+    actual = new PageBuilder<Integer, String>()
+        .sourceEntries(entries)
+        .batchConverter(sources -> {
+          batches.add(sources);
+          return sources.stream().map(String::valueOf).toList();
+        }, 64)
+        .targetFilter(s -> s.endsWith("1"))
+        .pageable(1, 3, new SortOrder(null, false, false, false))
+        .build();
+    softly.assertThat(actual.getContent())
+        .containsExactly("61", "51", "41");
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(20L);
+    softly.assertThat(batches.stream().map(List::size).toList())
+        .containsExactly(64, 64, 64, 8);
+  }
+
+  /**
+   * Build all.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildAll(SoftAssertions softly) {
+    List<Integer> entries = new Random(13L).ints(95, 0, 50).boxed()
+        .collect(Collectors.toList());
+    EntryCodec<Integer> codec = new EntryCodec<>() {
+      @Override
+      public void write(Integer entry, DataOutput output) throws IOException {
+        output.writeInt(entry);
+      }
+
+      @Override
+      public Integer read(DataInput input) throws IOException {
+        return input.readInt();
+      }
+    };
+    for (SortTarget sortTarget : SortTarget.values()) {
+      for (boolean spill : new boolean[]{false, true}) {
+        for (boolean filter : new boolean[]{false, true}) {
+          PageBuilder<Integer, Integer> builder = new PageBuilder<Integer, Integer>()
+              .sourceEntries(entries)
+              .pageable(0, 10, sortTarget, new SortOrder(null, false, false, false));
+          if (spill) {
+            builder.spillToDisk(20, codec);
+          }
+          if (filter) {
+            builder.targetFilter(i -> i % 5 != 0);
+          }
+          List<Page<Integer>> actual;
+          try (Stream<Page<Integer>> pages = builder.buildAll()) {
+            actual = pages.toList();
+          }
+          List<Integer> expected = entries.stream()
+              .filter(i -> !filter || i % 5 != 0)
+              .sorted(Comparator.reverseOrder())
+              .toList();
+          softly.assertThat(actual.stream().map(Page::getNumber).toList())
+              .containsExactlyElementsOf(IntStream
+                  .range(0, (expected.size() + 9) / 10).boxed().toList());
+          softly.assertThat(actual.stream().flatMap(page -> page.getContent().stream()).toList())
+              .containsExactlyElementsOf(expected);
+          softly.assertThat(actual.stream().map(Page::getTotalElements).distinct().toList())
+              .containsExactly((long) expected.size());
+        }
+      }
+    }
+  }
+
+  /**
+   * Build all from page number.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildAllFromPageNumber(SoftAssertions softly) {
+    AtomicInteger conversions = new AtomicInteger();
+    List<Page<String>> actual = new PageBuilder<Integer, String>()
+        .sourceEntries(IntStream.range(0, 25).boxed().toList())
+        .converter(i -> {
+          conversions.incrementAndGet();
+          return String.valueOf(i);
+        })
+        .pageable(1, 10)
+        .buildAll()
+        .toList();
+    softly.assertThat(actual)
+        .hasSize(2);
+    softly.assertThat(actual.get(0).getContent())
+        .containsExactly("10", "11", "12", "13", "14", "15", "16", "17", "18", "19");
+    softly.assertThat(actual.get(1).getContent())
+        .containsExactly("20", "21", "22", "23", "24");
+    softly.assertThat(actual.get(1).getNumber())
+        .isEqualTo(2);
+    softly.assertThat(conversions.get())
+        .isEqualTo(15);
+
+    actual = new PageBuilder<Integer, String>()
+        .sourceEntries(List.of())
+        .pageable(0, 10)
+        .buildAll()
+        .toList();
+    softly.assertThat(actual)
+        .hasSize(1);
+    softly.assertThat(actual.get(0).getTotalElements())
+        .isEqualTo(0L);
+  }
+
+  /**
+   * Build all with a fork join pool converts the pages in that pool.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildAllWithForkJoinPool(SoftAssertions softly) {
+    Set<Boolean> inPool = ConcurrentHashMap.newKeySet();
+    List<Page<String>> actual;
+    try (Stream<Page<String>> pages = new PageBuilder<Integer, String>()
+        .sourceEntries(IntStream.range(0, 100).boxed().toList())
+        .converter(i -> {
+          inPool.add(Thread.currentThread() instanceof ForkJoinWorkerThread worker
+              && worker.getPool() == POOL);
+          return String.valueOf(i);
+        })
+        .pageable(0, 30, SortTarget.SOURCE_ENTRIES, new SortOrder(null, false, false, false))
+        .parallel(POOL)
+        .buildAll()) {
+      actual = pages.toList();
+    }
+    softly.assertThat(actual)
+        .hasSize(4);
+    softly.assertThat(actual.get(3).getContent())
+        .containsExactly("9", "8", "7", "6", "5", "4", "3", "2", "1", "0");
+    softly.assertThat(inPool)
+        .containsExactly(true);
+    softly.assertThat(POOL.isShutdown())
+        .isFalse();
+  }
+
+  /**
+   * Build pages.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildPages(SoftAssertions softly) {
+    List<Integer> entries = new Random(17L).ints(95, 0, 50).boxed()
+        .collect(Collectors.toList());
+    EntryCodec<Integer> codec = new EntryCodec<>() {
+      @Override
+      public void write(Integer entry, DataOutput output) throws IOException {
+        output.writeInt(entry);
+      }
+
+      @Override
+      public Integer read(DataInput input) throws IOException {
+        return input.readInt();
+      }
+    };
+    for (SortTarget sortTarget : SortTarget.values()) {
+      for (boolean spill : new boolean[]{false, true}) {
+        for (boolean filter : new boolean[]{false, true}) {
+          for (boolean sorted : new boolean[]{false, true}) {
+            IntFunction<PageBuilder<Integer, Integer>> builder = number -> {
+              PageBuilder<Integer, Integer> pageBuilder = new PageBuilder<Integer, Integer>()
+                  .sourceEntries(entries);
+              if (sorted) {
+                pageBuilder.pageable(number, 10, sortTarget,
+                    new SortOrder(null, false, false, false));
+              } else {
+                pageBuilder.pageable(number, 10);
+              }
+              if (spill) {
+                pageBuilder.spillToDisk(20, codec);
+              }
+              if (filter) {
+                pageBuilder.targetFilter(i -> i % 5 != 0);
+              }
+              return pageBuilder;
+            };
+            List<Page<Integer>> actual = builder.apply(0).buildPages(4, 2, 3, 12);
+            softly.assertThat(actual.stream().map(Page::getNumber).toList())
+                .containsExactly(4, 2, 3, 12);
+            for (Page<Integer> page : actual) {
+              Page<Integer> expected = builder.apply(page.getNumber()).build();
+              softly.assertThat(page.getContent())
+                  .containsExactlyElementsOf(expected.getContent());
+              softly.assertThat(page.getTotalElements())
+                  .isEqualTo(expected.getTotalElements());
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Build pages converts only the entries of the pages.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildPagesConvertsOnlyEntriesOfPages(SoftAssertions softly) {
+    AtomicInteger conversions = new AtomicInteger();
+    PageBuilder<Integer, String> builder = new PageBuilder<Integer, String>()
+        .sourceEntries(IntStream.range(0, 100).boxed().toList())
+        .converter(i -> {
+          conversions.incrementAndGet();
+          return String.valueOf(i);
+        })
+        .pageable(0, 10, SortTarget.SOURCE_ENTRIES, new SortOrder(null, false, false, false));
+    List<Page<String>> actual = builder.buildPages(3, 4, 5);
+    softly.assertThat(actual)
+        .hasSize(3);
+    softly.assertThat(actual.get(0).getContent())
+        .containsExactly("69", "68", "67", "66", "65", "64", "63", "62", "61", "60");
+    softly.assertThat(actual.get(2).getContent())
+        .containsExactly("49", "48", "47", "46", "45", "44", "43", "42", "41", "40");
+    softly.assertThat(actual.get(1).getTotalElements())
+        .isEqualTo(100L);
+    softly.assertThat(conversions.get())
+        .isEqualTo(30);
+    softly.assertThat(builder.buildPages())
+        .isEmpty();
+  }
+
+  /**
+   * Build pages with negative page number.
+   */
+  @Test
+  void buildPagesWithNegativePageNumber() {
+    PageBuilder<Integer, Integer> builder = new PageBuilder<Integer, Integer>()
+        .sourceEntries(List.of(1, 2, 3))
+        .pageable(0, 10);
+    assertThatThrownBy(() -> builder.buildPages(0, -1))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.data.domain.Page;
+
+/**
+ * The page query test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class PageQueryTest {
+
+  /**
+   * Execute against many sources.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void executeAgainstManySources(SoftAssertions softly) {
+    List<SortOrder> sort = List.of(new SortOrder("city", false, false, false));
+    PageQuery<Address, String> query = new PageBuilder<Address, String>()
+        .sourceFilter(address -> !address.getCity().startsWith("X"))
+        .converter(Address::getCity)
+        .pageable(0, 2, SortTarget.SOURCE_ENTRIES, sort)
+        .query();
+    softly.assertThat(query.getSort())
+        .containsExactlyElementsOf(sort);
+
+    Page<String> actual = query.execute(List.of(
+        new Address("Aachen"), new Address("Xanten"), new Address("Berlin")));
+    softly.assertThat(actual)
+        .containsExactly("Berlin", "Aachen");
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(2L);
+
+    actual = query.execute(List.of(
+        new Address("Zwickau"), new Address("Essen"), new Address("Ulm")));
+    softly.assertThat(actual)
+        .containsExactly("Zwickau", "Ulm");
+
+    actual = query.withPage(1, 2).execute(List.of(
+        new Address("Zwickau"), new Address("Essen"), new Address("Ulm")));
+    softly.assertThat(actual)
+        .containsExactly("Essen");
+    softly.assertThat(actual.getNumber())
+        .isEqualTo(1);
+  }
+
+  /**
+   * Execute concurrently.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void executeConcurrently(SoftAssertions softly) {
+    PageQuery<Address, Address> query = new PageBuilder<Address, Address>()
+        .pageable(3, 10, new SortOrder("city", true, true, false))
+        .query();
+    List<CompletableFuture<Page<Address>>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      int shift = i;
+      futures.add(CompletableFuture.supplyAsync(() -> query.execute(IntStream.range(0, 1000)
+          .mapToObj(n -> new Address("City " + ((n + shift) % 1000 + 1000)))
+          .collect(Collectors.toList()))));
+    }
+    List<Address> expected = IntStream.range(1030, 1040)
+        .mapToObj(n -> new Address("City " + n))
+        .collect(Collectors.toList());
+    for (CompletableFuture<Page<Address>> future : futures) {
+      softly.assertThat(future.join())
+          .containsExactlyElementsOf(expected);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.bremersee.pagebuilder.PageSorter.IndexComparator;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The page sorter test.
+ *
+ * @author Christian Bremer
+ */
+class PageSorterTest {
+
+  private static final int[] VALUES = new Random(42L).ints(1000, 0, 100).toArray();
+
+  private static final IndexComparator COMPARATOR = (i, j) -> Integer.compare(VALUES[i], VALUES[j]);
+
+  /**
+   * Returns the indexes of the window of a stable full sort.
+   */
+  private static List<Integer> expected(long from, long to) {
+    return IntStream.range(0, VALUES.length)
+        .boxed()
+        .sorted(Comparator.comparingInt(i -> VALUES[i]))
+        .skip(from)
+        .limit(to - from)
+        .collect(Collectors.toList());
+  }
+
+  private static List<Integer> toList(int[] indexes) {
+    List<Integer> list = new ArrayList<>(indexes.length);
+    for (int index : indexes) {
+      list.add(index);
+    }
+    return list;
+  }
+
+  /**
+   * Sorted window of first page.
+   */
+  @Test
+  void sortedWindowOfFirstPage() {
+    int[] actual = PageSorter.sortedWindow(VALUES.length, COMPARATOR, 0, 20);
+    assertThat(toList(actual))
+        .containsExactlyElementsOf(expected(0, 20));
+  }
+
+  /**
+   * Sorted window of middle page.
+   */
+  @Test
+  void sortedWindowOfMiddlePage() {
+    int[] actual = PageSorter.sortedWindow(VALUES.length, COMPARATOR, 480, 520);
+    assertThat(toList(actual))
+        .containsExactlyElementsOf(expected(480, 520));
+  }
+
+  /**
+   * Sorted window of deep page.
+   */
+  @Test
+  void sortedWindowOfDeepPage() {
+    int[] actual = PageSorter.sortedWindow(VALUES.length, COMPARATOR, 900, 920);
+    assertThat(toList(actual))
+        .containsExactlyElementsOf(expected(900, 920));
+  }
+
+  /**
+   * Sorted window of all entries.
+   */
+  @Test
+  void sortedWindowOfAllEntries() {
+    int[] actual = PageSorter.sortedWindow(VALUES.length, COMPARATOR, 0, Integer.MAX_VALUE);
+    assertThat(toList(actual))
+        .containsExactlyElementsOf(expected(0, VALUES.length));
+  }
+
+  /**
+   * Select.
+   */
+  @Test
+  void select() {
+    IndexComparator stable = PageSorter.stable(COMPARATOR);
+    int[] actual = PageSorter.identity(VALUES.length);
+    PageSorter.select(actual, 0, actual.length, 700, stable);
+    assertThat(actual[700])
+        .isEqualTo(expected(700, 701).get(0));
+  }
+
+  /**
+   * Sorted window of last page.
+   */
+  @Test
+  void sortedWindowOfLastPage() {
+    int[] actual = PageSorter.sortedWindow(VALUES.length, COMPARATOR, 990, 1010);
+    assertThat(toList(actual))
+        .containsExactlyElementsOf(expected(990, 1000));
+  }
+
+  /**
+   * Sorted window after last page.
+   */
+  @Test
+  void sortedWindowAfterLastPage() {
+    int[] actual = PageSorter.sortedWindow(VALUES.length, COMPARATOR, 1000, 1010);
+    assertThat(actual.length)
+        .isEqualTo(0);
+  }
+
+  /**
+   * Sort.
+   */
+  @Test
+  void sort() {
+    int[] actual = PageSorter.identity(VALUES.length);
+    PageSorter.sort(actual, 0, actual.length, COMPARATOR);
+    assertThat(toList(actual))
+        .containsExactlyElementsOf(expected(0, VALUES.length));
+  }
+
+  /**
+   * Parallel sorted window.
+   */
+  @Test
+  void parallelSortedWindow() {
+    int[] values = new Random(7L).ints(50000, 0, 1000).toArray();
+    IndexComparator comparator = (i, j) -> Integer.compare(values[i], values[j]);
+    for (long from : new long[]{0, 100, 25000, 49990}) {
+      int[] expected = PageSorter.sortedWindow(values.length, comparator, from, from + 20);
+      int[] actual = PageSorter.parallelSortedWindow(values.length, comparator, from, from + 20);
+      assertThat(toList(actual))
+          .containsExactlyElementsOf(toList(expected));
+    }
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow.Publisher;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.pagebuilder.PageSubscriber.Window;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * The page subscriber test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class PageSubscriberTest {
+
+  /**
+   * Sorted window with backpressure.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void sortedWindowWithBackpressure(SoftAssertions softly) {
+    List<Integer> entries = new Random(3L).ints(2000, 0, 100)
+        .boxed()
+        .collect(Collectors.toList());
+    ListPublisher<Integer> publisher = new ListPublisher<>(entries);
+    PageSubscriber<Integer, String, Window<String>> subscriber = new PageSubscriber<>(
+        i -> i % 3 != 0,
+        String::valueOf,
+        sources -> sources.stream().map(String::valueOf).toList(),
+        null,
+        (a, b) -> Integer.compare((Integer) b, (Integer) a),
+        true,
+        20,
+        30,
+        window -> window);
+    publisher.subscribe(subscriber);
+    Window<String> actual = subscriber.getResult().join();
+
+    List<Integer> matching = entries.stream().filter(i -> i % 3 != 0).toList();
+    softly.assertThat(actual.targets())
+        .containsExactlyElementsOf(matching.stream()
+            .sorted(Comparator.reverseOrder())
+            .skip(20)
+            .limit(10)
+            .map(String::valueOf)
+            .toList());
+    softly.assertThat(actual.total())
+        .isEqualTo(matching.size());
+    softly.assertThat(publisher.maxDemand.get())
+        .isEqualTo(PageSubscriber.REQUEST_SIZE);
+  }
+
+  /**
+   * Unsorted window.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void unsortedWindow(SoftAssertions softly) {
+    ListPublisher<Integer> publisher = new ListPublisher<>(
+        IntStream.range(0, 1000).boxed().toList());
+    PageSubscriber<Integer, Integer, Window<Integer>> subscriber = new PageSubscriber<>(
+        i -> true,
+        i -> i * 2,
+        sources -> sources.stream().map(i -> i * 2).toList(),
+        i -> i % 4 == 0,
+        null,
+        false,
+        10,
+        13,
+        window -> window);
+    publisher.subscribe(subscriber);
+    Window<Integer> actual = subscriber.getResult().join();
+    softly.assertThat(actual.targets())
+        .containsExactly(40, 44, 48);
+    softly.assertThat(actual.total())
+        .isEqualTo(500L);
+  }
+
+  /**
+   * Cancel.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void cancel(SoftAssertions softly) {
+    ListPublisher<Integer> publisher = new ListPublisher<>(List.of(1, 2, 3));
+    publisher.deferred = true;
+    PageSubscriber<Integer, Integer, Window<Integer>> subscriber = new PageSubscriber<>(
+        i -> true, i -> i, sources -> sources, null, null, false, 0, 10, window -> window);
+    publisher.subscribe(subscriber);
+    CompletableFuture<Window<Integer>> result = subscriber.getResult();
+    result.cancel(false);
+    softly.assertThat(publisher.cancelled)
+        .isTrue();
+  }
+
+  private static class ListPublisher<E> implements Publisher<E> {
+
+    private final Iterator<E> entries;
+
+    private final AtomicLong maxDemand = new AtomicLong();
+
+    private boolean deferred;
+
+    private boolean cancelled;
+
+    ListPublisher(List<E> entries) {
+      this.entries = entries.iterator();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super E> subscriber) {
+      subscriber.onSubscribe(new Subscription() {
+
+        private long demand;
+
+        private boolean emitting;
+
+        @Override
+        public void request(long n) {
+          demand += n;
+          maxDemand.accumulateAndGet(demand, Math::max);
+          if (emitting || deferred) {
+            return;
+          }
+          emitting = true;
+          while (demand > 0 && !cancelled && entries.hasNext()) {
+            demand--;
+            subscriber.onNext(entries.next());
+          }
+          if (!cancelled && !entries.hasNext()) {
+            subscriber.onComplete();
+          }
+          emitting = false;
+        }
+
+        @Override
+        public void cancel() {
+          cancelled = true;
+        }
+      });
+    }
+  }
+}
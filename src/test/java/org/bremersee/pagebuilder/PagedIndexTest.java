@@ -0,0 +1,277 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.bremersee.pagebuilder.testmodel.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.data.domain.Page;
+
+/**
+ * The paged index test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class PagedIndexTest {
+
+  private static final SortOrder BY_CITY = new SortOrder("address.city", true, false, false);
+
+  /**
+   * Add, remove and update.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void addRemoveAndUpdate(SoftAssertions softly) {
+    Random random = new Random(29L);
+    PagedIndex<Person> index = new PagedIndex<>(List.of(BY_CITY));
+    List<Person> expected = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int operation = random.nextInt(4);
+      if (operation < 2 || expected.isEmpty()) {
+        Person person = person(random, "p" + i);
+        index.add(person);
+        expected.add(person);
+      } else if (operation == 2) {
+        Person person = expected.remove(random.nextInt(expected.size()));
+        softly.assertThat(index.remove(person))
+            .isTrue();
+      } else {
+        int position = random.nextInt(expected.size());
+        Person person = person(random, "u" + i);
+        softly.assertThat(index.update(expected.get(position), person))
+            .isTrue();
+        expected.set(position, person);
+      }
+    }
+    List<Person> sorted = expected.stream()
+        .sorted(Comparator.comparing(person -> person.getAddress().getCity()))
+        .toList();
+    softly.assertThat(index.size())
+        .isEqualTo(sorted.size());
+    softly.assertThat(index)
+        .containsExactlyElementsOf(sorted);
+    softly.assertThat(index.getRange(10, 20))
+        .containsExactlyElementsOf(sorted.subList(10, 20));
+    Page<Person> page = index.getPage(3, 25);
+    softly.assertThat(page.getContent())
+        .containsExactlyElementsOf(sorted.subList(75, 100));
+    softly.assertThat(page.getTotalElements())
+        .isEqualTo(sorted.size());
+    softly.assertThat(index.remove(person(random, "unknown")))
+        .isFalse();
+
+    index.clear();
+    softly.assertThat(index.size())
+        .isEqualTo(0);
+  }
+
+  /**
+   * Remove and update without sort orders and with equal entries.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void removeAndUpdateWithoutSortAndWithEqualEntries(SoftAssertions softly) {
+    List<SortOrder> noSort = List.of();
+    for (List<SortOrder> sort : List.of(noSort, List.of(BY_CITY))) {
+      PagedIndex<Person> index = new PagedIndex<>(sort);
+      List<Person> expected = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        Person person = new Person("p" + i % 10, "", new Address("Berlin"));
+        index.add(person);
+        expected.add(person);
+      }
+      Person updated = new Person("u", "", new Address("Berlin"));
+      softly.assertThat(index.update(new Person("p3", "", new Address("Berlin")), updated))
+          .isTrue();
+      expected.set(3, updated);
+      for (int i = 0; i < 100; i++) {
+        Person person = new Person("p" + i % 10, "", new Address("Berlin"));
+        softly.assertThat(index.remove(person))
+            .isTrue();
+        expected.remove(person);
+      }
+      softly.assertThat(index.remove(new Person("unknown", "", new Address("Berlin"))))
+          .isFalse();
+      softly.assertThat(index.size())
+          .isEqualTo(expected.size());
+      softly.assertThat(index)
+          .containsExactlyElementsOf(expected);
+    }
+  }
+
+  /**
+   * Remove and update entries, that are equal by id, but have other sort values.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void removeAndUpdateEntriesEqualById(SoftAssertions softly) {
+    SortOrder byCity = new SortOrder("city", true, false, false);
+    PagedIndex<Entity> index = new PagedIndex<>(List.of(byCity));
+    String[] cities = {"Berlin", "Aachen", "Essen", "Ulm", "Bonn"};
+    for (int i = 0; i < 50; i++) {
+      index.add(new Entity(i, cities[i % cities.length]));
+    }
+    softly.assertThat(index.remove(new Entity(7, "Zwickau")))
+        .isTrue();
+    softly.assertThat(index.update(new Entity(8, "Aachen"), new Entity(8, "Dresden")))
+        .isTrue();
+    Entity changed = index.getRange(0, 1).get(0);
+    changed.setCity("Zwickau");
+    softly.assertThat(index.remove(new Entity(changed.getId(), "Aachen")))
+        .isTrue();
+    softly.assertThat(index.remove(new Entity(7, "Ulm")))
+        .isFalse();
+
+    List<Entity> expected = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      if (i != 7 && i != changed.getId()) {
+        expected.add(new Entity(i, i == 8 ? "Dresden" : cities[i % cities.length]));
+      }
+    }
+    expected.sort(Comparator.comparing(Entity::getCity));
+    softly.assertThat(index.size())
+        .isEqualTo(48);
+    softly.assertThat(index)
+        .containsExactlyElementsOf(expected);
+    softly.assertThat(index.getRange(0, 48).stream().map(Entity::getCity).toList())
+        .containsExactlyElementsOf(expected.stream().map(Entity::getCity).toList());
+    for (Entity entity : expected) {
+      softly.assertThat(index.remove(new Entity(entity.getId(), "Zwickau")))
+          .isTrue();
+    }
+    softly.assertThat(index.size())
+        .isEqualTo(0);
+  }
+
+  /**
+   * Build pages from index.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildPagesFromIndex(SoftAssertions softly) {
+    Random random = new Random(31L);
+    List<Person> entries = new ArrayList<>();
+    PagedIndex<Person> index = new PagedIndex<>(List.of(BY_CITY));
+    for (int i = 0; i < 100; i++) {
+      Person person = person(random, "p" + i);
+      entries.add(person);
+      index.add(person);
+    }
+    for (SortTarget sortTarget : SortTarget.values()) {
+      for (boolean filter : new boolean[]{false, true}) {
+        for (int number = 0; number < 3; number++) {
+          PageBuilder<Person, Person> builder = new PageBuilder<Person, Person>()
+              .pageable(number, 15, sortTarget, BY_CITY);
+          if (filter) {
+            builder.sourceFilter(person -> !person.getAddress().getCity().equals("Essen"));
+          }
+          Page<Person> expected = builder.sourceEntries(entries).build();
+          Page<Person> actual = builder.sourceEntries(index).build();
+          softly.assertThat(actual.getContent())
+              .containsExactlyElementsOf(expected.getContent());
+          softly.assertThat(actual.getTotalElements())
+              .isEqualTo(expected.getTotalElements());
+        }
+      }
+    }
+  }
+
+  /**
+   * Build page from index converts only the entries of the page.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildPageFromIndexConvertsOnlyEntriesOfPage(SoftAssertions softly) {
+    SortOrder byCity = new SortOrder("city", true, false, false);
+    PagedIndex<Address> index = new PagedIndex<>(List.of(byCity));
+    index.addAll(List.of(
+        new Address("Ulm"), new Address("Aachen"), new Address("Essen"), new Address("Bonn")));
+    AtomicInteger conversions = new AtomicInteger();
+    Page<String> actual = new PageBuilder<Address, String>()
+        .sourceEntries(index)
+        .converter(address -> {
+          conversions.incrementAndGet();
+          return address.getCity();
+        })
+        .pageable(1, 2, SortTarget.SOURCE_ENTRIES, byCity)
+        .build();
+    softly.assertThat(actual)
+        .containsExactly("Essen", "Ulm");
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(4L);
+    softly.assertThat(conversions.get())
+        .isEqualTo(2);
+  }
+
+  private static Person person(Random random, String firstname) {
+    String[] cities = {"Berlin", "Aachen", "Essen", "Ulm", "Bonn", "Dresden"};
+    return new Person(firstname, "", new Address(cities[random.nextInt(cities.length)]));
+  }
+
+  /**
+   * An entity, that is equal by its id.
+   */
+  public static class Entity {
+
+    private final int id;
+
+    private String city;
+
+    Entity(int id, String city) {
+      this.id = id;
+      this.city = city;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    public String getCity() {
+      return city;
+    }
+
+    public void setCity(String city) {
+      this.city = city;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Entity entity && entity.id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return Integer.hashCode(id);
+    }
+  }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.bremersee.pagebuilder.testmodel.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+/**
+ * The permutation index test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class PermutationIndexTest {
+
+  private static final List<SortOrder> BY_CITY = List.of(
+      new SortOrder("address.city", true, false, false));
+
+  private static final List<SortOrder> BY_LASTNAME_AND_CITY = List.of(
+      new SortOrder("lastname", true, true, true),
+      new SortOrder("address.city", false, false, false));
+
+  /**
+   * Get sorts.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void getSorts(SoftAssertions softly) {
+    PermutationIndex<Person> index = PermutationIndex.<Person>builder()
+        .sourceEntries(persons(100))
+        .sort(BY_CITY)
+        .sort(BY_LASTNAME_AND_CITY)
+        .sort(BY_CITY)
+        .build();
+    softly.assertThat(index.size())
+        .isEqualTo(100);
+    softly.assertThat(index.getSorts())
+        .containsExactly(
+            BY_CITY,
+            List.of(new SortOrder("address.city", false, false, true)),
+            BY_LASTNAME_AND_CITY,
+            List.of(
+                new SortOrder("lastname", false, true, false),
+                new SortOrder("address.city", true, false, true)));
+    softly.assertThat(index)
+        .containsExactlyElementsOf(index.getEntries());
+    softly.assertThat(index.order(List.of(new SortOrder("lastname", true, false, false))))
+        .isNull();
+  }
+
+  /**
+   * Build pages and slices from index.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildPagesAndSlicesFromIndex(SoftAssertions softly) {
+    List<Person> entries = persons(200);
+    List<SortOrder> byFirstname = List.of(new SortOrder("firstname", true, false, false));
+    PermutationIndex<Person> index = PermutationIndex.<Person>builder()
+        .sourceEntries(entries)
+        .sort(BY_CITY)
+        .sort(BY_LASTNAME_AND_CITY)
+        .build();
+    List<List<SortOrder>> sorts = new ArrayList<>(index.getSorts());
+    sorts.add(byFirstname);
+    for (List<SortOrder> sort : sorts) {
+      for (boolean filter : new boolean[]{false, true}) {
+        for (int number = 0; number < 15; number += 7) {
+          PageBuilder<Person, Person> builder = new PageBuilder<Person, Person>()
+              .pageable(number, 13, SortTarget.SOURCE_ENTRIES, sort.toArray(SortOrder[]::new));
+          if (filter) {
+            builder.sourceFilter(person -> !"Essen".equals(person.getAddress().getCity()));
+          }
+          Page<Person> expected = builder.sourceEntries(entries).build();
+          Page<Person> actual = builder.sourceEntries(index).build();
+          softly.assertThat(actual.getContent())
+              .containsExactlyElementsOf(expected.getContent());
+          softly.assertThat(actual.getTotalElements())
+              .isEqualTo(expected.getTotalElements());
+
+          Slice<Person> expectedSlice = builder.sourceEntries(entries).buildSlice();
+          Slice<Person> actualSlice = builder.sourceEntries(index).buildSlice();
+          softly.assertThat(actualSlice.getContent())
+              .containsExactlyElementsOf(expectedSlice.getContent());
+          softly.assertThat(actualSlice.hasNext())
+              .isEqualTo(expectedSlice.hasNext());
+        }
+      }
+    }
+  }
+
+  /**
+   * Build page from index converts only the entries of the page.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildPageFromIndexConvertsOnlyEntriesOfPage(SoftAssertions softly) {
+    SortOrder byCity = new SortOrder("city", true, false, false);
+    PermutationIndex<Address> index = PermutationIndex.<Address>builder()
+        .sourceEntries(List.of(
+            new Address("Ulm"), new Address("Aachen"), new Address("Essen"), new Address("Bonn")))
+        .sort(byCity)
+        .build();
+    AtomicInteger conversions = new AtomicInteger();
+    Page<String> actual = new PageBuilder<Address, String>()
+        .sourceEntries(index)
+        .converter(address -> {
+          conversions.incrementAndGet();
+          return address.getCity();
+        })
+        .pageable(0, 3, SortTarget.SOURCE_ENTRIES, new SortOrder("city", false, false, true))
+        .build();
+    softly.assertThat(actual)
+        .containsExactly("Ulm", "Essen", "Bonn");
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(4L);
+    softly.assertThat(conversions.get())
+        .isEqualTo(3);
+  }
+
+  /**
+   * Reversed order keeps the source order of equal entries.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void reversedOrderKeepsSourceOrderOfEqualEntries(SoftAssertions softly) {
+    List<Address> entries = List.of(
+        new Address("Bonn"), new Address("Aachen"), new Address("Bonn"),
+        new Address("Ulm"), new Address("Aachen"), new Address("Bonn"));
+    PermutationIndex<Address> index = PermutationIndex.<Address>builder()
+        .sourceEntries(entries)
+        .sort(new SortOrder("city", true, false, false))
+        .build();
+    PermutationIndex.Order order = index.order(
+        List.of(new SortOrder("city", false, false, true)));
+    List<Integer> indexes = new ArrayList<>();
+    order.indexes(0L).forEachRemaining((int i) -> indexes.add(i));
+    softly.assertThat(indexes)
+        .containsExactly(3, 0, 2, 5, 1, 4);
+    List<Integer> tail = new ArrayList<>();
+    order.indexes(2L).forEachRemaining((int i) -> tail.add(i));
+    softly.assertThat(tail)
+        .containsExactly(2, 5, 1, 4);
+    softly.assertThat(order.indexes(6L).hasNext())
+        .isFalse();
+  }
+
+  private static List<Person> persons(int size) {
+    Random random = new Random(37L);
+    String[] cities = {"Berlin", "Aachen", "Essen", "Ulm", "Bonn", "Dresden"};
+    String[] lastnames = {"Meyer", "müller", "Schulz", null, "meyer"};
+    List<Person> persons = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      persons.add(new Person(
+          "p" + i,
+          lastnames[random.nextInt(lastnames.length)],
+          new Address(cities[random.nextInt(cities.length)])));
+    }
+    return persons;
+  }
+}
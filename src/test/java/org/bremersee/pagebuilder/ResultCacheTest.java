@@ -0,0 +1,304 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.pagebuilder;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.data.domain.Page;
+
+/**
+ * The result cache test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class ResultCacheTest {
+
+  private static final List<SortOrder> SORT = List.of(new SortOrder(null, true, false, false));
+
+  /**
+   * Get and put.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void getAndPut(SoftAssertions softly) {
+    ResultCache cache = new ResultCache(10, 100L, null);
+    ResultCache.Key key = ResultCache.key("q", 1, SORT, SortTarget.TARGET_ENTRIES, null);
+    softly.assertThat(cache.get(key))
+        .isNull();
+    cache.put(key, "result", 5L);
+    softly.assertThat(cache.get(ResultCache.key(
+            "q", 1, List.of(new SortOrder(null, true, false, false)), SortTarget.TARGET_ENTRIES,
+            null)))
+        .isEqualTo("result");
+    softly.assertThat(cache.get(ResultCache.key("q", 1, SORT, SortTarget.SOURCE_ENTRIES, null)))
+        .isNull();
+    softly.assertThat(cache.getWeight())
+        .isEqualTo(5L);
+    softly.assertThat(cache.getHitCount())
+        .isEqualTo(1L);
+    softly.assertThat(cache.getMissCount())
+        .isEqualTo(2L);
+
+    cache.put(ResultCache.key("q", 2, SORT, SortTarget.TARGET_ENTRIES, null), "new", 3L);
+    softly.assertThat(cache.get(key))
+        .isNull();
+    softly.assertThat(cache.size())
+        .isEqualTo(1);
+    softly.assertThat(cache.getWeight())
+        .isEqualTo(3L);
+
+    cache.invalidate("q");
+    softly.assertThat(cache.size())
+        .isEqualTo(0);
+    softly.assertThat(cache.getWeight())
+        .isEqualTo(0L);
+  }
+
+  /**
+   * Put older version does not replace newer version.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void putOlderVersion(SoftAssertions softly) {
+    ResultCache cache = new ResultCache(10, 100L, null);
+    ResultCache.Key newer = ResultCache.key("q", 2L, SORT, SortTarget.TARGET_ENTRIES, null);
+    ResultCache.Key older = ResultCache.key("q", 1L, SORT, SortTarget.TARGET_ENTRIES, null);
+    cache.put(newer, "newer", 3L);
+    softly.assertThat(cache.put(older, "older", 3L))
+        .isFalse();
+    softly.assertThat(cache.get(newer))
+        .isEqualTo("newer");
+    softly.assertThat(cache.get(older))
+        .isNull();
+
+    ResultCache.Key other = ResultCache.key("q", "a", SORT, SortTarget.TARGET_ENTRIES, null);
+    softly.assertThat(cache.put(other, "other", 3L))
+        .isTrue();
+    softly.assertThat(cache.get(newer))
+        .isNull();
+    softly.assertThat(cache.size())
+        .isEqualTo(1);
+  }
+
+  /**
+   * Weigh with entry weigher.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void weighWithEntryWeigher(SoftAssertions softly) {
+    softly.assertThat(new ResultCache(10, 100L, null).weigh(List.of("a", "bb", "ccc")))
+        .isEqualTo(3L);
+    ResultCache cache = new ResultCache(
+        10, 1000L, null, entry -> ((String) entry).length() * 10L);
+    softly.assertThat(cache.weigh(List.of("a", "bb", "ccc")))
+        .isEqualTo(60L);
+
+    List<String> entries = List.of("Ulm", "Aachen", "Essen", "Bonn");
+    for (int i = 0; i < 2; i++) {
+      new PageBuilder<String, String>()
+          .sourceEntries(entries)
+          .pageable(i, 2, new SortOrder(null, true, false, false))
+          .resultCache(cache, "cities", 1)
+          .build();
+    }
+    softly.assertThat(cache.getWeight())
+        .isEqualTo(180L);
+    softly.assertThat(cache.getMissCount())
+        .isEqualTo(1L);
+  }
+
+  /**
+   * Evict by size and weight.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void evictBySizeAndWeight(SoftAssertions softly) {
+    ResultCache cache = new ResultCache(2, 10L, null);
+    ResultCache.Key a = ResultCache.key("a", 0, SORT, SortTarget.TARGET_ENTRIES, null);
+    ResultCache.Key b = ResultCache.key("b", 0, SORT, SortTarget.TARGET_ENTRIES, null);
+    ResultCache.Key c = ResultCache.key("c", 0, SORT, SortTarget.TARGET_ENTRIES, null);
+    cache.put(a, "a", 4L);
+    cache.put(b, "b", 4L);
+    cache.get(a);
+    cache.put(c, "c", 4L);
+    softly.assertThat(cache.size())
+        .isEqualTo(2);
+    softly.assertThat(cache.get(a))
+        .isEqualTo("a");
+    softly.assertThat(cache.get(b))
+        .isNull();
+    softly.assertThat(cache.getEvictionCount())
+        .isEqualTo(1L);
+
+    cache.put(b, "b", 7L);
+    softly.assertThat(cache.getWeight())
+        .isLessThanOrEqualTo(10L);
+    softly.assertThat(cache.get(b))
+        .isEqualTo("b");
+
+    cache.put(c, "c", 11L);
+    softly.assertThat(cache.get(c))
+        .isNull();
+  }
+
+  /**
+   * Expire.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void expire(SoftAssertions softly) {
+    AtomicLong time = new AtomicLong();
+    ResultCache cache = new ResultCache(10, 100L, Duration.ofNanos(10L), time::get);
+    ResultCache.Key key = ResultCache.key("q", null, SORT, SortTarget.TARGET_ENTRIES, null);
+    cache.put(key, "result", 1L);
+    time.set(9L);
+    softly.assertThat(cache.get(key))
+        .isEqualTo("result");
+    time.set(10L);
+    softly.assertThat(cache.get(key))
+        .isNull();
+    softly.assertThat(cache.size())
+        .isEqualTo(0);
+    softly.assertThat(cache.getWeight())
+        .isEqualTo(0L);
+  }
+
+  /**
+   * Evict expired results before the least recently used ones.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void evictExpiredBeforeLeastRecentlyUsed(SoftAssertions softly) {
+    AtomicLong time = new AtomicLong();
+    ResultCache cache = new ResultCache(2, 100L, Duration.ofNanos(10L), time::get);
+    ResultCache.Key a = ResultCache.key("a", 0, SORT, SortTarget.TARGET_ENTRIES, null);
+    ResultCache.Key b = ResultCache.key("b", 0, SORT, SortTarget.TARGET_ENTRIES, null);
+    ResultCache.Key c = ResultCache.key("c", 0, SORT, SortTarget.TARGET_ENTRIES, null);
+    cache.put(a, "a", 4L);
+    time.set(5L);
+    cache.put(b, "b", 4L);
+    time.set(9L);
+    cache.get(a);
+    time.set(10L);
+    cache.put(c, "c", 4L);
+    softly.assertThat(cache.size())
+        .isEqualTo(2);
+    softly.assertThat(cache.getWeight())
+        .isEqualTo(8L);
+    softly.assertThat(cache.get(b))
+        .isEqualTo("b");
+    softly.assertThat(cache.get(c))
+        .isEqualTo("c");
+    softly.assertThat(cache.get(a))
+        .isNull();
+    softly.assertThat(cache.getEvictionCount())
+        .isEqualTo(1L);
+
+    time.set(20L);
+    cache.cleanUp();
+    softly.assertThat(cache.size())
+        .isEqualTo(0);
+    softly.assertThat(cache.getWeight())
+        .isEqualTo(0L);
+  }
+
+  /**
+   * Build pages with cache.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void buildPagesWithCache(SoftAssertions softly) {
+    ResultCache cache = new ResultCache(10, 1000L, Duration.ofMinutes(5L));
+    List<Integer> entries = IntStream.range(0, 25).boxed().toList();
+    AtomicInteger conversions = new AtomicInteger();
+    for (SortTarget sortTarget : SortTarget.values()) {
+      conversions.set(0);
+      for (int number = 0; number < 3; number++) {
+        Page<String> actual = new PageBuilder<Integer, String>()
+            .sourceEntries(entries)
+            .converter(i -> {
+              conversions.incrementAndGet();
+              return String.format("%02d", i);
+            })
+            .pageable(number, 10, sortTarget, new SortOrder(null, false, false, false))
+            .resultCache(cache, "numbers", 1)
+            .build();
+        softly.assertThat(actual.getContent())
+            .containsExactlyElementsOf(IntStream.range(0, 25)
+                .map(i -> 24 - i)
+                .skip(number * 10L)
+                .limit(10)
+                .mapToObj(i -> String.format("%02d", i))
+                .toList());
+        softly.assertThat(actual.getTotalElements())
+            .isEqualTo(25L);
+      }
+      softly.assertThat(conversions.get())
+          .isEqualTo(25);
+    }
+    softly.assertThat(cache.getMissCount())
+        .isEqualTo(2L);
+    softly.assertThat(cache.getHitCount())
+        .isEqualTo(4L);
+
+    List<Page<String>> pages = new PageBuilder<Integer, String>()
+        .sourceEntries(entries)
+        .converter(String::valueOf)
+        .pageable(0, 10, SortTarget.SOURCE_ENTRIES, new SortOrder(null, false, false, false))
+        .resultCache(cache, "numbers", 1)
+        .buildPages(2, 1);
+    softly.assertThat(pages.get(0).getContent())
+        .containsExactly("4", "3", "2", "1", "0");
+    softly.assertThat(pages.get(1).getContent())
+        .containsExactly("14", "13", "12", "11", "10", "9", "8", "7", "6", "5");
+    softly.assertThat(cache.getHitCount())
+        .isEqualTo(5L);
+  }
+
+  /**
+   * Illegal arguments.
+   */
+  @Test
+  void illegalArguments() {
+    assertThatThrownBy(() -> new ResultCache(0, 1L, null))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new ResultCache(1, 0L, null))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new ResultCache(1, 1L, Duration.ZERO))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
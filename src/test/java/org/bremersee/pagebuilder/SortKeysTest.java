@@ -0,0 +1,102 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder;
+
+import java.util.List;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.bremersee.pagebuilder.testmodel.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * The sort keys test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class SortKeysTest {
+
+  /**
+   * Extract.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void extract(SoftAssertions softly) {
+    List<Person> entries = List.of(
+        new Person("Anna", "", new Address("Berlin")),
+        new Person("Bob", "", new Address("Berlin")),
+        new Person("Carl", "", new Address("Aachen")));
+    SortKeys actual = SortKeys.extract(entries, List.of(
+        new SortOrder("address.city", true, false, false),
+        new SortOrder("firstname", false, false, false)), null, false);
+    softly.assertThat(actual)
+        .isNotNull();
+    softly.assertThat(actual.compare(0, 1))
+        .isGreaterThan(0);
+    softly.assertThat(actual.compare(2, 0))
+        .isLessThan(0);
+    softly.assertThat(actual.compare(1, 1))
+        .isEqualTo(0);
+  }
+
+  /**
+   * Extract primitive values.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void extractPrimitiveValues(SoftAssertions softly) {
+    List<AccessorComparatorTest.Measure> entries = List.of(
+        new AccessorComparatorTest.Measure(3, 1.5, true, null),
+        new AccessorComparatorTest.Measure(-1, -0.5, false, 2),
+        new AccessorComparatorTest.Measure(7, 0.5, true, -4));
+    SortKeys actual = SortKeys.extract(entries, List.of(
+        new SortOrder("active", false, false, false),
+        new SortOrder("count", true, false, false)), null, true);
+    softly.assertThat(actual)
+        .isNotNull();
+    softly.assertThat(actual.compare(0, 2))
+        .isLessThan(0);
+    softly.assertThat(actual.compare(1, 2))
+        .isGreaterThan(0);
+
+    actual = SortKeys.extract(entries, List.of(
+        new SortOrder("weight", false, false, false)), null, false);
+    softly.assertThat(actual.compare(0, 2))
+        .isLessThan(0);
+  }
+
+  /**
+   * Extract with unknown field.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void extractWithUnknownField(SoftAssertions softly) {
+    SortKeys actual = SortKeys.extract(
+        List.of(new Address("Berlin")),
+        List.of(new SortOrder("zipCode", true, false, false)),
+        null,
+        false);
+    softly.assertThat(actual)
+        .isNull();
+  }
+}
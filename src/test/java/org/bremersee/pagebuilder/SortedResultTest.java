@@ -0,0 +1,250 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.bremersee.pagebuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.SoftAssertions;
+import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.pagebuilder.PageBuilder.SortTarget;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.bremersee.pagebuilder.testmodel.Person;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.data.domain.Page;
+
+/**
+ * The sorted result test.
+ *
+ * @author Christian Bremer
+ */
+@ExtendWith(SoftAssertionsExtension.class)
+class SortedResultTest {
+
+  private static final String[] CITIES = {"Berlin", "Aachen", "Essen", "Ulm", "Bonn"};
+
+  /**
+   * Apply changes.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void applyChanges(SoftAssertions softly) {
+    Random random = new Random(23L);
+    List<Person> entries = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      entries.add(person(random, "p" + i));
+    }
+    for (SortTarget sortTarget : SortTarget.values()) {
+      for (boolean sorted : new boolean[]{false, true}) {
+        for (boolean filter : new boolean[]{false, true}) {
+          List<Person> source = new ArrayList<>(entries);
+          SortedResult<Person, Person> actual = builder(sortTarget, sorted, filter, 0)
+              .sourceEntries(source)
+              .buildSortedResult(filter);
+
+          ChangeSet<Person> changes = new ChangeSet<>();
+          for (int i = 0; i < 5; i++) {
+            Person inserted = person(random, "n" + i);
+            changes.insert(inserted);
+            source.add(inserted);
+          }
+          Person deleted = source.remove(7);
+          changes.delete(deleted);
+          changes.delete(source.remove(source.size() - 2));
+          for (int index : new int[]{3, 12, 40}) {
+            Person updated = person(random, source.get(index).getFirstname() + "'");
+            changes.update(source.get(index), updated);
+            source.set(index, updated);
+          }
+          changes.delete(deleted);
+          actual.apply(changes);
+
+          for (int number = 0; number < 7; number++) {
+            Page<Person> expected = builder(sortTarget, sorted, filter, number)
+                .sourceEntries(source)
+                .build();
+            Page<Person> page = actual.getPage(number, 7);
+            softly.assertThat(page.getContent())
+                .containsExactlyElementsOf(expected.getContent());
+            softly.assertThat(page.getTotalElements())
+                .isEqualTo(expected.getTotalElements());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Apply updates of equal entries, that are filtered out.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void applyUpdatesOfEqualFilteredEntries(SoftAssertions softly) {
+    for (boolean sorted : new boolean[]{false, true}) {
+      List<Person> source = new ArrayList<>();
+      for (String city : new String[]{"Essen", "Ulm", "Essen", "Aachen", "Bonn", "Essen"}) {
+        source.add(new Person("p", "", new Address(city)));
+      }
+      SortedResult<Person, Person> actual = builder(SortTarget.SOURCE_ENTRIES, sorted, true, 0)
+          .sourceEntries(source)
+          .buildSortedResult(true);
+
+      Person essen = new Person("p", "", new Address("Essen"));
+      Person first = new Person("first", "", new Address("Bonn"));
+      Person second = new Person("second", "", new Address("Bonn"));
+      actual.apply(new ChangeSet<Person>()
+          .update(essen, first)
+          .update(essen, second));
+      source.set(0, first);
+      source.set(2, second);
+
+      Page<Person> expected = builder(SortTarget.SOURCE_ENTRIES, sorted, true, 0)
+          .sourceEntries(source)
+          .build();
+      softly.assertThat(actual.getPage(0, 7).getContent())
+          .containsExactlyElementsOf(expected.getContent());
+
+      actual.apply(new ChangeSet<Person>().update(essen, essen));
+      softly.assertThat(actual.getTotalElements())
+          .isEqualTo(expected.getTotalElements());
+    }
+  }
+
+  /**
+   * Apply update of a filtered entry without keeping the positions of filtered entries.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void applyUpdateOfFilteredEntryWithoutKeptPosition(SoftAssertions softly) {
+    List<Person> source = new ArrayList<>();
+    for (String city : new String[]{"Essen", "Ulm", "Aachen", "Essen"}) {
+      source.add(new Person("p", "", new Address(city)));
+    }
+    SortedResult<Person, Person> actual = builder(SortTarget.SOURCE_ENTRIES, false, true, 0)
+        .sourceEntries(source)
+        .buildSortedResult();
+    Person essen = new Person("p", "", new Address("Essen"));
+    Person bonn = new Person("p", "", new Address("Bonn"));
+    actual.apply(new ChangeSet<Person>()
+        .update(essen, bonn)
+        .delete(essen)
+        .delete(new Person("p", "", new Address("Ulm"))));
+    softly.assertThat(actual.getPage(0, 7).getContent())
+        .containsExactly(new Person("p", "", new Address("Aachen")), bonn);
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(2L);
+  }
+
+  /**
+   * Apply changes to many entries with equal sort values.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void applyChangesToManyEqualEntries(SoftAssertions softly) {
+    for (boolean sorted : new boolean[]{false, true}) {
+      List<Person> source = new ArrayList<>();
+      for (int i = 0; i < 2000; i++) {
+        source.add(new Person("p" + i, "", new Address("Berlin")));
+      }
+      SortedResult<Person, Person> actual = builder(SortTarget.SOURCE_ENTRIES, sorted, false, 0)
+          .sourceEntries(source)
+          .buildSortedResult();
+      ChangeSet<Person> changes = new ChangeSet<>();
+      for (int i = 0; i < 1000; i += 3) {
+        Person updated = new Person("u" + i, "", new Address(sorted ? "Aachen" : "Berlin"));
+        changes.update(new Person("p" + i, "", new Address("Berlin")), updated);
+        source.set(i, updated);
+      }
+      for (int i = 1999; i > 1000; i -= 7) {
+        changes.delete(source.remove(i));
+      }
+      actual.apply(changes);
+
+      PageBuilder<Person, Person> builder = new PageBuilder<Person, Person>()
+          .sourceEntries(source);
+      if (sorted) {
+        builder.pageable(3, 100, SortTarget.SOURCE_ENTRIES,
+            new SortOrder("address.city", true, false, false));
+      } else {
+        builder.pageable(3, 100);
+      }
+      Page<Person> expected = builder.build();
+      softly.assertThat(actual.getPage(3, 100).getContent())
+          .containsExactlyElementsOf(expected.getContent());
+      softly.assertThat(actual.getTotalElements())
+          .isEqualTo(expected.getTotalElements());
+    }
+  }
+
+  /**
+   * Get page converts only the entries of the page.
+   *
+   * @param softly the softly
+   */
+  @Test
+  void getPageConvertsOnlyEntriesOfPage(SoftAssertions softly) {
+    AtomicInteger conversions = new AtomicInteger();
+    SortedResult<Address, String> actual = new PageBuilder<Address, String>()
+        .sourceEntries(List.of(new Address("Ulm"), new Address("Aachen"), new Address("Essen")))
+        .converter(address -> {
+          conversions.incrementAndGet();
+          return address.getCity();
+        })
+        .pageable(0, 2, SortTarget.SOURCE_ENTRIES, new SortOrder("city", true, false, false))
+        .buildSortedResult();
+    softly.assertThat(actual.getPage())
+        .containsExactly("Aachen", "Essen");
+    actual.apply(new ChangeSet<Address>()
+        .insert(new Address("Berlin"))
+        .update(new Address("Ulm"), new Address("Bonn")));
+    softly.assertThat(actual.getPage(1, 2))
+        .containsExactly("Bonn", "Essen");
+    softly.assertThat(actual.getTotalElements())
+        .isEqualTo(4L);
+    softly.assertThat(conversions.get())
+        .isEqualTo(4);
+  }
+
+  private static Person person(Random random, String firstname) {
+    return new Person(firstname, "", new Address(CITIES[random.nextInt(CITIES.length)]));
+  }
+
+  private static PageBuilder<Person, Person> builder(
+      SortTarget sortTarget,
+      boolean sorted,
+      boolean filter,
+      int number) {
+    PageBuilder<Person, Person> builder = new PageBuilder<Person, Person>();
+    if (sorted) {
+      builder.pageable(number, 7, sortTarget, new SortOrder("address.city", true, false, false));
+    } else {
+      builder.pageable(number, 7);
+    }
+    if (filter) {
+      builder.targetFilter(person -> !person.getAddress().getCity().equals("Essen"));
+    }
+    return builder;
+  }
+}
@@ -23,6 +23,8 @@ import org.assertj.core.api.InstanceOfAssertFactories;
 import org.bremersee.comparator.model.SortOrder;
 import org.bremersee.comparator.model.SortOrder.CaseHandling;
 import org.bremersee.comparator.model.SortOrders;
+import org.bremersee.pagebuilder.CursorPage;
+import org.bremersee.pagebuilder.KeysetPage;
 import org.bremersee.pagebuilder.testmodel.Address;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.Page;
@@ -117,4 +119,39 @@ class CommonPageDtoTest {
         .isEqualTo(SortOrders.by(SortOrder.by("city").with(CaseHandling.SENSITIVE)));
   }
 
+  @Test
+  void getContinuationTokenWithPage() {
+    Page<Integer> page = new PageImpl<>(List.of(2, 4), PageRequest.of(0, 2), 10L);
+    CommonPageDto actual = new CommonPageDto(page);
+    assertThat(actual)
+        .extracting(CommonPageDto::getContinuationToken)
+        .isNull();
+  }
+
+  @Test
+  void getContinuationTokenWithKeysetPage() {
+    KeysetPage<Integer> page = new KeysetPage<>(
+        List.of(2, 4), PageRequest.of(0, 2), 10L, "next");
+    CommonPageDto actual = new CommonPageDto(page, page.getContinuationToken(), null);
+    assertThat(actual)
+        .extracting(CommonPageDto::getContinuationToken)
+        .isEqualTo("next");
+    assertThat(actual)
+        .extracting(CommonPageDto::getTotalElements)
+        .isEqualTo(10L);
+  }
+
+  @Test
+  void getCursorWithCursorPage() {
+    CursorPage<Integer> page = new CursorPage<>(
+        List.of(2, 4), PageRequest.of(0, 2), 10L, "cursor");
+    CommonPageDto actual = new CommonPageDto(page, null, page.getCursor());
+    assertThat(actual)
+        .extracting(CommonPageDto::getCursor)
+        .isEqualTo("cursor");
+    assertThat(actual)
+        .extracting(CommonPageDto::getContinuationToken)
+        .isNull();
+  }
+
 }
\ No newline at end of file
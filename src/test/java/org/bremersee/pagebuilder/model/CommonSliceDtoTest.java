@@ -0,0 +1,86 @@
+/*
+ * Copyright 2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bremersee.pagebuilder.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.bremersee.comparator.model.SortOrder;
+import org.bremersee.comparator.model.SortOrders;
+import org.bremersee.pagebuilder.testmodel.Address;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+/**
+ * The common slice dto test.
+ *
+ * @author Christian Bremer
+ */
+class CommonSliceDtoTest {
+
+  @Test
+  void getContentWithNoSort() {
+    List<Integer> expected = List.of(2, 4, 6);
+    CommonSliceDto actual = new CommonSliceDto(expected, 0, 4, false);
+    assertThat(actual)
+        .extracting(CommonSliceDto::getContent, InstanceOfAssertFactories.list(Integer.class))
+        .containsExactlyElementsOf(expected);
+    assertThat(actual.getSort())
+        .isEqualTo(new SortOrders(List.of()));
+  }
+
+  @Test
+  void getContentWithSortOrders() {
+    List<Address> content = List.of(
+        new Address("Berlin"),
+        new Address("London"));
+    CommonSliceDto actual = new CommonSliceDto(content, 0, 2, true,
+        new SortOrders(List.of(SortOrder.by("city"))));
+    assertThat(actual)
+        .extracting(CommonSliceDto::getContent, InstanceOfAssertFactories.list(Address.class))
+        .containsExactly(
+            new Address("Berlin"),
+            new Address("London"));
+    assertThat(actual.isHasNext())
+        .isTrue();
+  }
+
+  @Test
+  void getHasNextWithSlice() {
+    Slice<Address> slice = new SliceImpl<>(
+        List.of(new Address("Berlin"), new Address("London")),
+        PageRequest.of(3, 2, Sort.by("city")),
+        true);
+    CommonSliceDto actual = new CommonSliceDto(slice);
+    assertThat(actual.getNumber())
+        .isEqualTo(3);
+    assertThat(actual.getSize())
+        .isEqualTo(2);
+    assertThat(actual.isHasNext())
+        .isTrue();
+    assertThat(actual.getSort())
+        .isEqualTo(new SortOrders(List.of(SortOrder.by("city"))));
+    assertThat(actual)
+        .isEqualTo(new CommonSliceDto(
+            List.of(new Address("Berlin"), new Address("London")), 3, 2, true,
+            Sort.by("city")));
+  }
+}